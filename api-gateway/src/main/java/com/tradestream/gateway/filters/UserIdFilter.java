@@ -0,0 +1,31 @@
+package com.tradestream.gateway.filters;
+
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Downstreams take the caller's identity from {@code X-User-Id}, so the gateway owns that header: whatever the
+ * client sent is dropped, and for a verified JWT it is set to the token's subject (the user id).
+ */
+@Configuration
+public class UserIdFilter {
+  public static final String HEADER = "X-User-Id";
+  @Bean
+  public GlobalFilter userIdHeaderFilter() {
+    return (exchange, chain) -> exchange.getPrincipal()
+      .filter(JwtAuthenticationToken.class::isInstance)
+      .map(p -> ((JwtAuthenticationToken) p).getToken().getSubject())
+      .defaultIfEmpty("")
+      .flatMap(userId -> {
+        var mutated = exchange.getRequest().mutate().headers(h -> {
+          h.remove(HEADER);
+          if (!userId.isEmpty()) h.set(HEADER, userId);
+        }).build();
+        ServerWebExchange ex2 = exchange.mutate().request(mutated).build();
+        return chain.filter(ex2);
+      });
+  }
+}
@@ -0,0 +1,162 @@
+// src/jmh/java/com/tradestream/matching_engine/matching/MatchingServiceBenchmark.java
+package com.tradestream.matching_engine.matching;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
+import com.tradestream.matching_engine.persistence.RestingOrderRepository;
+import com.tradestream.matching_engine.persistence.RestingOrderWriter;
+
+/**
+ * {@link MatchingService#handleIncoming} end to end, minus I/O: the repository, the JDBC batch writer and
+ * the Kafka template are stubs, so this measures event conversion, the book and the matching loop.
+ * Each benchmark restores the book it started from.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MatchingServiceBenchmark {
+    private static final String TICKER = "BENCH";
+    private static final BigDecimal LOT = BigDecimal.TEN;
+
+    @Param({"100", "10000"})
+    int depth;
+
+    private MatchingService matching;
+    private long seq;
+
+    @Setup
+    public void setUp() {
+        EngineProps props = new EngineProps();
+        props.getInstruments().setDefaultTickSize(new BigDecimal("0.01"));
+        props.getInstruments().setDefaultLotSize(BigDecimal.ONE);
+        props.getSequencer().setShards(1);
+        props.getTopics().setTradeExecuted("trade.executed.v1");
+        props.getBooks().setLazyLoad(false); // no resting_orders to hydrate from
+
+        EngineMetrics metrics = new EngineMetrics(new SimpleMeterRegistry()); // recorded as in production
+        matching = new MatchingService(stubRepository(), new RestingOrderWriter(new NoopJdbc(), props, metrics),
+                new TradePublisher(new NoopKafka(), props, metrics), new TickScales(props), new MatchingSequencer(props),
+                props, metrics);
+
+        // depth orders per side, one per level, around 100.00
+        for (int i = 0; i < depth; i++) {
+            matching.handleIncoming(limit(OrderSide.SELL, price(100_01 + i), TimeInForce.GTC));
+            matching.handleIncoming(limit(OrderSide.BUY, price(99_99 - i), TimeInForce.GTC));
+        }
+    }
+
+    /** A new best ask rests, then a buy takes it: one trade, one new and one removed level. */
+    @Benchmark
+    public boolean restThenCross() {
+        matching.handleIncoming(limit(OrderSide.SELL, price(100_00), TimeInForce.GTC));
+        return matching.handleIncoming(limit(OrderSide.BUY, price(100_00), TimeInForce.GTC));
+    }
+
+    /** A marketable IOC sweeps 10 ask levels (10 trades), then those levels are re-posted. */
+    @Benchmark
+    public boolean sweepTenLevels() {
+        boolean filled = matching.handleIncoming(event(OrderSide.BUY, OrderType.MARKET, null,
+                LOT.multiply(BigDecimal.TEN), TimeInForce.IOC));
+        for (int i = 0; i < 10; i++) matching.handleIncoming(limit(OrderSide.SELL, price(100_01 + i), TimeInForce.GTC));
+        return filled;
+    }
+
+    /** FOK for more than the whole ask side: the pre-check walks every level and rejects, the book is untouched. */
+    @Benchmark
+    public boolean fokReject() {
+        return matching.handleIncoming(event(OrderSide.BUY, OrderType.LIMIT, price(100_01 + depth),
+                LOT.multiply(BigDecimal.valueOf(depth + 1L)), TimeInForce.FOK));
+    }
+
+    /** Cancel-heavy flow: an order rests at the back of the best bid level and is cancelled straight away. */
+    @Benchmark
+    public void restThenCancel() {
+        OrderPlacedEvent e = limit(OrderSide.BUY, price(99_99), TimeInForce.GTC);
+        matching.handleIncoming(e);
+        matching.cancel(e.getOrderId(), TICKER);
+    }
+
+    private static BigDecimal price(long cents) { return BigDecimal.valueOf(cents, 2); }
+
+    private OrderPlacedEvent limit(OrderSide side, BigDecimal price, TimeInForce tif) {
+        return event(side, OrderType.LIMIT, price, LOT, tif);
+    }
+
+    private OrderPlacedEvent event(OrderSide side, OrderType type, BigDecimal price, BigDecimal qty, TimeInForce tif) {
+        long n = ++seq;
+        return OrderPlacedEvent.builder()
+                .orderId(new UUID(0xBE7C4L, n))   // randomUUID() would dominate the cheap cases
+                .userId(new UUID(0, n & 0xFF))
+                .ticker(TICKER)
+                .side(side)
+                .orderType(type)
+                .timeInForce(tif)
+                .price(price)
+                .quantity(qty)
+                .timestamp(Instant.EPOCH)
+                .build();
+    }
+
+    // ---- I/O stubs ----
+
+    private static RestingOrderRepository stubRepository() {
+        return (RestingOrderRepository) Proxy.newProxyInstance(RestingOrderRepository.class.getClassLoader(),
+                new Class<?>[] { RestingOrderRepository.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "updateStatus" -> 0;
+                    case "findById" -> Optional.empty();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /** Swallows the write-behind batch (outside a transaction the writer writes through). */
+    private static final class NoopJdbc extends JdbcTemplate {
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            return new int[0][];
+        }
+    }
+
+    /** Acks every send at once; the producer is never created. */
+    private static final class NoopKafka extends KafkaTemplate<String, Object> {
+        NoopKafka() { super(new DefaultKafkaProducerFactory<>(Map.of())); }
+
+        @Override
+        public CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object data) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void flush() { }
+    }
+}
@@ -0,0 +1,118 @@
+// src/jmh/java/com/tradestream/matching_engine/matching/OrderBookBenchmark.java
+package com.tradestream.matching_engine.matching;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.TimeInForce;
+
+/**
+ * Raw book operations at several depths. Every benchmark leaves the book as it found it, so the depth
+ * stays fixed for the whole run. Both sides hold {@code depth} orders, {@value #PER_LEVEL} per price level.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderBookBenchmark {
+    static final int PER_LEVEL = 10;
+    static final long MID = 1_000_000;
+    private static final int POOL = 1024; // power of two
+
+    @Param({"100", "10000", "100000"})
+    int depth;
+
+    private OrderBook book;
+    private BookOrder[] resting;   // every ask in the book, for random cancels
+    private BookOrder[] extra;     // orders not in the book, added and removed again
+    private int levels;
+    private int cursor;
+    private final SplittableRandom rnd = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        book = new OrderBook(new TickScale("BENCH", new BigDecimal("0.01"), BigDecimal.ONE));
+        levels = Math.max(1, depth / PER_LEVEL);
+        resting = new BookOrder[depth];
+        long seq = 0;
+        for (int i = 0; i < depth; i++) {
+            long level = i / PER_LEVEL;
+            BookOrder ask = order(++seq, OrderSide.SELL, MID + 1 + level, 100);
+            book.add(ask);
+            resting[i] = ask;
+            book.add(order(++seq, OrderSide.BUY, MID - 1 - level, 100));
+        }
+        extra = new BookOrder[POOL];
+        for (int i = 0; i < POOL; i++) {
+            extra[i] = order(++seq, OrderSide.SELL, MID + 1 + rnd.nextInt(levels), 100);
+        }
+    }
+
+    static BookOrder order(long seq, OrderSide side, long priceTicks, long lots) {
+        return new BookOrder().set(new UUID(0xBE7C4L, seq), new UUID(0, seq), "BENCH", side, OrderType.LIMIT,
+                TimeInForce.GTC, priceTicks, lots, lots, seq);
+    }
+
+    /** New order joins an existing level, then is cancelled: the tail of a level and the id index. */
+    @Benchmark
+    public int addThenRemove() {
+        BookOrder o = extra[cursor++ & (POOL - 1)];
+        book.add(o);
+        book.remove(o.id());
+        return book.size();
+    }
+
+    /** Cancel-heavy flow: a random resting order leaves from the middle of its level and rejoins at the back. */
+    @Benchmark
+    public int cancelRandom() {
+        BookOrder o = resting[rnd.nextInt(resting.length)];
+        book.remove(o.id());
+        book.add(o);
+        return book.size();
+    }
+
+    /** Partial fill at the top of book: take the best ask and put it back in front. */
+    @Benchmark
+    public long pollThenRequeue() {
+        BookOrder top = book.pollOpp(OrderSide.BUY);
+        book.requeueOpp(top);
+        return top.price();
+    }
+
+    /** Full fill of a level-sized chunk: the best level empties and the next one becomes best, then it is rebuilt. */
+    @Benchmark
+    public long drainBestLevel() {
+        BookOrder[] taken = new BookOrder[PER_LEVEL];
+        long price = book.peekBest(OrderSide.BUY).orElseThrow().price();
+        int n = 0;
+        while (n < PER_LEVEL && book.peekBest(OrderSide.BUY).orElseThrow().price() == price) {
+            taken[n++] = book.pollOpp(OrderSide.BUY);
+        }
+        for (int i = 0; i < n; i++) book.add(taken[i]);
+        return price;
+    }
+
+    /** FOK pre-check that fits in the best level. */
+    @Benchmark
+    public boolean fokTopLevel() {
+        return book.canFill(OrderBook.marketLimit(OrderSide.BUY), OrderSide.BUY, PER_LEVEL * 100L);
+    }
+
+    /** FOK pre-check for more than the whole side: walks every level and rejects. */
+    @Benchmark
+    public boolean fokWholeSide() {
+        return book.canFill(OrderBook.marketLimit(OrderSide.BUY), OrderSide.BUY, depth * 100L + 1);
+    }
+}
@@ -0,0 +1,45 @@
+// src/jmh/java/com/tradestream/matching_engine/replay/InMemoryOrders.java
+package com.tradestream.matching_engine.replay;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
+import com.tradestream.matching_engine.domain.RestingOrder;
+import com.tradestream.matching_engine.persistence.RestingOrderRepository;
+import com.tradestream.matching_engine.persistence.RestingOrderWriter;
+
+/**
+ * Stand-in for the resting_orders table: the writer stages into a map and the repository reads it back,
+ * which is all {@code MatchingService} needs (cancel of an order no longer in the book, ticker lookups).
+ * Rows are kept as the engine's own entity instances, so a "write" costs one map put.
+ */
+final class InMemoryOrders {
+    private final Map<UUID, RestingOrder> rows = new HashMap<>();
+
+    int size() { return rows.size(); }
+
+    RestingOrderWriter writer(EngineProps props, EngineMetrics metrics) {
+        return new RestingOrderWriter(null, props, metrics) {
+            @Override
+            public void stage(RestingOrder ro) { rows.put(ro.getId(), ro); }
+        };
+    }
+
+    RestingOrderRepository repository() {
+        return (RestingOrderRepository) Proxy.newProxyInstance(RestingOrderRepository.class.getClassLoader(),
+                new Class<?>[] { RestingOrderRepository.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(rows.get((UUID) args[0]));
+                    case "updateStatus" -> {
+                        RestingOrder ro = rows.get((UUID) args[0]);
+                        if (ro != null) ro.setStatus((String) args[1]);
+                        yield ro != null ? 1 : 0;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
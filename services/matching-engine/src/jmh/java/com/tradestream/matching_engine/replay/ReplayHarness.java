@@ -0,0 +1,177 @@
+// src/jmh/java/com/tradestream/matching_engine/replay/ReplayHarness.java
+package com.tradestream.matching_engine.replay;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.journal.JournalRecord.Amended;
+import com.tradestream.matching_engine.journal.JournalRecord.Cancelled;
+import com.tradestream.matching_engine.journal.JournalRecord.Command;
+import com.tradestream.matching_engine.journal.JournalRecord.Placed;
+import com.tradestream.matching_engine.matching.MatchingSequencer;
+import com.tradestream.matching_engine.matching.MatchingService;
+import com.tradestream.matching_engine.matching.TickScales;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Deterministic replay of a recorded order.placed / order.cancelled / order.amended stream through {@link MatchingService},
+ * single-threaded and without Postgres or Kafka (see {@link InMemoryOrders}, {@link TradeDigest}).
+ *
+ * Reports commands/sec, a per-command latency histogram and a digest of the resulting trade stream. The
+ * digest is the regression check: a performance change must not move it. Every pass starts from empty
+ * books; warm-up passes only feed the JIT, and a digest that differs between passes fails the run.
+ *
+ * <pre>
+ *   --input=PATH           JSON lines file or journal directory (see {@link ReplayInput})
+ *   --generate=N           write a synthetic stream of N commands first (--tickers=8 --seed=1 --out=PATH)
+ *   --warmup=2 --passes=3  passes to discard / to measure (reported: the last measured pass)
+ *   --tick=.. --lot=..     default tick/lot size; defaults are the engine's
+ *   --expect=HEX           exit 1 unless the trade digest matches
+ *   --json=PATH            also write the report as JSON
+ * </pre>
+ * A journal is only a complete history up to its first snapshot prune; replay one from a fresh start.
+ */
+public final class ReplayHarness {
+
+    private record Result(long commands, long placed, long trades, long elapsedNanos, Histogram latency,
+                          String digest, int restingRows) {
+        double perSecond() { return commands * 1e9 / elapsedNanos; }
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parse(argv);
+
+        Path input;
+        if (args.containsKey("generate")) {
+            input = Path.of(args.getOrDefault("out", "build/replay/synthetic.jsonl"));
+            Files.createDirectories(input.toAbsolutePath().getParent());
+            ReplayInput.generate(input, Integer.parseInt(args.get("generate")),
+                    Integer.parseInt(args.getOrDefault("tickers", "8")), Long.parseLong(args.getOrDefault("seed", "1")));
+            System.out.println("Generated " + input);
+        } else if (args.containsKey("input")) {
+            input = Path.of(args.get("input"));
+        } else {
+            System.err.println("Usage: --input=PATH | --generate=N [--out=PATH] (see ReplayHarness javadoc)");
+            System.exit(2);
+            return;
+        }
+
+        EngineProps props = new EngineProps();
+        props.getSequencer().setShards(1);
+        props.getBooks().setLazyLoad(false); // every replay starts from empty books
+        if (args.containsKey("tick")) props.getInstruments().setDefaultTickSize(new BigDecimal(args.get("tick")));
+        if (args.containsKey("lot")) props.getInstruments().setDefaultLotSize(new BigDecimal(args.get("lot")));
+
+        List<Command> commands = ReplayInput.load(input);
+        System.out.printf("Loaded %,d commands from %s%n", commands.size(), input);
+
+        int warmup = Integer.parseInt(args.getOrDefault("warmup", "2"));
+        int passes = Math.max(1, Integer.parseInt(args.getOrDefault("passes", "3")));
+        Result last = null;
+        String digest = null;
+        for (int i = 0; i < warmup + passes; i++) {
+            Result r = run(commands, props);
+            if (digest != null && !digest.equals(r.digest())) {
+                throw new IllegalStateException("Non-deterministic matching: pass " + i + " digest " + r.digest()
+                        + " != " + digest);
+            }
+            digest = r.digest();
+            if (i >= warmup) {
+                System.out.printf("pass %d: %,.0f commands/s%n", i - warmup + 1, r.perSecond());
+                last = r;
+            }
+        }
+
+        report(last);
+        if (args.containsKey("json")) writeJson(Path.of(args.get("json")), input, last);
+        String expect = args.get("expect");
+        if (expect != null && !expect.equalsIgnoreCase(last.digest())) {
+            System.err.println("Trade digest mismatch: expected " + expect);
+            System.exit(1);
+        }
+    }
+
+    private static Result run(List<Command> commands, EngineProps props) {
+        InMemoryOrders rows = new InMemoryOrders();
+        EngineMetrics metrics = new EngineMetrics(new SimpleMeterRegistry()); // recorded as in production
+        TradeDigest trades = new TradeDigest(props, metrics);
+        MatchingService matching = new MatchingService(rows.repository(), rows.writer(props, metrics), trades,
+                new TickScales(props), new MatchingSequencer(props), props, metrics);
+        Histogram latency = new Histogram(TimeUnit.SECONDS.toNanos(10), 3);
+        long placed = 0;
+
+        long start = System.nanoTime();
+        for (Command c : commands) {
+            long t0 = System.nanoTime();
+            if (c instanceof Placed p) {
+                matching.handleIncoming(p.event(),
+                        Instant.EPOCH.plus(p.arrivedAtMicros(), ChronoUnit.MICROS).atOffset(ZoneOffset.UTC));
+                placed++;
+            } else if (c instanceof Cancelled k) {
+                String ticker = k.ticker() != null ? k.ticker() : matching.tickerOf(k.orderId()).orElse(null);
+                matching.cancel(k.orderId(), ticker);
+            } else if (c instanceof Amended a) {
+                String ticker = a.ticker() != null ? a.ticker() : matching.tickerOf(a.orderId()).orElse(null);
+                matching.amend(a.orderId(), ticker, a.price(), a.quantity());
+            }
+            latency.recordValue(Math.min(System.nanoTime() - t0, latency.getHighestTrackableValue()));
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Result(commands.size(), placed, trades.trades(), elapsed, latency, trades.hex(), rows.size());
+    }
+
+    private static void report(Result r) {
+        Histogram h = r.latency();
+        System.out.printf("%ncommands      %,d (%,d placed, %,d cancels/amends)%n", r.commands(), r.placed(), r.commands() - r.placed());
+        System.out.printf("trades        %,d%n", r.trades());
+        System.out.printf("throughput    %,.0f commands/s%n", r.perSecond());
+        System.out.printf("latency (ns)  p50=%,d p99=%,d p999=%,d max=%,d%n", h.getValueAtPercentile(50),
+                h.getValueAtPercentile(99), h.getValueAtPercentile(99.9), h.getMaxValue());
+        System.out.printf("order rows    %,d%n", r.restingRows());
+        System.out.printf("trade digest  %s%n", r.digest());
+    }
+
+    private static void writeJson(Path out, Path input, Result r) throws Exception {
+        Histogram h = r.latency();
+        Map<String, Object> doc = new LinkedHashMap<>();
+        doc.put("input", input.toString());
+        doc.put("commands", r.commands());
+        doc.put("placed", r.placed());
+        doc.put("trades", r.trades());
+        doc.put("commandsPerSecond", Math.round(r.perSecond()));
+        doc.put("p50Nanos", h.getValueAtPercentile(50));
+        doc.put("p99Nanos", h.getValueAtPercentile(99));
+        doc.put("p999Nanos", h.getValueAtPercentile(99.9));
+        doc.put("maxNanos", h.getMaxValue());
+        doc.put("tradeDigest", r.digest());
+        if (out.toAbsolutePath().getParent() != null) Files.createDirectories(out.toAbsolutePath().getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(out.toFile(), doc);
+        System.out.println("Wrote " + out);
+    }
+
+    private static Map<String, String> parse(String[] argv) {
+        Map<String, String> m = new HashMap<>();
+        for (String a : argv) {
+            if (!a.startsWith("--")) throw new IllegalArgumentException("Unexpected argument " + a);
+            int eq = a.indexOf('=');
+            if (eq < 0) m.put(a.substring(2), "true");
+            else m.put(a.substring(2, eq), a.substring(eq + 1));
+        }
+        return m;
+    }
+}
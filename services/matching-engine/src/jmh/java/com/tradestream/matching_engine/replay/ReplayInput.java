@@ -0,0 +1,146 @@
+// src/jmh/java/com/tradestream/matching_engine/replay/ReplayInput.java
+package com.tradestream.matching_engine.replay;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.dto.OrderAmendedEvent;
+import com.tradestream.matching_engine.dto.OrderCancelledEvent;
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+import com.tradestream.matching_engine.journal.EngineJournal;
+import com.tradestream.matching_engine.journal.JournalRecord;
+import com.tradestream.matching_engine.journal.JournalRecord.Amended;
+import com.tradestream.matching_engine.journal.JournalRecord.Cancelled;
+import com.tradestream.matching_engine.journal.JournalRecord.Command;
+import com.tradestream.matching_engine.journal.JournalRecord.Placed;
+
+/**
+ * Loads a recorded command stream, in one of two forms:
+ * <ul>
+ *   <li>a directory: the engine's own journal segments, read in sequence order;</li>
+ *   <li>a file: JSON lines of {@code {"topic": ..., "value": ...}} as printed by {@code rpk topic consume},
+ *       where value is the order.placed / order.cancelled / order.amended payload (object or JSON string);
+ *       topics containing "cancel" are cancels, "amend" amends.</li>
+ * </ul>
+ * {@link #generate} writes a synthetic stream in the second form, so a run doesn't need a recording.
+ */
+final class ReplayInput {
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private ReplayInput() { }
+
+    static List<Command> load(Path path) throws IOException {
+        return Files.isDirectory(path) ? fromJournal(path) : fromJsonLines(path);
+    }
+
+    private static List<Command> fromJournal(Path dir) {
+        EngineProps props = new EngineProps();
+        props.getJournal().setDir(dir.toString());
+        List<Command> out = new ArrayList<>();
+        new EngineJournal(props).read(1, (JournalRecord r) -> out.add(r.command()));
+        return out;
+    }
+
+    private static List<Command> fromJsonLines(Path file) throws IOException {
+        List<Command> out = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+            String l;
+            int n = 0;
+            while ((l = in.readLine()) != null) {
+                n++;
+                if (l.isBlank()) continue;
+                JsonNode rec = JSON.readTree(l);
+                JsonNode value = rec.path("value");
+                if (value.isTextual()) value = JSON.readTree(value.asText());
+                if (rec.path("topic").asText("").contains("cancel")) {
+                    OrderCancelledEvent c = JSON.treeToValue(value, OrderCancelledEvent.class);
+                    out.add(new Cancelled(c.getOrderId(), c.getTicker()));
+                } else if (rec.path("topic").asText("").contains("amend")) {
+                    OrderAmendedEvent a = JSON.treeToValue(value, OrderAmendedEvent.class);
+                    out.add(new Amended(a.getOrderId(), a.getTicker(), a.getPrice(), a.getQuantity()));
+                } else {
+                    OrderPlacedEvent p = JSON.treeToValue(value, OrderPlacedEvent.class);
+                    // Arrival time only becomes created_at; keep it input-derived so runs are repeatable
+                    Instant at = p.getTimestamp() != null ? p.getTimestamp() : Instant.EPOCH.plusMillis(n);
+                    out.add(new Placed(p, ChronoUnit.MICROS.between(Instant.EPOCH, at)));
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Seeded random flow over {@code tickers} symbols: mostly GTC limits around a drifting mid, some
+     * marketable IOC/MARKET/FOK orders, and cancels of earlier orders. Same seed, same file.
+     */
+    static void generate(Path file, int orders, int tickers, long seed) throws IOException {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        long[] mid = new long[tickers];              // in cents
+        for (int t = 0; t < tickers; t++) mid[t] = 10_000 + rnd.nextInt(40_000);
+        List<OrderPlacedEvent> placed = new ArrayList<>(orders); // cancel candidates
+        Instant clock = Instant.parse("2025-01-01T00:00:00Z");
+
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < orders; i++) {
+                clock = clock.plusNanos(50_000);
+                int t = rnd.nextInt(tickers);
+                String ticker = "SYM" + t;
+                int kind = rnd.nextInt(100);
+                if (kind < 15 && !placed.isEmpty()) {
+                    OrderPlacedEvent victim = placed.get(rnd.nextInt(placed.size()));
+                    line(out, "order.cancelled.v1", new OrderCancelledEvent(victim.getOrderId(), victim.getUserId(),
+                            victim.getTicker(), victim.getQuantity(), victim.getPrice(), clock));
+                    continue;
+                }
+                mid[t] = Math.max(100, mid[t] + rnd.nextInt(-2, 3));
+                OrderSide side = rnd.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+                int away = rnd.nextInt(-5, 40);      // ticks away from mid on the passive side; <0 crosses
+                long cents = side == OrderSide.BUY ? mid[t] - away : mid[t] + away;
+                OrderType type = kind < 20 ? OrderType.MARKET : OrderType.LIMIT;
+                TimeInForce tif = kind < 25 ? TimeInForce.IOC : kind < 28 ? TimeInForce.FOK : TimeInForce.GTC;
+                OrderPlacedEvent e = OrderPlacedEvent.builder()
+                        .orderId(new UUID(rnd.nextLong(), rnd.nextLong()))
+                        .userId(new UUID(0, rnd.nextInt(1_000)))
+                        .ticker(ticker)
+                        .side(side)
+                        .orderType(type)
+                        .timeInForce(type == OrderType.MARKET ? TimeInForce.IOC : tif)
+                        .price(type == OrderType.MARKET ? null : BigDecimal.valueOf(cents, 2))
+                        .quantity(BigDecimal.valueOf(1 + rnd.nextInt(100)))
+                        .timestamp(clock)
+                        .build();
+                if (e.getTimeInForce() == TimeInForce.GTC) placed.add(e); // only these can still be resting
+                line(out, "order.placed.v1", e);
+            }
+        }
+    }
+
+    private static void line(BufferedWriter out, String topic, Object value) throws IOException {
+        ObjectNode rec = JSON.createObjectNode();
+        rec.put("topic", topic);
+        rec.set("value", JSON.valueToTree(value));
+        out.write(JSON.writeValueAsString(rec));
+        out.newLine();
+    }
+}
@@ -0,0 +1,48 @@
+// src/jmh/java/com/tradestream/matching_engine/replay/TradeDigest.java
+package com.tradestream.matching_engine.replay;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
+import com.tradestream.matching_engine.dto.TradeExecutedEvent;
+import com.tradestream.matching_engine.matching.TradePublisher;
+
+/**
+ * Stand-in for {@link TradePublisher} that folds every trade into a SHA-256 instead of sending it.
+ * Only the matching outcome goes in (buy/sell order ids, ticker, price, quantity, in publication order);
+ * tradeId (a function of those ids) and the wall-clock timestamp are left out, so two runs over the same
+ * input agree exactly when they produced the same trades.
+ */
+final class TradeDigest extends TradePublisher {
+    private final MessageDigest sha;
+    private final StringBuilder line = new StringBuilder(128);
+    private long trades;
+
+    TradeDigest(EngineProps props, EngineMetrics metrics) {
+        super(null, props, metrics);
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void publish(TradeExecutedEvent t, String key) {
+        line.setLength(0);
+        line.append(t.getBuyOrderId()).append('|').append(t.getSellOrderId()).append('|').append(t.getTicker())
+                .append('|').append(t.getPrice().toPlainString()).append('|').append(t.getQuantity().toPlainString())
+                .append('\n');
+        sha.update(line.toString().getBytes(StandardCharsets.UTF_8));
+        trades++;
+    }
+
+    long trades() { return trades; }
+
+    /** Hex digest of everything published so far; resets the digest. */
+    String hex() { return HexFormat.of().formatHex(sha.digest()); }
+}
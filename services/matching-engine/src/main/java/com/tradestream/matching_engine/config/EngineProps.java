@@ -1,20 +1,174 @@
 // config/EngineProps.java
 package com.tradestream.matching_engine.config;
 
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
-@ConfigurationProperties(prefix = "tradestream.topics")
+@ConfigurationProperties(prefix = "tradestream")
 public class EngineProps {
-    private String orderPlaced;
-    private String orderCancelled;
-    private String tradeExecuted;
-    // getters/setters
-    public String getOrderPlaced() { return orderPlaced; }
-    public void setOrderPlaced(String v) { orderPlaced = v; }
-    public String getOrderCancelled() { return orderCancelled; }
-    public void setOrderCancelled(String v) { orderCancelled = v; }
-    public String getTradeExecuted() { return tradeExecuted; }
-    public void setTradeExecuted(String v) { tradeExecuted = v; }
+    private final Topics topics = new Topics();
+    private final Instruments instruments = new Instruments();
+    private final Sequencer sequencer = new Sequencer();
+    private final Persistence persistence = new Persistence();
+    private final Journal journal = new Journal();
+    private final Producer producer = new Producer();
+    private final Depth depth = new Depth();
+    private final Books books = new Books();
+    private final Metrics metrics = new Metrics();
+
+    public Topics getTopics() { return topics; }
+    public Instruments getInstruments() { return instruments; }
+    public Sequencer getSequencer() { return sequencer; }
+    public Persistence getPersistence() { return persistence; }
+    public Journal getJournal() { return journal; }
+    public Producer getProducer() { return producer; }
+    public Depth getDepth() { return depth; }
+    public Books getBooks() { return books; }
+    public Metrics getMetrics() { return metrics; }
+
+    public static class Topics {
+        private String orderPlaced;
+        private String orderCancelled;
+        private String orderAmended;
+        private String tradeExecuted;
+        private String marketDepth;
+        // getters/setters
+        public String getOrderPlaced() { return orderPlaced; }
+        public void setOrderPlaced(String v) { orderPlaced = v; }
+        public String getOrderCancelled() { return orderCancelled; }
+        public void setOrderCancelled(String v) { orderCancelled = v; }
+        public String getOrderAmended() { return orderAmended; }
+        public void setOrderAmended(String v) { orderAmended = v; }
+        public String getTradeExecuted() { return tradeExecuted; }
+        public void setTradeExecuted(String v) { tradeExecuted = v; }
+        public String getMarketDepth() { return marketDepth; }
+        public void setMarketDepth(String v) { marketDepth = v; }
+    }
+
+    /**
+     * Price/quantity increments per ticker. The book and matching loop work in whole ticks and lots;
+     * defaults match the NUMERIC(18,8) columns so any storable value is representable.
+     */
+    public static class Instruments {
+        private BigDecimal defaultTickSize = new BigDecimal("0.00000001");
+        private BigDecimal defaultLotSize = new BigDecimal("0.00000001");
+        private Map<String, BigDecimal> tickSizes = new HashMap<>();
+        private Map<String, BigDecimal> lotSizes = new HashMap<>();
+        // getters/setters
+        public BigDecimal getDefaultTickSize() { return defaultTickSize; }
+        public void setDefaultTickSize(BigDecimal v) { defaultTickSize = v; }
+        public BigDecimal getDefaultLotSize() { return defaultLotSize; }
+        public void setDefaultLotSize(BigDecimal v) { defaultLotSize = v; }
+        public Map<String, BigDecimal> getTickSizes() { return tickSizes; }
+        public void setTickSizes(Map<String, BigDecimal> v) { tickSizes = v; }
+        public Map<String, BigDecimal> getLotSizes() { return lotSizes; }
+        public void setLotSizes(Map<String, BigDecimal> v) { lotSizes = v; }
+    }
+
+    /** Matching threads: each ticker is owned by exactly one shard, fed through a bounded queue. */
+    public static class Sequencer {
+        private int shards = Runtime.getRuntime().availableProcessors();
+        private int ringBufferSize = 1024;
+        // getters/setters
+        public int getShards() { return shards; }
+        public void setShards(int v) { shards = v; }
+        public int getRingBufferSize() { return ringBufferSize; }
+        public void setRingBufferSize(int v) { ringBufferSize = v; }
+    }
+
+    /** Write-behind of resting_orders: rows are batched per transaction, flushed early past flushSize. */
+    public static class Persistence {
+        private int flushSize = 500;
+        // getters/setters
+        public int getFlushSize() { return flushSize; }
+        public void setFlushSize(int v) { flushSize = v; }
+    }
+
+    /** Local command journal + book snapshots used for fast restart (falls back to a DB scan without them). */
+    public static class Journal {
+        private boolean enabled = true;
+        private String dir = "data/journal";
+        private int segmentSize = 64 * 1024 * 1024;
+        private boolean fsync = true;              // force journal pages before each DB commit
+        private long snapshotEveryRecords = 100_000;
+        private long snapshotIntervalSeconds = 300;
+        // getters/setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean v) { enabled = v; }
+        public String getDir() { return dir; }
+        public void setDir(String v) { dir = v; }
+        public int getSegmentSize() { return segmentSize; }
+        public void setSegmentSize(int v) { segmentSize = v; }
+        public boolean isFsync() { return fsync; }
+        public void setFsync(boolean v) { fsync = v; }
+        public long getSnapshotEveryRecords() { return snapshotEveryRecords; }
+        public void setSnapshotEveryRecords(long v) { snapshotEveryRecords = v; }
+        public long getSnapshotIntervalSeconds() { return snapshotIntervalSeconds; }
+        public void setSnapshotIntervalSeconds(long v) { snapshotIntervalSeconds = v; }
+    }
+
+    /** Trade producer tuning; trades are sent per transaction and flushed together, so linger only caps waiting. */
+    public static class Producer {
+        private int lingerMs = 5;
+        private int batchSize = 64 * 1024;
+        private String compressionType = "lz4";
+        // getters/setters
+        public int getLingerMs() { return lingerMs; }
+        public void setLingerMs(int v) { lingerMs = v; }
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int v) { batchSize = v; }
+        public String getCompressionType() { return compressionType; }
+        public void setCompressionType(String v) { compressionType = v; }
+    }
+
+    /**
+     * Market-by-price feed: changed levels are published every {@code intervalMs} (conflated in between),
+     * and every ticker gets a full snapshot of up to {@code snapshotLevels} levels per side (0 = all)
+     * every {@code snapshotIntervalSeconds}.
+     */
+    public static class Depth {
+        private boolean enabled = true;
+        private long intervalMs = 100;
+        private long snapshotIntervalSeconds = 5;
+        private int snapshotLevels = 100;
+        // getters/setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean v) { enabled = v; }
+        public long getIntervalMs() { return intervalMs; }
+        public void setIntervalMs(long v) { intervalMs = v; }
+        public long getSnapshotIntervalSeconds() { return snapshotIntervalSeconds; }
+        public void setSnapshotIntervalSeconds(long v) { snapshotIntervalSeconds = v; }
+        public int getSnapshotLevels() { return snapshotLevels; }
+        public void setSnapshotLevels(int v) { snapshotLevels = v; }
+    }
+
+    /**
+     * Book residency. Lazy: a ticker's book is loaded from resting_orders on its first event instead of at
+     * boot, and (lazy only) dropped again after {@code idleTtlSeconds} without activity (0 = never).
+     */
+    public static class Books {
+        private boolean lazyLoad = true;
+        private long idleTtlSeconds = 1800;
+        private long evictCheckSeconds = 60;
+        // getters/setters
+        public boolean isLazyLoad() { return lazyLoad; }
+        public void setLazyLoad(boolean v) { lazyLoad = v; }
+        public long getIdleTtlSeconds() { return idleTtlSeconds; }
+        public void setIdleTtlSeconds(long v) { idleTtlSeconds = v; }
+        public long getEvictCheckSeconds() { return evictCheckSeconds; }
+        public void setEvictCheckSeconds(long v) { evictCheckSeconds = v; }
+    }
+
+    /** Per-ticker book gauges are refreshed on the shard threads every {@code bookGaugeIntervalSeconds} (0 = off). */
+    public static class Metrics {
+        private long bookGaugeIntervalSeconds = 5;
+        // getters/setters
+        public long getBookGaugeIntervalSeconds() { return bookGaugeIntervalSeconds; }
+        public void setBookGaugeIntervalSeconds(long v) { bookGaugeIntervalSeconds = v; }
+    }
 }
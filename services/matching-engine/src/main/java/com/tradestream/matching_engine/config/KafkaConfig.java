@@ -1,6 +1,10 @@
 // config/KafkaConfig.java
 package com.tradestream.matching_engine.config;
 
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,4 +13,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 @Configuration
 public class KafkaConfig {
     @Bean public ObjectMapper objectMapper() { return new ObjectMapper().findAndRegisterModules(); }
+
+    // Idempotent producer (acks=all): retries can't drop, duplicate or reorder trades within a partition
+    @Bean
+    DefaultKafkaProducerFactoryCustomizer tradeProducerTuning(EngineProps props) {
+        EngineProps.Producer p = props.getProducer();
+        return factory -> factory.updateConfigs(Map.of(
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.LINGER_MS_CONFIG, p.getLingerMs(),
+                ProducerConfig.BATCH_SIZE_CONFIG, p.getBatchSize(),
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, p.getCompressionType()));
+    }
 }
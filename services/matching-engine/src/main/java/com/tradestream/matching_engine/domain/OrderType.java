@@ -1,3 +1,3 @@
 // domain/OrderType.java
 package com.tradestream.matching_engine.domain;
-public enum OrderType { MARKET, LIMIT }
+public enum OrderType { MARKET, LIMIT, STOP, STOP_LIMIT }
@@ -45,7 +45,10 @@ public class RestingOrder {
     private TimeInForce timeInForce;
 
     @Column(precision=18, scale=8)
-    private BigDecimal price; // null for MARKET (but MARKET must never rest in the book)
+    private BigDecimal price; // null for MARKET and STOP (only held in the book while armed)
+
+    @Column(name="stop_price", precision=18, scale=8)
+    private BigDecimal stopPrice; // trigger for STOP / STOP_LIMIT
 
     @Column(name="original_quantity", precision=18, scale=8, nullable=false)
     private BigDecimal originalQuantity;
@@ -53,11 +56,17 @@ public class RestingOrder {
     @Column(name="remaining_quantity", precision=18, scale=8, nullable=false)
     private BigDecimal remainingQuantity;
 
+    @Column(name="display_quantity", precision=18, scale=8)
+    private BigDecimal displayQuantity; // iceberg peak; null for fully displayed orders
+
+    @Column(name="visible_quantity", precision=18, scale=8)
+    private BigDecimal visibleQuantity; // what is left of the iceberg's current slice
+
     @Column(nullable=false, length=16)
-    private String status; // ACTIVE, PARTIALLY_FILLED, FILLED, CANCELED
+    private String status; // PENDING (armed stop), ACTIVE, PARTIALLY_FILLED, FILLED, CANCELED
 
     @Column(name="created_at", nullable=false)
-    private OffsetDateTime createdAt;
+    private OffsetDateTime createdAt; // time it last joined the back of its queue; books are rebuilt in this order
 
     @UpdateTimestamp
     @Column(name="updated_at", nullable=false)
@@ -0,0 +1,30 @@
+// dto/DepthUpdate.java
+package com.tradestream.matching_engine.dto;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One market.depth message for a ticker (keyed by ticker).
+ * A snapshot replaces the consumer's book; a delta lists only changed levels, quantity 0 meaning the
+ * level is gone. {@code seq} counts messages per ticker: apply deltas with {@code seq} > the snapshot's,
+ * and on a gap wait for the next snapshot.
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class DepthUpdate {
+    private String ticker;
+    private long seq;
+    private boolean snapshot;
+    private List<Level> bids;   // best first in snapshots
+    private List<Level> asks;
+    private OffsetDateTime timestamp; // UTC
+
+    public record Level(BigDecimal price, BigDecimal quantity) { }
+}
@@ -0,0 +1,22 @@
+// dto/OrderAmendedEvent.java
+package com.tradestream.matching_engine.dto;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** The order's price and total quantity after an amend; null means unchanged. */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class OrderAmendedEvent {
+    private UUID orderId;
+    private UUID userId;
+    private String ticker;
+    private BigDecimal price;
+    private BigDecimal quantity;
+    private Instant timestamp;
+}
@@ -27,5 +27,7 @@ public class OrderPlacedEvent {
     private TimeInForce timeInForce;
     private BigDecimal price;     // null for MARKET
     private BigDecimal quantity;
+    private BigDecimal stopPrice; // trigger for STOP / STOP_LIMIT, null otherwise
+    private BigDecimal displayQuantity; // iceberg peak, null for fully displayed orders
     Instant timestamp;
 }
@@ -20,4 +20,6 @@ public class TradeExecutedEvent {
     private BigDecimal price;
     private BigDecimal quantity;
     private OffsetDateTime timestamp; // UTC
+    private UUID buyUserId;   // owners of the two orders, so consumers needn't look them up
+    private UUID sellUserId;
 }
@@ -0,0 +1,162 @@
+// journal/BookRecovery.java
+package com.tradestream.matching_engine.journal;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.tradestream.matching_engine.matching.DepthPublisher;
+import com.tradestream.matching_engine.matching.IdleBookEvictor;
+import com.tradestream.matching_engine.matching.MatchingSequencer;
+import com.tradestream.matching_engine.matching.MatchingService;
+import com.tradestream.matching_engine.metrics.BookMetrics;
+import com.tradestream.matching_engine.persistence.ProcessedMessageRepository;
+import com.tradestream.matching_engine.persistence.RestingOrderRepository;
+
+/**
+ * Warm start: rebuilds the books before any listener container starts consuming.
+ *
+ * With a snapshot on disk, loads it and replays the journal tail; a tail record is only replayed if its
+ * processed_messages row exists, i.e. its transaction committed (uncommitted ones will be redelivered by
+ * Kafka), and only its last copy if it was journaled more than once. Without one (first start, journal disabled, unreadable snapshot) it falls back to scanning
+ * resting_orders. Either way a fresh snapshot is written afterwards so the next start is short.
+ *
+ * With lazy loading there is no resting_orders scan: books not in the snapshot are hydrated on their first
+ * command, and the journal tail is only replayed into books the snapshot restored (every other ticker's
+ * committed state is already in resting_orders).
+ */
+@Component
+public class BookRecovery implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(BookRecovery.class);
+    private static final int ID_CHUNK = 1000;
+
+    private final EngineJournal journal;
+    private final BookSnapshotter snapshotter;
+    private final MatchingService matching;
+    private final MatchingSequencer sequencer;
+    private final RestingOrderRepository restingRepo;
+    private final ProcessedMessageRepository msgRepo;
+    private final DepthPublisher depth;
+    private final IdleBookEvictor evictor;
+    private final BookMetrics bookMetrics;
+    private volatile boolean running;
+
+    public BookRecovery(EngineJournal journal, BookSnapshotter snapshotter, MatchingService matching,
+                        MatchingSequencer sequencer, RestingOrderRepository restingRepo,
+                        ProcessedMessageRepository msgRepo, DepthPublisher depth, IdleBookEvictor evictor,
+                        BookMetrics bookMetrics) {
+        this.journal = journal;
+        this.snapshotter = snapshotter;
+        this.matching = matching;
+        this.sequencer = sequencer;
+        this.restingRepo = restingRepo;
+        this.msgRepo = msgRepo;
+        this.depth = depth;
+        this.evictor = evictor;
+        this.bookMetrics = bookMetrics;
+    }
+
+    @Override
+    public void start() {
+        long t0 = System.nanoTime();
+        boolean lazy = matching.isLazyLoad();
+        if (!journal.isEnabled()) {
+            if (!lazy) matching.loadActiveOrders(restingRepo.findAllActive());
+        } else {
+            var snap = snapshotter.loadLatest();
+            if (snap.isPresent()) {
+                replayFromSnapshot(snap.get(), lazy);
+            } else {
+                if (!lazy) {
+                    log.info("No usable book snapshot; rebuilding from resting_orders");
+                    matching.loadActiveOrders(restingRepo.findAllActive());
+                }
+                journal.resumeAfter(journal.read(Long.MAX_VALUE, r -> { }));
+            }
+            snapshotter.snapshot();
+            snapshotter.startSchedule();
+        }
+        depth.startSchedule(); // opens with a full snapshot of the recovered books
+        evictor.startSchedule();
+        bookMetrics.startSchedule();
+        running = true;
+        log.info("Warm start finished in {} ms", (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    private void replayFromSnapshot(BookSnapshotter.Snapshot snap, boolean lazy) {
+        matching.loadActiveOrders(snap.orders());
+        snap.lastSeqByTicker().forEach(journal::restoreLastSeq);
+
+        List<JournalRecord> tail = new ArrayList<>();
+        long last = journal.read(snap.upTo(), r -> {
+            // Records past upTo may already be in the snapshot for this ticker
+            Long applied = snap.lastSeqByTicker().get(r.command().ticker());
+            if (applied == null ? !lazy : r.seq() > applied) tail.add(r);
+        });
+
+        Set<String> committed = committedKeys(tail);
+        // A command whose transaction rolled back is journaled again when it is redelivered (or re-run after
+        // a failed record in its slice); only its last copy can be the one that committed
+        Map<String, JournalRecord> lastCopy = new HashMap<>();
+        tail.forEach(r -> lastCopy.put(key(r.topic(), r.messageId()), r));
+        Map<Integer, List<JournalRecord>> byShard = tail.stream()
+                .filter(r -> committed.contains(key(r.topic(), r.messageId())))
+                .filter(r -> lastCopy.get(key(r.topic(), r.messageId())) == r)
+                .collect(Collectors.groupingBy(r -> sequencer.shardOf(r.command().ticker())));
+        sequencer.onEachShard(shard -> byShard.getOrDefault(shard, List.of()).forEach(this::apply));
+
+        int replayed = byShard.values().stream().mapToInt(List::size).sum();
+        log.info("Replayed {} of {} journal records after snapshot {}", replayed, tail.size(), snap.upTo());
+        journal.resumeAfter(Math.max(last, snap.upTo() - 1));
+    }
+
+    private void apply(JournalRecord r) {
+        if (r.command() instanceof JournalRecord.Placed p) {
+            var arrivedAt = Instant.EPOCH.plus(p.arrivedAtMicros(), ChronoUnit.MICROS).atOffset(ZoneOffset.UTC);
+            matching.replayIncoming(p.event(), arrivedAt);
+        } else if (r.command() instanceof JournalRecord.Cancelled c) {
+            matching.replayCancel(c.orderId(), c.ticker());
+        } else if (r.command() instanceof JournalRecord.Amended a) {
+            matching.replayAmend(a.orderId(), a.ticker(), a.price(), a.quantity());
+        }
+        journal.restoreLastSeq(r.command().ticker(), r.seq());
+    }
+
+    private Set<String> committedKeys(List<JournalRecord> tail) {
+        Map<String, List<UUID>> idsByTopic = new HashMap<>();
+        tail.forEach(r -> idsByTopic.computeIfAbsent(r.topic(), t -> new ArrayList<>()).add(r.messageId()));
+        Set<String> committed = new HashSet<>();
+        idsByTopic.forEach((topic, ids) -> {
+            for (int i = 0; i < ids.size(); i += ID_CHUNK) {
+                msgRepo.findExistingMessageIds(topic, ids.subList(i, Math.min(ids.size(), i + ID_CHUNK)))
+                       .forEach(id -> committed.add(key(topic, id)));
+            }
+        });
+        return committed;
+    }
+
+    private static String key(String topic, UUID id) { return topic + "|" + id; }
+
+    @Override
+    public void stop() { running = false; }
+
+    @Override
+    public boolean isRunning() { return running; }
+
+    // After the sequencer (MAX - 1000), before the listener containers (MAX - 100)
+    @Override
+    public int getPhase() { return Integer.MAX_VALUE - 500; }
+}
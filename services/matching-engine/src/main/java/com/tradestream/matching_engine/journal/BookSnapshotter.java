@@ -0,0 +1,271 @@
+// journal/BookSnapshotter.java
+package com.tradestream.matching_engine.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.RestingOrder;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.matching.BookOrder;
+import com.tradestream.matching_engine.matching.MatchingSequencer;
+import com.tradestream.matching_engine.matching.MatchingService;
+import com.tradestream.matching_engine.matching.OrderBook;
+import com.tradestream.matching_engine.matching.TickScale;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Binary snapshots of every in-memory book.
+ *
+ * Each shard serializes the books it owns on its own thread, so a book is captured between two
+ * commands. The snapshot records {@code upTo} (every journal record below it is included) and, per
+ * ticker, the last sequence applied to that book, empty books included; recovery replays only what comes after.
+ * Once a snapshot is on disk, older snapshots and fully covered journal segments are deleted.
+ */
+@Component
+public class BookSnapshotter {
+    private static final Logger log = LoggerFactory.getLogger(BookSnapshotter.class);
+
+    private static final int MAGIC = 0x4D45534E; // "MESN"
+    private static final int VERSION = 3; // 2 added stop prices, 3 iceberg slices; older files are still read
+
+    private final EngineJournal journal;
+    private final MatchingService matching;
+    private final MatchingSequencer sequencer;
+    private final EngineProps.Journal cfg;
+
+    private ScheduledExecutorService scheduler;
+    private volatile long lastSnapshotAt;
+
+    public BookSnapshotter(EngineJournal journal, MatchingService matching, MatchingSequencer sequencer, EngineProps props) {
+        this.journal = journal;
+        this.matching = matching;
+        this.sequencer = sequencer;
+        this.cfg = props.getJournal();
+    }
+
+    /** Contents of a snapshot file: the orders in book order plus per-ticker journal positions. */
+    public record Snapshot(long upTo, Map<String, Long> lastSeqByTicker, List<RestingOrder> orders) { }
+
+    /** Starts periodic snapshots; called once recovery has finished. */
+    public synchronized void startSchedule() {
+        if (!journal.isEnabled() || scheduler != null) return;
+        lastSnapshotAt = System.nanoTime();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "book-snapshotter");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::maybeSnapshot, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stopSchedule() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void maybeSnapshot() {
+        try {
+            long pending = journal.appendedSinceSnapshot();
+            boolean due = System.nanoTime() - lastSnapshotAt >= TimeUnit.SECONDS.toNanos(cfg.getSnapshotIntervalSeconds());
+            if (pending >= cfg.getSnapshotEveryRecords() || (due && pending > 0)) snapshot();
+        } catch (RuntimeException e) {
+            log.warn("Book snapshot failed; will retry", e);
+        }
+    }
+
+    public synchronized void snapshot() {
+        long covered = journal.appendedSinceSnapshot();
+        long upTo = journal.nextSeq();
+        byte[][] parts = new byte[sequencer.shardCount()][];
+        int[] bookCounts = new int[parts.length];
+        sequencer.onEachShard(shard -> {
+            var bytes = new ByteArrayOutputStream();
+            try (var out = new DataOutputStream(bytes)) {
+                matching.forEachBook(shard, (ticker, book) -> {
+                    // Empty books too: their last sequence keeps recovery from replaying a command that emptied
+                    // one between reading upTo and this shard getting here
+                    bookCounts[shard]++;
+                    writeBook(out, ticker, journal.lastSeqFor(ticker), book);
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            parts[shard] = bytes.toByteArray();
+        });
+
+        Path dir = journal.dir();
+        Path target = dir.resolve(String.format("snapshot-%020d.bin", upTo));
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        int books = 0;
+        try {
+            Files.createDirectories(dir);
+            var crc = new CRC32();
+            try (var out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)), crc))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(upTo);
+                for (int c : bookCounts) books += c;
+                out.writeInt(books);
+                for (byte[] p : parts) out.write(p);
+                out.flush();
+                out.writeLong(crc.getValue()); // trailer, not part of the checksum
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write snapshot " + target, e);
+        }
+
+        for (long older : snapshotSeqs()) {
+            if (older < upTo) deleteQuietly(dir.resolve(String.format("snapshot-%020d.bin", older)));
+        }
+        journal.deleteBefore(upTo);
+        journal.markSnapshotted(covered);
+        lastSnapshotAt = System.nanoTime();
+        log.info("Wrote book snapshot {} ({} books)", target.getFileName(), books);
+    }
+
+    private void writeBook(DataOutputStream out, String ticker, long lastSeq, OrderBook book) {
+        try {
+            out.writeUTF(ticker);
+            out.writeLong(lastSeq);
+            out.writeInt(book.size());
+            var sc = book.scale();
+            book.forEachOrder(o -> writeOrder(out, o, sc));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeOrder(DataOutputStream out, BookOrder o, TickScale sc) {
+        try {
+            Codec.writeUuid(out, o.id());
+            Codec.writeUuid(out, o.userId());
+            Codec.writeEnum(out, o.side());
+            Codec.writeEnum(out, o.orderType());
+            Codec.writeEnum(out, o.timeInForce());
+            Codec.writeDecimal(out, o.hasLimit() ? sc.toPrice(o.price()) : null);
+            Codec.writeDecimal(out, sc.toQuantity(o.originalLots()));
+            Codec.writeDecimal(out, sc.toQuantity(o.remaining()));
+            Codec.writeString(out, o.status());
+            out.writeLong(o.createdAtMicros());
+            Codec.writeDecimal(out, o.isStop() ? sc.toPrice(o.trigger()) : null);
+            Codec.writeDecimal(out, o.peak() > 0 ? sc.toQuantity(o.peak()) : null);
+            Codec.writeDecimal(out, o.peak() > 0 ? sc.toQuantity(o.visible()) : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Reads the newest snapshot; empty if there is none or it fails its checksum. */
+    public Optional<Snapshot> loadLatest() {
+        List<Long> seqs = snapshotSeqs();
+        if (seqs.isEmpty()) return Optional.empty();
+        Path file = journal.dir().resolve(String.format("snapshot-%020d.bin", seqs.get(seqs.size() - 1)));
+        var crc = new CRC32();
+        try (var in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file)), crc))) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version < 1 || version > VERSION) {
+                log.warn("Ignoring snapshot {} with unknown format", file.getFileName());
+                return Optional.empty();
+            }
+            long upTo = in.readLong();
+            int books = in.readInt();
+            Map<String, Long> lastSeq = new HashMap<>();
+            List<RestingOrder> orders = new ArrayList<>();
+            for (int b = 0; b < books; b++) {
+                String ticker = in.readUTF();
+                lastSeq.put(ticker, in.readLong());
+                int n = in.readInt();
+                for (int i = 0; i < n; i++) orders.add(readOrder(in, ticker, version));
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                log.warn("Ignoring snapshot {} with bad checksum", file.getFileName());
+                return Optional.empty();
+            }
+            log.info("Loaded book snapshot {} ({} books, {} orders)", file.getFileName(), books, orders.size());
+            return Optional.of(new Snapshot(upTo, lastSeq, orders));
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable snapshot {}", file.getFileName(), e);
+            return Optional.empty();
+        }
+    }
+
+    private static RestingOrder readOrder(DataInputStream in, String ticker, int version) throws IOException {
+        RestingOrder ro = RestingOrder.builder()
+                .id(Codec.readUuid(in))
+                .userId(Codec.readUuid(in))
+                .ticker(ticker)
+                .side(Codec.readEnum(in, OrderSide.class))
+                .orderType(Codec.readEnum(in, OrderType.class))
+                .timeInForce(Codec.readEnum(in, TimeInForce.class))
+                .price(Codec.readDecimal(in))
+                .originalQuantity(Codec.readDecimal(in))
+                .remainingQuantity(Codec.readDecimal(in))
+                .status(Codec.readString(in))
+                .createdAt(Instant.EPOCH.plus(in.readLong(), ChronoUnit.MICROS).atOffset(ZoneOffset.UTC))
+                .build();
+        if (version >= 2) ro.setStopPrice(Codec.readDecimal(in));
+        if (version >= 3) {
+            ro.setDisplayQuantity(Codec.readDecimal(in));
+            ro.setVisibleQuantity(Codec.readDecimal(in));
+        }
+        return ro;
+    }
+
+    private List<Long> snapshotSeqs() {
+        Path dir = journal.dir();
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Long> seqs = new ArrayList<>();
+            files.map(p -> p.getFileName().toString())
+                 .filter(n -> n.startsWith("snapshot-") && n.endsWith(".bin"))
+                 .forEach(n -> seqs.add(Long.parseLong(n.substring(9, n.length() - 4))));
+            seqs.sort(null);
+            return seqs;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", p, e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+// journal/Codec.java
+package com.tradestream.matching_engine.journal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.UUID;
+
+/** Field encodings shared by the journal and snapshot files. Every reference type is nullable. */
+final class Codec {
+    private Codec() {}
+
+    static void writeUuid(DataOutput out, UUID v) throws IOException {
+        out.writeBoolean(v != null);
+        if (v == null) return;
+        out.writeLong(v.getMostSignificantBits());
+        out.writeLong(v.getLeastSignificantBits());
+    }
+
+    static UUID readUuid(DataInput in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    // NUMERIC(18,8) values always fit an unscaled long
+    static void writeDecimal(DataOutput out, BigDecimal v) throws IOException {
+        out.writeBoolean(v != null);
+        if (v == null) return;
+        out.writeInt(v.scale());
+        out.writeLong(v.unscaledValue().longValueExact());
+    }
+
+    static BigDecimal readDecimal(DataInput in) throws IOException {
+        if (!in.readBoolean()) return null;
+        int scale = in.readInt();
+        return new BigDecimal(BigInteger.valueOf(in.readLong()), scale);
+    }
+
+    static void writeString(DataOutput out, String v) throws IOException {
+        out.writeBoolean(v != null);
+        if (v != null) out.writeUTF(v);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeEnum(DataOutput out, Enum<?> v) throws IOException {
+        out.writeByte(v == null ? -1 : v.ordinal());
+    }
+
+    static <E extends Enum<E>> E readEnum(DataInput in, Class<E> type) throws IOException {
+        int ord = in.readByte();
+        return ord < 0 ? null : type.getEnumConstants()[ord];
+    }
+}
@@ -0,0 +1,311 @@
+// journal/EngineJournal.java
+package com.tradestream.matching_engine.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+
+/**
+ * Append-only, memory-mapped log of accepted commands.
+ *
+ * Segments are fixed-size files named by their first sequence number; records are
+ * {@code [int len][int crc][long seq][byte type][payload]} and a zero length marks the end of a segment.
+ * Shards append inside their DB transaction; with fsync on, the written range is forced before that
+ * transaction commits. The journal also tracks, per ticker, the last sequence applied to its book, which
+ * snapshots record so replay can skip what a snapshot already contains.
+ */
+@Component
+public class EngineJournal {
+    private static final Logger log = LoggerFactory.getLogger(EngineJournal.class);
+
+    private static final byte PLACED = 1;
+    private static final byte CANCELLED = 2;
+    private static final byte AMENDED = 3;
+    private static final int HEADER = 8; // len + crc
+
+    private final EngineProps.Journal cfg;
+    private final Path dir;
+    private final Map<String, Long> lastSeqByTicker = new ConcurrentHashMap<>();
+
+    private MappedByteBuffer segment;
+    private long nextSeq = 1;
+    private int forcedUpTo;
+    private final AtomicLong appendedSinceSnapshot = new AtomicLong();
+
+    public EngineJournal(EngineProps props) {
+        this.cfg = props.getJournal();
+        this.dir = Path.of(cfg.getDir());
+    }
+
+    public boolean isEnabled() { return cfg.isEnabled(); }
+
+    public Path dir() { return dir; }
+
+    // ---- writing ----
+
+    public void appendPlaced(String topic, UUID messageId, OrderPlacedEvent e, OffsetDateTime arrivedAt) {
+        if (!cfg.isEnabled()) return;
+        append(PLACED, e.getTicker(), out -> {
+            Codec.writeString(out, topic);
+            Codec.writeUuid(out, messageId);
+            out.writeLong(ChronoUnit.MICROS.between(Instant.EPOCH, arrivedAt.toInstant()));
+            Codec.writeUuid(out, e.getOrderId());
+            Codec.writeUuid(out, e.getUserId());
+            Codec.writeString(out, e.getTicker());
+            Codec.writeEnum(out, e.getSide());
+            Codec.writeEnum(out, e.getOrderType());
+            Codec.writeEnum(out, e.getTimeInForce());
+            Codec.writeDecimal(out, e.getPrice());
+            Codec.writeDecimal(out, e.getQuantity());
+            out.writeBoolean(e.getTimestamp() != null);
+            if (e.getTimestamp() != null) out.writeLong(ChronoUnit.MICROS.between(Instant.EPOCH, e.getTimestamp()));
+            Codec.writeDecimal(out, e.getStopPrice()); // appended fields; older records end before them
+            Codec.writeDecimal(out, e.getDisplayQuantity());
+        });
+    }
+
+    public void appendCancelled(String topic, UUID messageId, UUID orderId, String ticker) {
+        if (!cfg.isEnabled()) return;
+        append(CANCELLED, ticker, out -> {
+            Codec.writeString(out, topic);
+            Codec.writeUuid(out, messageId);
+            Codec.writeUuid(out, orderId);
+            Codec.writeString(out, ticker);
+        });
+    }
+
+    public void appendAmended(String topic, UUID messageId, UUID orderId, String ticker, BigDecimal price,
+                              BigDecimal quantity) {
+        if (!cfg.isEnabled()) return;
+        append(AMENDED, ticker, out -> {
+            Codec.writeString(out, topic);
+            Codec.writeUuid(out, messageId);
+            Codec.writeUuid(out, orderId);
+            Codec.writeString(out, ticker);
+            Codec.writeDecimal(out, price);
+            Codec.writeDecimal(out, quantity);
+        });
+    }
+
+    private interface Body { void write(DataOutputStream out) throws IOException; }
+
+    private void append(byte type, String ticker, Body body) {
+        byte[] payload;
+        try {
+            var bytes = new ByteArrayOutputStream(128);
+            var out = new DataOutputStream(bytes);
+            body.write(out);
+            out.flush();
+            payload = bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        long seq;
+        synchronized (this) {
+            int len = 8 + 1 + payload.length;
+            if (segment == null || segment.remaining() < HEADER + len + 4) roll();
+            seq = nextSeq++;
+            var crc = new CRC32();
+            var head = ByteBuffer.allocate(9).putLong(seq).put(type);
+            crc.update(head.array());
+            crc.update(payload);
+            segment.putInt(len).putInt((int) crc.getValue()).putLong(seq).put(type).put(payload);
+        }
+        lastSeqByTicker.put(ticker, seq);
+        appendedSinceSnapshot.incrementAndGet();
+        if (cfg.isFsync()) forceBeforeCommit();
+    }
+
+    private void forceBeforeCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            force();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) return; // already registered for this tx
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override public void beforeCommit(boolean readOnly) { force(); }
+            @Override public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(EngineJournal.this);
+            }
+        });
+    }
+
+    private synchronized void force() {
+        if (segment == null) return;
+        int pos = segment.position();
+        if (pos > forcedUpTo) {
+            segment.force(forcedUpTo, pos - forcedUpTo);
+            forcedUpTo = pos;
+        }
+    }
+
+    private void roll() {
+        try {
+            if (segment != null) segment.force();
+            Files.createDirectories(dir);
+            Path file = dir.resolve(segmentName(nextSeq));
+            // A same-named file can only be a segment that never got a valid record; reuse it
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                segment = ch.map(FileChannel.MapMode.READ_WRITE, 0, cfg.getSegmentSize());
+            }
+            forcedUpTo = 0;
+            log.info("Opened journal segment {}", file.getFileName());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal segment in " + dir, e);
+        }
+    }
+
+    // ---- bookkeeping used by snapshots/recovery ----
+
+    /** Sequence the next append will get; every record below it has already been appended. */
+    public synchronized long nextSeq() { return nextSeq; }
+
+    public long lastSeqFor(String ticker) { return lastSeqByTicker.getOrDefault(ticker, 0L); }
+
+    public void restoreLastSeq(String ticker, long seq) { lastSeqByTicker.put(ticker, seq); }
+
+    public long appendedSinceSnapshot() { return appendedSinceSnapshot.get(); }
+
+    public void markSnapshotted(long covered) { appendedSinceSnapshot.addAndGet(-covered); }
+
+    /** Starts appending after {@code seq} in a fresh segment (old segments are never appended to again). */
+    public synchronized void resumeAfter(long seq) {
+        nextSeq = Math.max(nextSeq, seq + 1);
+        segment = null;
+    }
+
+    /** Deletes segments that only hold records below {@code seq}. */
+    public void deleteBefore(long seq) {
+        List<Long> starts = segmentStarts();
+        for (int i = 0; i + 1 < starts.size(); i++) {
+            if (starts.get(i + 1) <= seq) {
+                try {
+                    Files.deleteIfExists(dir.resolve(segmentName(starts.get(i))));
+                } catch (IOException e) {
+                    log.warn("Could not delete journal segment {}", starts.get(i), e);
+                }
+            }
+        }
+    }
+
+    // ---- reading ----
+
+    /** Reads every intact record with {@code seq >= fromSeq}, in order; stops a segment at the first torn record. */
+    public long read(long fromSeq, Consumer<JournalRecord> sink) {
+        long last = 0;
+        List<Long> starts = segmentStarts();
+        for (int i = 0; i < starts.size(); i++) {
+            if (i + 1 < starts.size() && starts.get(i + 1) <= fromSeq) continue;
+            Path file = dir.resolve(segmentName(starts.get(i)));
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                var buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                while (buf.remaining() >= HEADER) {
+                    int len = buf.getInt();
+                    int crc = buf.getInt();
+                    if (len <= 0 || len > buf.remaining()) break;
+                    byte[] body = new byte[len];
+                    buf.get(body);
+                    var check = new CRC32();
+                    check.update(body);
+                    if ((int) check.getValue() != crc) {
+                        log.warn("Torn journal record in {} at {}, ignoring rest of segment", file.getFileName(), buf.position());
+                        break;
+                    }
+                    JournalRecord r = decode(body);
+                    last = Math.max(last, r.seq());
+                    if (r.seq() >= fromSeq) sink.accept(r);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read journal segment " + file, e);
+            }
+        }
+        return last;
+    }
+
+    private static JournalRecord decode(byte[] body) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(body));
+        long seq = in.readLong();
+        byte type = in.readByte();
+        String topic = Codec.readString(in);
+        UUID messageId = Codec.readUuid(in);
+        if (type == PLACED) {
+            long arrivedAt = in.readLong();
+            var e = OrderPlacedEvent.builder()
+                    .orderId(Codec.readUuid(in))
+                    .userId(Codec.readUuid(in))
+                    .ticker(Codec.readString(in))
+                    .side(Codec.readEnum(in, OrderSide.class))
+                    .orderType(Codec.readEnum(in, OrderType.class))
+                    .timeInForce(Codec.readEnum(in, TimeInForce.class))
+                    .price(Codec.readDecimal(in))
+                    .quantity(Codec.readDecimal(in))
+                    .build();
+            if (in.readBoolean()) e.setTimestamp(Instant.EPOCH.plus(in.readLong(), ChronoUnit.MICROS));
+            if (in.available() > 0) e.setStopPrice(Codec.readDecimal(in));
+            if (in.available() > 0) e.setDisplayQuantity(Codec.readDecimal(in));
+            return new JournalRecord(seq, topic, messageId, new JournalRecord.Placed(e, arrivedAt));
+        }
+        if (type == CANCELLED) {
+            return new JournalRecord(seq, topic, messageId,
+                    new JournalRecord.Cancelled(Codec.readUuid(in), Codec.readString(in)));
+        }
+        if (type == AMENDED) {
+            return new JournalRecord(seq, topic, messageId, new JournalRecord.Amended(Codec.readUuid(in),
+                    Codec.readString(in), Codec.readDecimal(in), Codec.readDecimal(in)));
+        }
+        throw new IOException("Unknown journal record type " + type);
+    }
+
+    private List<Long> segmentStarts() {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Long> starts = new ArrayList<>();
+            files.map(p -> p.getFileName().toString())
+                 .filter(n -> n.startsWith("journal-") && n.endsWith(".log"))
+                 .forEach(n -> starts.add(Long.parseLong(n.substring(8, n.length() - 4))));
+            starts.sort(null);
+            return starts;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String segmentName(long firstSeq) { return String.format("journal-%020d.log", firstSeq); }
+}
@@ -0,0 +1,29 @@
+// journal/JournalRecord.java
+package com.tradestream.matching_engine.journal;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+
+/**
+ * One accepted command, as appended to the journal.
+ * {@code topic}/{@code messageId} are the processed_messages key, used on recovery to tell committed
+ * commands from ones whose transaction never committed.
+ */
+public record JournalRecord(long seq, String topic, UUID messageId, Command command) {
+
+    public sealed interface Command permits Placed, Cancelled, Amended {
+        String ticker();
+    }
+
+    /** An order.placed event and the arrival time the engine stamped on it. */
+    public record Placed(OrderPlacedEvent event, long arrivedAtMicros) implements Command {
+        public String ticker() { return event.getTicker(); }
+    }
+
+    public record Cancelled(UUID orderId, String ticker) implements Command { }
+
+    /** New price and/or total quantity of a resting order; null means unchanged. */
+    public record Amended(UUID orderId, String ticker, BigDecimal price, BigDecimal quantity) implements Command { }
+}
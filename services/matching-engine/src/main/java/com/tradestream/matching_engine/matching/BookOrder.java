@@ -0,0 +1,145 @@
+// src/main/java/com/tradestream/matching_engine/matching/BookOrder.java
+package com.tradestream.matching_engine.matching;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.RestingOrder;
+import com.tradestream.matching_engine.domain.TimeInForce;
+
+/**
+ * An order as the book sees it: price in ticks, quantities in lots, creation time in epoch micros.
+ * Also the intrusive list node of its {@link PriceLevel}; belongs to at most one level at a time.
+ *
+ * A mutable slot, recycled through its book's pool ({@link OrderBook#acquire()}/{@link OrderBook#release}),
+ * so matching allocates no per-order objects of its own. The ids and ticker are the event's own instances.
+ * The JPA entity only exists at the persistence boundary: {@link #toEntity} builds it when a row is staged.
+ * Status is not stored; it follows from the quantities (and, for stops, from whether they are still armed).
+ */
+public final class BookOrder {
+    UUID id;
+    UUID userId;
+    String ticker;
+    OrderSide side;
+    OrderType type;
+    TimeInForce timeInForce;
+    long price;           // ticks; only meaningful for orders that can rest
+    long trigger;         // ticks; STOP / STOP_LIMIT only
+    boolean armed;        // a stop waiting in its book's trigger index
+    long original;        // lots
+    long remaining;       // lots
+    long peak;            // lots shown at a time; 0 unless iceberg
+    long visible;         // lots of the current iceberg slice still shown
+    long createdAtMicros;
+
+    PriceLevel level;
+    BookOrder prev;
+    BookOrder next;       // also links free slots in the pool
+
+    BookOrder() { }
+
+    BookOrder set(UUID id, UUID userId, String ticker, OrderSide side, OrderType type, TimeInForce tif,
+                  long price, long original, long remaining, long createdAtMicros) {
+        this.id = id;
+        this.userId = userId;
+        this.ticker = ticker;
+        this.side = side;
+        this.type = type;
+        this.timeInForce = tif;
+        this.price = price;
+        this.original = original;
+        this.remaining = remaining;
+        this.createdAtMicros = createdAtMicros;
+        this.trigger = 0;
+        this.armed = false;
+        this.peak = 0;
+        this.visible = 0;
+        return this;
+    }
+
+    /** Makes this an iceberg showing at most {@code peak} lots at a time, starting with a full slice. */
+    BookOrder iceberg(long peak) {
+        this.peak = peak;
+        this.visible = Math.min(peak, remaining);
+        return this;
+    }
+
+    /** Lots on display: the current slice for an iceberg, everything left otherwise. */
+    long shown() { return peak > 0 ? visible : remaining; }
+
+    /** Replaces a used-up iceberg slice with a fresh one from the reserve (no-op for other orders). */
+    void refill() {
+        if (peak > 0) visible = Math.min(peak, remaining);
+    }
+
+    /** Makes this a stop that waits in the trigger index until a trade reaches {@code trigger} ticks. */
+    BookOrder arm(long trigger) {
+        this.trigger = trigger;
+        this.armed = true;
+        return this;
+    }
+
+    /** Drops every reference so a pooled slot keeps nothing alive. */
+    void clear() {
+        id = userId = null;
+        ticker = null;
+        side = null;
+        type = null;
+        timeInForce = null;
+        level = null;
+        prev = next = null;
+    }
+
+    public UUID id() { return id; }
+    public UUID userId() { return userId; }
+    public String ticker() { return ticker; }
+    public OrderSide side() { return side; }
+    public OrderType orderType() { return type; }
+    public TimeInForce timeInForce() { return timeInForce; }
+    public long price() { return price; }
+    public long originalLots() { return original; }
+    public long remaining() { return remaining; }
+    public long peak() { return peak; }
+    public long visible() { return visible; }
+    public long createdAtMicros() { return createdAtMicros; }
+    public long trigger() { return trigger; }
+    public boolean armed() { return armed; }
+
+    /** STOP or STOP_LIMIT, armed or already triggered. */
+    public boolean isStop() { return type == OrderType.STOP || type == OrderType.STOP_LIMIT; }
+
+    /** False for MARKET and STOP, which execute against any price and never rest. */
+    public boolean hasLimit() { return type == OrderType.LIMIT || type == OrderType.STOP_LIMIT; }
+
+    /** resting_orders status implied by the quantities (CANCELED is only ever staged explicitly). */
+    public String status() {
+        if (armed) return "PENDING";
+        return remaining == 0 ? "FILLED" : remaining < original ? "PARTIALLY_FILLED" : "ACTIVE";
+    }
+
+    public RestingOrder toEntity(TickScale sc) { return toEntity(sc, status()); }
+
+    /** Materializes the row for persistence; nothing in the book refers to the result. */
+    public RestingOrder toEntity(TickScale sc, String status) {
+        return RestingOrder.builder()
+                .id(id)
+                .userId(userId)
+                .ticker(ticker)
+                .side(side)
+                .orderType(type)
+                .timeInForce(timeInForce)
+                .price(hasLimit() ? sc.toPrice(price) : null)
+                .stopPrice(isStop() ? sc.toPrice(trigger) : null)
+                .originalQuantity(sc.toQuantity(original))
+                .remainingQuantity(sc.toQuantity(remaining))
+                .displayQuantity(peak > 0 ? sc.toQuantity(peak) : null)
+                .visibleQuantity(peak > 0 ? sc.toQuantity(visible) : null)
+                .status(status)
+                .createdAt(Instant.EPOCH.plus(createdAtMicros, ChronoUnit.MICROS).atOffset(ZoneOffset.UTC))
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+// matching/DepthPublisher.java
+package com.tradestream.matching_engine.matching;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.dto.DepthUpdate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Publishes market-by-price depth to market.depth, keyed by ticker.
+ *
+ * Books mark the levels they change; every {@code intervalMs} each shard drains its books on its own
+ * thread (between two commands, so a message never shows half a match) into one delta per changed book.
+ * Changes between two drains are conflated per level, and under load the drain simply queues behind
+ * the orders, so the feed gets coarser instead of falling behind. Every {@code snapshotIntervalSeconds}
+ * each book is sent in full instead, for late joiners and anyone who missed a delta.
+ * Depth is derived state: sends are fire-and-forget, a lost message is repaired by the next snapshot.
+ */
+@Component
+public class DepthPublisher {
+    private static final Logger log = LoggerFactory.getLogger(DepthPublisher.class);
+
+    private final MatchingService matching;
+    private final MatchingSequencer sequencer;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EngineProps.Depth cfg;
+    private final String topic;
+    private final Map<String, Long> seqByTicker = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private long lastSnapshotAt;
+
+    public DepthPublisher(MatchingService matching, MatchingSequencer sequencer,
+                          KafkaTemplate<String, Object> kafkaTemplate, EngineProps props) {
+        this.matching = matching;
+        this.sequencer = sequencer;
+        this.kafkaTemplate = kafkaTemplate;
+        this.cfg = props.getDepth();
+        this.topic = props.getTopics().getMarketDepth();
+        if (cfg.isEnabled()) matching.enableDepthTracking();
+    }
+
+    /** Starts the feed, beginning with a snapshot of every book; called once recovery has finished. */
+    public synchronized void startSchedule() {
+        if (!cfg.isEnabled() || scheduler != null) return;
+        lastSnapshotAt = System.nanoTime() - TimeUnit.SECONDS.toNanos(cfg.getSnapshotIntervalSeconds());
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "depth-publisher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, 0, cfg.getIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stopSchedule() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void tick() {
+        try {
+            long now = System.nanoTime();
+            boolean snapshot = now - lastSnapshotAt >= TimeUnit.SECONDS.toNanos(cfg.getSnapshotIntervalSeconds());
+            if (snapshot) lastSnapshotAt = now;
+
+            List<CompletableFuture<List<DepthUpdate>>> shards = new ArrayList<>(sequencer.shardCount());
+            for (int i = 0; i < sequencer.shardCount(); i++) {
+                final int shard = i;
+                shards.add(sequencer.submitToShard(shard, () -> collect(shard, snapshot)));
+            }
+            int sent = 0;
+            for (var f : shards) {
+                for (DepthUpdate u : MatchingSequencer.await(f)) {
+                    kafkaTemplate.send(topic, u.getTicker(), u).whenComplete((r, ex) -> {
+                        if (ex != null) log.warn("Depth update for {} (seq {}) not sent: {}", u.getTicker(), u.getSeq(), ex.toString());
+                    });
+                    sent++;
+                }
+            }
+            if (sent > 0) log.debug("Published {} depth {}", sent, snapshot ? "snapshots" : "deltas");
+        } catch (RuntimeException e) {
+            log.warn("Depth publication failed; will retry", e);
+        }
+    }
+
+    /** Runs on the shard's thread: the only place its books may be read. */
+    private List<DepthUpdate> collect(int shard, boolean snapshot) {
+        List<DepthUpdate> out = new ArrayList<>();
+        OffsetDateTime ts = OffsetDateTime.now(ZoneOffset.UTC);
+        matching.forEachBook(shard, (ticker, book) -> {
+            if (!snapshot && !book.hasDepthChanges()) return;
+            TickScale sc = book.scale();
+            List<DepthUpdate.Level> bids = new ArrayList<>();
+            List<DepthUpdate.Level> asks = new ArrayList<>();
+            if (snapshot) {
+                // Supersedes whatever changed since the last delta
+                book.drainDepthChanges(OrderSide.BUY, (p, q) -> { });
+                book.drainDepthChanges(OrderSide.SELL, (p, q) -> { });
+                book.forEachLevel(OrderSide.BUY, cfg.getSnapshotLevels(), (p, q) -> bids.add(level(sc, p, q)));
+                book.forEachLevel(OrderSide.SELL, cfg.getSnapshotLevels(), (p, q) -> asks.add(level(sc, p, q)));
+            } else {
+                book.drainDepthChanges(OrderSide.BUY, (p, q) -> bids.add(level(sc, p, q)));
+                book.drainDepthChanges(OrderSide.SELL, (p, q) -> asks.add(level(sc, p, q)));
+            }
+            out.add(DepthUpdate.builder()
+                    .ticker(ticker)
+                    .seq(seqByTicker.merge(ticker, 1L, Long::sum))
+                    .snapshot(snapshot)
+                    .bids(bids)
+                    .asks(asks)
+                    .timestamp(ts)
+                    .build());
+        });
+        return out;
+    }
+
+    private static DepthUpdate.Level level(TickScale sc, long ticks, long lots) {
+        return new DepthUpdate.Level(sc.toPrice(ticks), sc.toQuantity(lots));
+    }
+}
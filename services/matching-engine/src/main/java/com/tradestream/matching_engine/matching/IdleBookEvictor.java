@@ -0,0 +1,65 @@
+// matching/IdleBookEvictor.java
+package com.tradestream.matching_engine.matching;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.tradestream.matching_engine.config.EngineProps;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Drops books that have been idle for {@code tradestream.books.idleTtlSeconds} (lazy loading only).
+ * Each shard evicts its own books as a task in its queue, i.e. between two transactions, so an evicted
+ * book has nothing left to persist: resting_orders already holds it and the next command re-hydrates it.
+ */
+@Component
+public class IdleBookEvictor {
+    private static final Logger log = LoggerFactory.getLogger(IdleBookEvictor.class);
+
+    private final MatchingService matching;
+    private final MatchingSequencer sequencer;
+    private final EngineProps.Books cfg;
+
+    private ScheduledExecutorService scheduler;
+
+    public IdleBookEvictor(MatchingService matching, MatchingSequencer sequencer, EngineProps props) {
+        this.matching = matching;
+        this.sequencer = sequencer;
+        this.cfg = props.getBooks();
+    }
+
+    /** Starts periodic eviction; called once recovery has finished. */
+    public synchronized void startSchedule() {
+        if (!cfg.isLazyLoad() || cfg.getIdleTtlSeconds() <= 0 || scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "book-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long every = Math.max(1, cfg.getEvictCheckSeconds());
+        scheduler.scheduleWithFixedDelay(this::evict, every, every, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stopSchedule() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void evict() {
+        try {
+            long idle = TimeUnit.SECONDS.toNanos(cfg.getIdleTtlSeconds());
+            var evicted = new AtomicInteger();
+            sequencer.onEachShard(shard -> evicted.addAndGet(matching.evictIdle(shard, idle)));
+            if (evicted.get() > 0) log.info("Evicted {} idle book(s)", evicted.get());
+        } catch (RuntimeException e) {
+            log.warn("Idle book eviction failed; will retry", e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+// src/main/java/com/tradestream/matching_engine/matching/MatchingSequencer.java
+package com.tradestream.matching_engine.matching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.tradestream.matching_engine.config.EngineProps;
+
+/**
+ * Single-writer thread model for the books.
+ * Every ticker hashes to one shard; a shard is one thread draining a bounded queue, so a book is
+ * only ever touched by its owning thread and needs no locks. Kafka listener threads hand work over
+ * and block until it is done (or block on a full queue, which is the backpressure).
+ * Starts before and stops after the listener containers.
+ */
+@Component
+public class MatchingSequencer implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(MatchingSequencer.class);
+
+    private final Shard[] shards;
+    private volatile boolean running;
+
+    public MatchingSequencer(EngineProps props) {
+        var cfg = props.getSequencer();
+        if (cfg.getShards() < 1 || cfg.getRingBufferSize() < 1) {
+            throw new IllegalArgumentException("sequencer shards and ringBufferSize must be >= 1");
+        }
+        this.shards = new Shard[cfg.getShards()];
+        for (int i = 0; i < shards.length; i++) shards[i] = new Shard(i, cfg.getRingBufferSize());
+    }
+
+    public int shardCount() { return shards.length; }
+
+    public int shardOf(String ticker) { return Math.floorMod(ticker.hashCode(), shards.length); }
+
+    /** Runs {@code task} on the ticker's shard; the returned future completes on that thread. */
+    public <T> CompletableFuture<T> submit(String ticker, Supplier<T> task) {
+        return submitToShard(shardOf(ticker), task);
+    }
+
+    public <T> CompletableFuture<T> submitToShard(int shard, Supplier<T> task) {
+        var f = new CompletableFuture<T>();
+        try {
+            shards[shard].ring.put(() -> {
+                try {
+                    f.complete(task.get());
+                } catch (Throwable t) {
+                    f.completeExceptionally(t);
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            f.completeExceptionally(e);
+        }
+        return f;
+    }
+
+    /** Runs {@code task} on the ticker's shard and waits; exceptions surface unwrapped to the caller. */
+    public <T> T call(String ticker, Supplier<T> task) {
+        return await(submit(ticker, task));
+    }
+
+    /** Runs {@code task} once on every shard (each sees only its own tickers) and waits for all. */
+    public void onEachShard(IntConsumer task) {
+        List<CompletableFuture<Void>> all = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            final int shard = i;
+            all.add(submitToShard(i, () -> { task.accept(shard); return null; }));
+        }
+        all.forEach(MatchingSequencer::await);
+    }
+
+    public static <T> T await(CompletableFuture<T> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
+    }
+
+    @Override
+    public void start() {
+        for (Shard s : shards) s.thread.start();
+        running = true;
+        log.info("Matching sequencer started with {} shards", shards.length);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Shard s : shards) s.stopping = true;
+        for (Shard s : shards) {
+            try {
+                s.thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() { return running; }
+
+    // Listener containers use DEFAULT_PHASE - 100; start earlier and stop later than they do
+    @Override
+    public int getPhase() { return Integer.MAX_VALUE - 1000; }
+
+    private static final class Shard implements Runnable {
+        final BlockingQueue<Runnable> ring;
+        final Thread thread;
+        volatile boolean stopping;
+
+        Shard(int id, int capacity) {
+            this.ring = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this, "matching-shard-" + id);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            // Drain whatever is queued before exiting so no accepted work is dropped
+            while (!stopping || !ring.isEmpty()) {
+                try {
+                    Runnable r = ring.poll(100, TimeUnit.MILLISECONDS);
+                    if (r != null) r.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -2,25 +2,34 @@
 package com.tradestream.matching_engine.matching;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.tradestream.matching_engine.config.EngineProps;
 import com.tradestream.matching_engine.domain.OrderSide;
-import com.tradestream.matching_engine.domain.OrderType;
 import com.tradestream.matching_engine.domain.RestingOrder;
 import com.tradestream.matching_engine.domain.TimeInForce;
 import com.tradestream.matching_engine.dto.OrderPlacedEvent;
 import com.tradestream.matching_engine.dto.TradeExecutedEvent;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
 import com.tradestream.matching_engine.persistence.RestingOrderRepository;
+import com.tradestream.matching_engine.persistence.RestingOrderWriter;
 
 import lombok.RequiredArgsConstructor;
 
@@ -30,153 +39,429 @@ public class MatchingService {
     private static final Logger log = LoggerFactory.getLogger(MatchingService.class);
 
     private final RestingOrderRepository restingRepo;
+    private final RestingOrderWriter writer;
     private final TradePublisher tradePublisher;
+    private final TickScales scales;
+    private final MatchingSequencer sequencer;
+    private final EngineProps props;
+    private final EngineMetrics metrics;
 
-    // ticker -> order book (in-memory)
+    // ticker -> order book (in-memory); each book is only touched by its ticker's sequencer shard
     private final Map<String, OrderBook> books = new ConcurrentHashMap<>();
+    // Tickers whose book was dropped because a transaction that changed it rolled back; rebuilt from
+    // resting_orders before anything reads them again, lazy loading or not
+    private final Set<String> stale = ConcurrentHashMap.newKeySet();
+    private volatile boolean trackDepth;
+
+    /** True when books are hydrated per ticker on first use rather than all at boot. */
+    public boolean isLazyLoad() { return props.getBooks().isLazyLoad(); }
+
+    /**
+     * The ticker's book, created on first use. Live commands on a lazily loaded ticker hydrate it from
+     * resting_orders first, as does any book dropped by a rollback; journal replay never does (it only touches
+     * books restored from a snapshot). Live commands also enlist the book in the current transaction, see
+     * {@link #enlist}. Runs on the ticker's shard, so nothing else can be creating the same book.
+     */
+    private OrderBook book(String ticker, boolean live) {
+        OrderBook book = books.get(ticker);
+        if (book == null) {
+            book = new OrderBook(scales.forTicker(ticker), trackDepth);
+            if (stale.remove(ticker) || live && isLazyLoad()) hydrate(ticker, book);
+            books.put(ticker, book);
+        }
+        if (live) enlist(ticker);
+        book.touch(System.nanoTime());
+        return book;
+    }
+
+    /**
+     * Books change as the match runs, long before the transaction that persists it commits. The tickers a
+     * transaction touched are remembered, and if it doesn't commit (a failed record, a failed trade send, a
+     * failed flush) their books are dropped and rebuilt from resting_orders, so memory never keeps fills,
+     * rests or cancels the database rolled back.
+     */
+    private void enlist(String ticker) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        Enlisted e = (Enlisted) TransactionSynchronizationManager.getResource(this);
+        if (e == null) {
+            e = new Enlisted();
+            TransactionSynchronizationManager.bindResource(this, e);
+            TransactionSynchronizationManager.registerSynchronization(e);
+        }
+        e.tickers.add(ticker);
+    }
+
+    /** Tickers whose books the current transaction changed, bound as a transaction resource. */
+    private final class Enlisted implements TransactionSynchronization {
+        final Set<String> tickers = new HashSet<>();
+
+        // Runs on the shard thread that ran the transaction, before its next command
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(MatchingService.this);
+            if (status == STATUS_COMMITTED) return;
+            for (String ticker : tickers) {
+                books.remove(ticker);
+                stale.add(ticker);
+            }
+            log.warn("Transaction did not commit; dropped book(s) {} to rebuild from resting_orders", tickers);
+        }
+    }
+
+    private void hydrate(String ticker, OrderBook book) {
+        List<RestingOrder> rows = restingRepo.findActiveByTicker(ticker);
+        for (RestingOrder ro : rows) book.add(fromRow(book, ro));
+        log.info("Hydrated book for {} with {} resting orders", ticker, rows.size());
+    }
+
+    /**
+     * Drops this shard's books that saw no command for {@code idleNanos}; must run on that shard's thread,
+     * between transactions, so everything the books hold is already committed to resting_orders and the
+     * next command re-hydrates them from there. Returns the number evicted.
+     */
+    public int evictIdle(int shard, long idleNanos) {
+        if (!isLazyLoad()) return 0; // an eager book that isn't in memory would read as empty
+        long now = System.nanoTime();
+        int[] evicted = {0};
+        books.entrySet().removeIf(e -> {
+            boolean idle = sequencer.shardOf(e.getKey()) == shard && now - e.getValue().lastUsed() > idleNanos;
+            if (idle) evicted[0]++;
+            return idle;
+        });
+        return evicted[0];
+    }
+
+    /** Books created from now on record level changes for the depth feed; call before any book exists. */
+    public void enableDepthTracking() { trackDepth = true; }
 
     public void loadActiveOrders(List<RestingOrder> active) {
         log.info("Loading {} active orders into in-memory books", active.size());
-        active.forEach(ro -> {
-            books.computeIfAbsent(ro.getTicker(), t -> new OrderBook()).add(ro);
+        // Hydrate on the owning shards so the single-writer rule holds from the start
+        Map<Integer, List<RestingOrder>> byShard = active.stream()
+                .collect(Collectors.groupingBy(ro -> sequencer.shardOf(ro.getTicker())));
+        sequencer.onEachShard(shard -> byShard.getOrDefault(shard, List.of()).forEach(ro -> {
+            OrderBook book = book(ro.getTicker(), false);
+            book.add(fromRow(book, ro));
             log.debug("Loaded order {} into book for {}", ro.getId(), ro.getTicker());
+        }));
+    }
+
+    /** Visits the books owned by {@code shard}; must run on that shard's thread. */
+    public void forEachBook(int shard, BiConsumer<String, OrderBook> visitor) {
+        // Rebuild books dropped by a rollback first, so snapshots and depth never miss one
+        for (String ticker : stale) {
+            if (sequencer.shardOf(ticker) == shard) book(ticker, false);
+        }
+        books.forEach((ticker, book) -> {
+            if (sequencer.shardOf(ticker) == shard) visitor.accept(ticker, book);
         });
     }
 
+    /** Ticker of a persisted resting order, for routing cancels that arrive without one. */
+    public Optional<String> tickerOf(UUID orderId) {
+        return restingRepo.findById(orderId).map(RestingOrder::getTicker);
+    }
+
+    /** Journal replay of a cancel: book only, the DB already reflects it. */
+    public void replayCancel(UUID orderId, String ticker) {
+        OrderBook book = ticker != null ? books.get(ticker) : null;
+        BookOrder o = book != null ? book.remove(orderId) : null;
+        if (o != null) book.release(o);
+    }
+
+    /** Journal replay of an order: same matching, but no trades published and nothing persisted. */
+    public void replayIncoming(OrderPlacedEvent evt, OffsetDateTime arrivedAt) {
+        match(evt, arrivedAt, false);
+    }
+
+    /** Journal replay of an amend: book only, the DB already reflects it. */
+    public void replayAmend(UUID orderId, String ticker, BigDecimal price, BigDecimal quantity) {
+        OrderBook book = ticker != null ? books.get(ticker) : null;
+        if (book != null) amend(book, orderId, price, quantity, false);
+    }
+
+    /** Applies an order.amended event; {@code price}/{@code quantity} null = unchanged, quantity is the new total. */
+    @Transactional
+    public void amend(UUID orderId, String ticker, BigDecimal price, BigDecimal quantity) {
+        log.debug("Received amend for orderId={} price={} qty={}", orderId, price, quantity);
+        if (ticker == null || ticker.isEmpty()) {
+            log.warn("Amend for orderId={} without a ticker, ignoring", orderId);
+            return;
+        }
+        amend(book(ticker, true), orderId, price, quantity, true);
+    }
+
+    /**
+     * In-place replace. Less quantity at the same price keeps the order's place in its queue; a new price or
+     * more quantity re-enters it like a new arrival (back of the queue with a new created_at, and matching
+     * first if it now crosses).
+     * A new total at or below what already traded ends the order as FILLED.
+     */
+    private void amend(OrderBook book, UUID orderId, BigDecimal newPrice, BigDecimal newQuantity, boolean live) {
+        BookOrder o = book.get(orderId);
+        if (o == null) {
+            log.info("Amend for orderId={} ignored: not working in the book (filled, canceled or unknown)", orderId);
+            return;
+        }
+        TickScale sc = book.scale();
+        long price = newPrice != null && o.hasLimit() ? sc.toTicks(newPrice) : o.price;
+        long original = newQuantity != null ? sc.toLots(newQuantity) : o.original;
+        long remaining = original - (o.original - o.remaining);
+
+        if (remaining <= 0) {
+            book.remove(orderId);
+            o.original = o.original - o.remaining;
+            o.remaining = 0;
+            o.armed = false;
+            if (live) writer.stage(o.toEntity(sc));
+            book.release(o);
+            log.info("Amend of {} left nothing to trade; order closed as filled", orderId);
+            return;
+        }
+
+        if (price == o.price && remaining <= o.remaining && !o.armed) {
+            o.original = original;
+            book.reduce(o, remaining);
+            if (live) writer.stage(o.toEntity(sc));
+            log.debug("Amended {} in place: remaining lots {}", orderId, remaining);
+            return;
+        }
+
+        book.remove(orderId);
+        o.price = price;
+        o.original = original;
+        o.remaining = remaining;
+        o.refill();
+        // A new arrival as far as priority goes; replay has no clock, so it just goes after the newest order
+        o.createdAtMicros = book.nextArrival(live ? epochMicros(OffsetDateTime.now()) : o.createdAtMicros);
+        if (o.armed) {
+            // Not in the market yet: only its trigger queue position changes
+            if (live) writer.stage(o.toEntity(sc));
+            book.add(o);
+            return;
+        }
+        log.debug("Amended {} to priceTicks={} remaining lots {}; re-entering the book", orderId, price, remaining);
+        book.resetTradeRange();
+        execute(book, o, live, true);
+        fireStops(book, live);
+    }
+
     @Transactional
-    public void cancel(UUID orderId) {
-        log.info("Received cancel for orderId={}", orderId);
-        restingRepo.findById(orderId).ifPresentOrElse(ro -> {
-            ro.setStatus("CANCELED");
-            restingRepo.save(ro);
-            books.computeIfAbsent(ro.getTicker(), t -> new OrderBook()).remove(ro);
-            boolean removed = true;
-            log.info("Cancel applied: id={} ticker={} removedFromBook={}", orderId, ro.getTicker(), removed);
-        }, () -> log.warn("Cancel requested for unknown orderId={}", orderId));
+    public void cancel(UUID orderId, String ticker) {
+        log.debug("Received cancel for orderId={}", orderId);
+        OrderBook book = ticker != null ? books.get(ticker) : null;
+        if (book != null) {
+            enlist(ticker);
+            book.touch(System.nanoTime());
+        }
+        // A ticker that isn't in memory (lazy, not yet hydrated or evicted) only needs its row updated
+        BookOrder o = book != null ? book.remove(orderId) : null;
+        if (o != null) {
+            writer.stage(o.toEntity(book.scale(), "CANCELED"));
+            book.release(o);
+            log.debug("Cancel applied: id={} ticker={} removedFromBook=true", orderId, ticker);
+            return;
+        }
+        // Not resting in memory (e.g. already filled): still record the cancel on the row, if there is one
+        if (restingRepo.updateStatus(orderId, "CANCELED") > 0) {
+            log.debug("Cancel applied: id={} ticker={} removedFromBook=false", orderId, ticker);
+        } else {
+            log.warn("Cancel requested for unknown orderId={}", orderId);
+        }
     }
 
     @Transactional
     public boolean handleIncoming(OrderPlacedEvent evt) {
-        log.info("Handling incoming order: {}", evt);
-        RestingOrder incoming = toResting(evt);
-        OrderBook book = books.computeIfAbsent(incoming.getTicker(), t -> new OrderBook());
+        return handleIncoming(evt, OffsetDateTime.now());
+    }
+
+    /**
+     * {@code arrivedAt} becomes the resting order's created_at (nudged a micro past the book's newest arrival
+     * if it isn't already later); the journal records the unnudged value.
+     */
+    @Transactional
+    public boolean handleIncoming(OrderPlacedEvent evt, OffsetDateTime arrivedAt) {
+        return match(evt, arrivedAt, true);
+    }
+
+    private boolean match(OrderPlacedEvent evt, OffsetDateTime arrivedAt, boolean live) {
+        long t0 = System.nanoTime();
+        log.debug("Handling incoming order: {}", evt);
+        OrderBook book = book(evt.getTicker(), live);
+        if (book.contains(evt.getOrderId())) {
+            // A redelivery under a new message id; matching it again would trade the same quantity twice
+            throw new IllegalStateException("Order " + evt.getOrderId() + " is already working in the "
+                    + evt.getTicker() + " book");
+        }
+        TickScale sc = book.scale();
+        // MARKET and STOP orders carry no price; they match against any opposite liquidity
+        long limit = evt.getPrice() != null ? sc.toTicks(evt.getPrice()) : OrderBook.marketLimit(evt.getSide());
+        long lots = sc.toLots(evt.getQuantity());
+        long arrival = book.nextArrival(epochMicros(arrivedAt));
+        BookOrder incoming = book.acquire().set(evt.getOrderId(), evt.getUserId(), sc.ticker(), evt.getSide(),
+                evt.getOrderType(), evt.getTimeInForce(), limit, lots, lots, arrival);
+        // Only orders that can rest can hide quantity; a display of the full size is a plain order
+        if (evt.getDisplayQuantity() != null && incoming.hasLimit()) {
+            long peak = sc.toLots(evt.getDisplayQuantity());
+            if (peak > 0 && peak < lots) incoming.iceberg(peak);
+        }
+
+        if (incoming.isStop()) {
+            if (evt.getStopPrice() == null || (incoming.hasLimit() && evt.getPrice() == null)) {
+                book.release(incoming);
+                throw new IllegalArgumentException(evt.getOrderType() + " order " + evt.getOrderId()
+                        + " is missing its stopPrice or limit price");
+            }
+            // Stops only react to trades printed after they arrive
+            incoming.arm(sc.toTicks(evt.getStopPrice()));
+            if (live) writer.stage(incoming.toEntity(sc));
+            book.add(incoming);
+            log.debug("Armed {} order {} at trigger {}", incoming.type, incoming.id, evt.getStopPrice());
+            return false;
+        }
+
+        book.resetTradeRange();
+        boolean filled = execute(book, incoming, live, false);
+        int fills = book.tradeCount();
+        fireStops(book, live);
+        if (live) metrics.match(System.nanoTime() - t0, fills);
+        return filled;
+    }
+
+    /** Runs the stops crossed by the trades noted on {@code book}, and by the trades of the stops they set off. */
+    private void fireStops(OrderBook book, boolean live) {
+        for (BookOrder stop; (stop = book.pollTriggeredStop()) != null; ) {
+            log.debug("Triggered {} order {} at trigger {}", stop.type, stop.id, book.scale().toPrice(stop.trigger));
+            stop.createdAtMicros = book.nextArrival(stop.createdAtMicros); // enters the market now, not when armed
+            execute(book, stop, live, true);
+        }
+    }
+
+    /**
+     * Matches {@code incoming} against the opposite side, then rests it or drops what is left of it.
+     * An order that already has a resting_orders row ({@code existing}: a triggered stop, an amended order)
+     * always has its outcome staged; one straight off the topic only gets a row if it rests.
+     * Returns true if it fully filled.
+     */
+    private boolean execute(OrderBook book, BookOrder incoming, boolean live, boolean existing) {
+        TickScale sc = book.scale();
+        long limit = incoming.price;
+        OrderSide side = incoming.side();
+        boolean hasRow = live && existing;
 
         // FOK pre-check
-        if (incoming.getTimeInForce() == TimeInForce.FOK && !canFullyFill(incoming, book)) {
-            log.info("Rejecting FOK order {} - cannot fully fill", incoming.getId());
+        if (incoming.timeInForce == TimeInForce.FOK && !book.canFill(limit, side, incoming.remaining)) {
+            log.debug("Rejecting FOK order {} - cannot fully fill", incoming.id);
+            if (hasRow) writer.stage(incoming.toEntity(sc, "CANCELED"));
+            book.release(incoming);
             return false;
         }
 
-        // Matching loop
-        while (incoming.getRemainingQuantity().compareTo(BigDecimal.ZERO) > 0 &&
-               book.isCrossed(incoming.getPrice(), incoming.getSide())) {
-            RestingOrder top = book.pollOpp(incoming.getSide());
+        // Matching loop (ticks/lots only; BigDecimal is built for the trade event and the DB row)
+        while (incoming.remaining > 0 && book.isCrossed(limit, side)) {
+            BookOrder top = book.pollOpp(side);
             if (top == null) break;
 
-            BigDecimal tradeQty = incoming.getRemainingQuantity().min(top.getRemainingQuantity());
-            BigDecimal tradePrice = top.getPrice() != null ? top.getPrice() : incoming.getPrice();
+            long tradeQty = Math.min(incoming.remaining, top.shown()); // an iceberg trades one slice at a time
+            long tradePrice = top.price; // resting orders always carry a price
 
-            log.info("Match found: incoming={} resting={} qty={} price={}",
-                    incoming.getId(), top.getId(), tradeQty, tradePrice);
+            log.debug("Match found: incoming={} resting={} qtyLots={} priceTicks={}",
+                    incoming.id, top.id, tradeQty, tradePrice);
 
-            publishTrade(incoming, top, tradeQty, tradePrice);
+            if (live) publishTrade(incoming, top, sc.toQuantity(tradeQty), sc.toPrice(tradePrice));
+            book.noteTrade(tradePrice);
 
-            top.setRemainingQuantity(top.getRemainingQuantity().subtract(tradeQty));
-            top.setStatus(top.getRemainingQuantity().signum() == 0 ? "FILLED" : "PARTIALLY_FILLED");
-            restingRepo.save(top);
-            if (top.getRemainingQuantity().signum() > 0) {
-                book.requeueOpp(top);
-                log.debug("Re-queued partially filled order {}", top.getId());
+            top.remaining -= tradeQty;
+            if (top.peak > 0) top.visible -= tradeQty;
+            if (top.remaining > 0) {
+                book.requeueOpp(top); // also shows an iceberg's next slice
+                log.debug("Re-queued partially filled order {}", top.id);
+                if (live) writer.stage(top.toEntity(sc)); // after the refill, so the row carries the new slice
+            } else {
+                if (live) writer.stage(top.toEntity(sc));
+                book.release(top);
             }
 
-            incoming.setRemainingQuantity(incoming.getRemainingQuantity().subtract(tradeQty));
+            incoming.remaining -= tradeQty;
         }
 
         // Post-match persistence
-        if (incoming.getRemainingQuantity().signum() == 0) {
-            log.info("Order {} fully filled", incoming.getId());
+        if (incoming.remaining == 0) {
+            log.debug("Order {} fully filled", incoming.id);
+            if (hasRow) writer.stage(incoming.toEntity(sc));
+            book.release(incoming);
             return true;
         }
 
-        if (incoming.getTimeInForce() == TimeInForce.IOC) {
-            log.info("Order {} IOC - unfilled qty canceled", incoming.getId());
+        if (incoming.timeInForce == TimeInForce.IOC) {
+            log.debug("Order {} IOC - unfilled qty canceled", incoming.id);
+            if (hasRow) writer.stage(incoming.toEntity(sc, "CANCELED"));
+            book.release(incoming);
             return false;
         }
 
-        if (incoming.getOrderType() == OrderType.MARKET) {
-            log.info("Order {} MARKET - remainder canceled", incoming.getId());
+        if (!incoming.hasLimit()) {
+            log.debug("Order {} {} - remainder canceled", incoming.id, incoming.type);
+            if (hasRow) writer.stage(incoming.toEntity(sc, "CANCELED"));
+            book.release(incoming);
             return false;
         }
 
-        if (incoming.getPrice() == null) {
-            throw new IllegalStateException("LIMIT order must have price to rest");
-        }
-
-        incoming.setStatus(incoming.getRemainingQuantity().compareTo(incoming.getOriginalQuantity()) < 0
-                ? "PARTIALLY_FILLED" : "ACTIVE");
-        restingRepo.save(incoming);
+        incoming.refill(); // an iceberg that traded on arrival shows at most what it has left
+        if (live) writer.stage(incoming.toEntity(sc));
         book.add(incoming);
-        log.info("Rested order {} with status {} and remaining qty {}",
-                incoming.getId(), incoming.getStatus(), incoming.getRemainingQuantity());
+        log.debug("Rested order {} with status {} and remaining lots {}",
+                incoming.id, incoming.status(), incoming.remaining);
         return false;
     }
 
-    private void publishTrade(RestingOrder a, RestingOrder b, BigDecimal qty, BigDecimal price) {
-        boolean aIsBuy = a.getSide() == OrderSide.BUY;
-        UUID buyId = aIsBuy ? a.getId() : b.getId();
-        UUID sellId = aIsBuy ? b.getId() : a.getId();
+    /** {@code a} is the aggressor, {@code b} the resting order; called before either one's remaining drops. */
+    private void publishTrade(BookOrder a, BookOrder b, BigDecimal qty, BigDecimal price) {
+        boolean aIsBuy = a.side() == OrderSide.BUY;
+        BookOrder buyer = aIsBuy ? a : b;
+        BookOrder seller = aIsBuy ? b : a;
+        String ticker = a.ticker;
 
         TradeExecutedEvent trade = TradeExecutedEvent.builder()
-                .tradeId(UUID.randomUUID())
-                .buyOrderId(buyId)
-                .sellOrderId(sellId)
-                .ticker(a.getTicker())
+                .tradeId(tradeId(a, b))
+                .buyOrderId(buyer.id)
+                .sellOrderId(seller.id)
+                .ticker(ticker)
                 .price(price)
                 .quantity(qty)
                 .timestamp(OffsetDateTime.now().withNano(0))
+                .buyUserId(buyer.userId)
+                .sellUserId(seller.userId)
                 .build();
 
-        tradePublisher.publish(trade, a.getTicker()); // key by ticker for downstream partitioning
+        tradePublisher.publish(trade, ticker); // key by ticker for downstream partitioning
     }
 
-    private boolean crosses(BigDecimal incomingPrice, OrderSide side, BigDecimal restingPrice) {
-        if (incomingPrice == null) return true; // MARKET crosses if opposite exists
-        return side == OrderSide.BUY
-                ? incomingPrice.compareTo(restingPrice) >= 0
-                : incomingPrice.compareTo(restingPrice) <= 0;
+    /**
+     * Derived from the fill rather than random: the aggressor, the resting order and how many lots the
+     * aggressor had filled before this trade (which only ever grows, so it tells its fills apart). A command
+     * matched again after a rollback republishes any trade that did reach the topic under the same id, and
+     * consumers drop it as a repeat.
+     */
+    private static UUID tradeId(BookOrder aggressor, BookOrder resting) {
+        String key = aggressor.id + "|" + resting.id + "|" + (aggressor.original - aggressor.remaining);
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
     }
 
-    /** True if the entire incoming quantity can be filled immediately at acceptable prices. */
-    private boolean canFullyFill(RestingOrder incoming, OrderBook book) {
-        BigDecimal need = incoming.getRemainingQuantity();
-        BigDecimal have = BigDecimal.ZERO;
-
-        var snapshot = new ArrayList<>(book.opp(incoming.getSide()));
-        snapshot.sort(book.opp(incoming.getSide()).comparator()); // best-first
-
-        for (RestingOrder ro : snapshot) {
-            BigDecimal rp = ro.getPrice(); // non-null in book
-            if (!crosses(incoming.getPrice(), incoming.getSide(), rp)) break;
-            have = have.add(ro.getRemainingQuantity());
-            if (have.compareTo(need) >= 0) return true;
+    private static BookOrder fromRow(OrderBook book, RestingOrder ro) {
+        TickScale sc = book.scale();
+        long price = ro.getPrice() != null ? sc.toTicks(ro.getPrice()) : OrderBook.marketLimit(ro.getSide());
+        BookOrder o = book.acquire().set(ro.getId(), ro.getUserId(), sc.ticker(), ro.getSide(), ro.getOrderType(),
+                ro.getTimeInForce(), price, sc.toLots(ro.getOriginalQuantity()),
+                sc.toLots(ro.getRemainingQuantity()), epochMicros(ro.getCreatedAt()));
+        if (ro.getDisplayQuantity() != null) {
+            o.iceberg(sc.toLots(ro.getDisplayQuantity()));
+            if (ro.getVisibleQuantity() != null) o.visible = sc.toLots(ro.getVisibleQuantity());
         }
-        return false;
+        return "PENDING".equals(ro.getStatus()) ? o.arm(sc.toTicks(ro.getStopPrice())) : o;
     }
 
-    private RestingOrder toResting(OrderPlacedEvent e) {
-        OffsetDateTime now = OffsetDateTime.now();
-        return RestingOrder.builder()
-                .id(e.getOrderId())
-                .userId(e.getUserId())
-                .ticker(e.getTicker())
-                .side(e.getSide())
-                .orderType(e.getOrderType())
-                .timeInForce(e.getTimeInForce())
-                .price(e.getPrice())
-                .originalQuantity(e.getQuantity())
-                .remainingQuantity(e.getQuantity())
-                .status("ACTIVE")
-                .createdAt(now)
-                .build();
+    private static long epochMicros(OffsetDateTime t) {
+        return t.toEpochSecond() * 1_000_000 + t.getNano() / 1_000;
     }
 }
@@ -1,71 +1,364 @@
 // src/main/java/com/tradestream/matching_engine/matching/OrderBook.java
 package com.tradestream.matching_engine.matching;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 import com.tradestream.matching_engine.domain.OrderSide;
-import com.tradestream.matching_engine.domain.RestingOrder;
 
 /**
  * One OrderBook per ticker.
- * BUY = max price first; SELL = min price first; within same price -> FIFO by createdAt.
- * Note: Only LIMIT orders are ever stored in the book; MARKET orders never rest.
+ * BUY = max price first; SELL = min price first; within same price -> FIFO by arrival.
+ * Note: Only LIMIT (and triggered STOP_LIMIT) orders ever rest; MARKET and STOP orders never do.
+ *
+ * Each side is a sorted map of price levels, each level a FIFO queue of orders.
+ * The best level per side is cached, so top-of-book access is O(1); an orderId index
+ * makes cancel O(1) apart from dropping a level that became empty.
+ * Prices are ticks and quantities lots of this book's {@link TickScale}.
+ *
+ * With depth tracking on, every level whose aggregate quantity changes is queued once (a flag on the
+ * level) until {@link #drainDepthChanges} reads it, so N changes to a level between two drains cost one
+ * entry in the market-by-price feed.
+ *
+ * Armed stops wait in a separate trigger index per side, keyed by trigger price: buy stops ascending (they
+ * fire once a trade prints at or above the trigger), sell stops descending (at or below). The match loop
+ * reports each trade price via {@link #noteTrade}; {@link #pollTriggeredStop} then only ever looks at the
+ * first entry of each index, so activating stops costs O(log n) per stop fired, never a scan of all of them.
+ * Stops are invisible to matching and to the depth feed until triggered.
+ *
+ * Icebergs rest with one slice of at most their peak on display; levels count displayed and hidden lots
+ * separately, so depth shows only the slices while FOK checks see the reserves too. When a slice is used up,
+ * {@link #requeueOpp} shows the next one from the back of the level, as a new arrival would be, and restamps
+ * its arrival time so a rebuild from resting_orders puts it there too.
  */
 public class OrderBook {
-    private final PriorityQueue<RestingOrder> bids;
-    private final PriorityQueue<RestingOrder> asks;
-
-    public OrderBook() {
-        Comparator<RestingOrder> bidCmp = Comparator
-                .comparing(OrderBook::priceOrThrow)      // highest first
-                .reversed()
-                .thenComparing(RestingOrder::getCreatedAt);
-        Comparator<RestingOrder> askCmp = Comparator
-                .comparing(OrderBook::priceOrThrow)      // lowest first
-                .thenComparing(RestingOrder::getCreatedAt);
-        this.bids = new PriorityQueue<>(bidCmp);
-        this.asks = new PriorityQueue<>(askCmp);
-    }
-
-    private static BigDecimal priceOrThrow(RestingOrder r) {
-        BigDecimal p = r.getPrice();
-        if (p == null) {
-            // We should never have null prices in the resting book.
-            throw new IllegalStateException("Resting order must have a price (LIMIT only)");
+    private final TickScale scale;
+    private final TreeMap<Long, PriceLevel> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final TreeMap<Long, PriceLevel> asks = new TreeMap<>(Comparator.naturalOrder());
+    private final TreeMap<Long, PriceLevel> buyStops = new TreeMap<>(Comparator.naturalOrder());
+    private final TreeMap<Long, PriceLevel> sellStops = new TreeMap<>(Comparator.reverseOrder());
+    private final Map<UUID, BookOrder> index = new HashMap<>(); // resting orders and armed stops
+
+    // Trade prices seen since the last resetTradeRange(); MAX/MIN when nothing traded
+    private long tradeLow = Long.MAX_VALUE;
+    private long tradeHigh = Long.MIN_VALUE;
+    private int trades;
+
+    // Cached best level per side (null when the side is empty)
+    private PriceLevel bestBid;
+    private PriceLevel bestAsk;
+
+    // Free order slots, linked through BookOrder.next; only this book's shard thread touches them
+    private static final int POOL_CAP = 256;
+    private BookOrder free;
+    private int freeCount;
+
+    // System.nanoTime() of the last command that touched this book, for idle eviction
+    private long lastUsed = System.nanoTime();
+
+    // Newest queue-arrival stamp (epoch micros) handed out or loaded; stamps only grow
+    private long lastArrival;
+
+    // Levels changed since the last drain; null when depth isn't tracked
+    private final List<PriceLevel> dirtyBids;
+    private final List<PriceLevel> dirtyAsks;
+
+    /** Receives one aggregated price level: price in ticks, total resting lots (0 = level gone). */
+    @FunctionalInterface
+    public interface LevelVisitor { void level(long price, long lots); }
+
+    public OrderBook(TickScale scale) { this(scale, false); }
+
+    public OrderBook(TickScale scale, boolean trackDepth) {
+        this.scale = scale;
+        this.dirtyBids = trackDepth ? new ArrayList<>() : null;
+        this.dirtyAsks = trackDepth ? new ArrayList<>() : null;
+    }
+
+    public TickScale scale() { return scale; }
+
+    /** An empty order slot for this book, recycled when one is available. */
+    BookOrder acquire() {
+        BookOrder o = free;
+        if (o == null) return new BookOrder();
+        free = o.next;
+        o.next = null;
+        freeCount--;
+        return o;
+    }
+
+    /** Takes back a slot that is out of the book and no longer referenced by the caller. */
+    void release(BookOrder o) {
+        o.clear();
+        if (freeCount == POOL_CAP) return;
+        o.next = free;
+        free = o;
+        freeCount++;
+    }
+
+    void touch(long now) { lastUsed = now; }
+    long lastUsed() { return lastUsed; }
+
+    /**
+     * Queue-arrival stamp for an order joining the back of a queue: {@code atMicros}, or one micro past the
+     * newest stamp in this book if that is later. A rebuild from resting_orders orders by created_at, so
+     * stamps must follow queue order.
+     */
+    long nextArrival(long atMicros) {
+        lastArrival = Math.max(atMicros, lastArrival + 1);
+        return lastArrival;
+    }
+
+    /** Aggressing limit for a MARKET order: crosses any resting price on the opposite side. */
+    public static long marketLimit(OrderSide aggressingSide) {
+        return aggressingSide == OrderSide.BUY ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+
+    private TreeMap<Long, PriceLevel> levels(OrderSide s) { return s == OrderSide.BUY ? bids : asks; }
+    private PriceLevel best(OrderSide s) { return s == OrderSide.BUY ? bestBid : bestAsk; }
+    private static OrderSide other(OrderSide s) { return s == OrderSide.BUY ? OrderSide.SELL : OrderSide.BUY; }
+
+    private void refreshBest(OrderSide s) {
+        var first = levels(s).firstEntry();
+        PriceLevel lvl = first == null ? null : first.getValue();
+        if (s == OrderSide.BUY) bestBid = lvl; else bestAsk = lvl;
+    }
+
+    private void touched(OrderSide s, PriceLevel lvl) {
+        if (dirtyBids == null || lvl.depthDirty) return;
+        lvl.depthDirty = true;
+        (s == OrderSide.BUY ? dirtyBids : dirtyAsks).add(lvl);
+    }
+
+    private PriceLevel levelFor(BookOrder o) {
+        OrderSide s = o.side();
+        PriceLevel lvl = levels(s).computeIfAbsent(o.price, PriceLevel::new);
+        touched(s, lvl);
+        PriceLevel best = best(s);
+        if (best == null || (s == OrderSide.BUY ? lvl.price() > best.price() : lvl.price() < best.price())) {
+            if (s == OrderSide.BUY) bestBid = lvl; else bestAsk = lvl;
+        }
+        return lvl;
+    }
+
+    private void unlink(BookOrder o) {
+        PriceLevel lvl = o.level;
+        OrderSide s = o.side();
+        lvl.unlink(o);
+        touched(s, lvl);
+        if (lvl.isEmpty()) {
+            levels(s).remove(lvl.price());
+            if (lvl == best(s)) refreshBest(s);
+        }
+    }
+
+    /**
+     * Rests {@code o} at the back of its price level, or files it in the trigger index if it is an armed stop.
+     * An id that is already here is refused: overwriting its index entry would leave the old node linked.
+     */
+    public void add(BookOrder o) {
+        if (index.containsKey(o.id)) throw new IllegalStateException("Order " + o.id + " is already in the book");
+        if (o.createdAtMicros > lastArrival) lastArrival = o.createdAtMicros;
+        if (o.armed) {
+            stops(o.side()).computeIfAbsent(o.trigger, PriceLevel::new).addLast(o);
+        } else {
+            levelFor(o).addLast(o);
         }
-        return p;
+        index.put(o.id, o);
+    }
+
+    /** Removes the order (or armed stop) with this id; returns it, or null if it was not here. */
+    public BookOrder remove(UUID orderId) {
+        BookOrder o = index.remove(orderId);
+        if (o == null) return null;
+        if (o.armed) unlinkStop(o); else unlink(o);
+        return o;
     }
 
-    public PriorityQueue<RestingOrder> side(OrderSide s) { return s == OrderSide.BUY ? bids : asks; }
-    public PriorityQueue<RestingOrder> opp(OrderSide s)  { return s == OrderSide.BUY ? asks : bids; }
+    private TreeMap<Long, PriceLevel> stops(OrderSide s) { return s == OrderSide.BUY ? buyStops : sellStops; }
 
-    public void add(RestingOrder ro) { side(ro.getSide()).add(ro); }
-    public void remove(RestingOrder ro) { side(ro.getSide()).remove(ro); }
+    private void unlinkStop(BookOrder o) {
+        PriceLevel lvl = o.level;
+        lvl.unlink(o);
+        if (lvl.isEmpty()) stops(o.side()).remove(lvl.price());
+    }
 
-    public Optional<RestingOrder> peekBest(OrderSide aggressingSide) {
-        return Optional.ofNullable(opp(aggressingSide).peek());
+    /** Records a trade at {@code price} ticks for stop activation. */
+    void noteTrade(long price) {
+        if (price < tradeLow) tradeLow = price;
+        if (price > tradeHigh) tradeHigh = price;
+        trades++;
+    }
+
+    /** Trades noted since the last resetTradeRange(). */
+    int tradeCount() { return trades; }
+
+    /** Forgets the trade range; called before each command so stops only react to that command's trades. */
+    void resetTradeRange() {
+        tradeLow = Long.MAX_VALUE;
+        tradeHigh = Long.MIN_VALUE;
+        trades = 0;
     }
 
     /**
-     * Returns true if the aggressing price crosses the current top of opposite side.
-     * MARKET (null aggressingPrice) crosses if opposite has any liquidity.
+     * Disarms and returns the next stop crossed by the trades noted so far (buy stops first, each side in
+     * trigger order, FIFO within a trigger price), or null when none is. The caller executes it; any trades
+     * that produces widen the range, so calling this until it returns null runs the whole cascade.
      */
-    public boolean isCrossed(BigDecimal aggressingPrice, OrderSide aggressingSide) {
-        RestingOrder top = opp(aggressingSide).peek();
-        if (top == null) return false;
-        BigDecimal topPrice = priceOrThrow(top);
-        if (aggressingPrice == null) return true; // MARKET crosses if opposite exists
-        return aggressingSide == OrderSide.BUY
-                ? aggressingPrice.compareTo(topPrice) >= 0
-                : aggressingPrice.compareTo(topPrice) <= 0;
-    }
-
-    public RestingOrder pollOpp(OrderSide aggressingSide) { return opp(aggressingSide).poll(); }
-    public void requeueOpp(RestingOrder ro) {
-        // 'ro' is from the opposite side relative to the aggressing order that matched it.
-        opp(ro.getSide() == OrderSide.BUY ? OrderSide.SELL : OrderSide.BUY).add(ro);
+    BookOrder pollTriggeredStop() {
+        var buy = buyStops.firstEntry();
+        var sell = sellStops.firstEntry();
+        PriceLevel lvl = buy != null && buy.getKey() <= tradeHigh ? buy.getValue()
+                : sell != null && sell.getKey() >= tradeLow ? sell.getValue() : null;
+        if (lvl == null) return null;
+        BookOrder o = lvl.head();
+        index.remove(o.id);
+        unlinkStop(o);
+        o.armed = false;
+        return o;
+    }
+
+    public boolean contains(UUID orderId) { return index.containsKey(orderId); }
+
+    /** Price levels on one side. */
+    public int levelCount(OrderSide side) { return levels(side).size(); }
+
+    /** Armed stops waiting in the trigger index. */
+    public int stopCount() {
+        int n = 0;
+        for (PriceLevel lvl : buyStops.values()) n += lvl.size();
+        for (PriceLevel lvl : sellStops.values()) n += lvl.size();
+        return n;
+    }
+
+    /** Resting orders on one side; walks the levels, so for periodic reporting only. */
+    public int orderCount(OrderSide side) {
+        int n = 0;
+        for (PriceLevel lvl : levels(side).values()) n += lvl.size();
+        return n;
+    }
+
+    /** Displayed lots on one side; walks the levels, so for periodic reporting only. */
+    public long displayedLots(OrderSide side) {
+        long n = 0;
+        for (PriceLevel lvl : levels(side).values()) n += lvl.totalQuantity();
+        return n;
+    }
+
+    /** The resting order (or armed stop) with this id, left in place; null if it is not here. */
+    BookOrder get(UUID orderId) { return index.get(orderId); }
+
+    /** Lowers a resting order's remaining lots without moving it, so it keeps its time priority. */
+    void reduce(BookOrder o, long remaining) {
+        o.level.reduce(o, remaining);
+        if (!o.armed) touched(o.side(), o.level);
+    }
+
+    public int size() { return index.size(); }
+
+    /**
+     * Visits every resting order, bids then asks, each side best price first and FIFO within a level;
+     * then the armed stops, buy then sell, in trigger order.
+     */
+    public void forEachOrder(Consumer<BookOrder> visitor) {
+        visitSide(bids, visitor);
+        visitSide(asks, visitor);
+        visitSide(buyStops, visitor);
+        visitSide(sellStops, visitor);
+    }
+
+    private static void visitSide(TreeMap<Long, PriceLevel> side, Consumer<BookOrder> visitor) {
+        for (PriceLevel lvl : side.values()) {
+            for (BookOrder o = lvl.head(); o != null; o = o.next) visitor.accept(o);
+        }
+    }
+
+    /**
+     * Hands every level changed since the last drain to {@code visitor}, in the order they were first
+     * touched, with its current total; clears the change list. A level emptied and recreated in between
+     * shows up twice (0, then the new total), so applying entries in order always ends in the right state.
+     */
+    public void drainDepthChanges(OrderSide side, LevelVisitor visitor) {
+        List<PriceLevel> dirty = side == OrderSide.BUY ? dirtyBids : dirtyAsks;
+        if (dirty == null) return;
+        for (PriceLevel lvl : dirty) {
+            lvl.depthDirty = false;
+            visitor.level(lvl.price(), lvl.totalQuantity());
+        }
+        dirty.clear();
+    }
+
+    public boolean hasDepthChanges() {
+        return dirtyBids != null && (!dirtyBids.isEmpty() || !dirtyAsks.isEmpty());
+    }
+
+    /** Visits up to {@code maxLevels} levels of one side, best first (0 = all). */
+    public void forEachLevel(OrderSide side, int maxLevels, LevelVisitor visitor) {
+        int n = 0;
+        for (PriceLevel lvl : levels(side).values()) {
+            if (maxLevels > 0 && n++ == maxLevels) break;
+            visitor.level(lvl.price(), lvl.totalQuantity());
+        }
+    }
+
+    public Optional<BookOrder> peekBest(OrderSide aggressingSide) {
+        PriceLevel lvl = best(other(aggressingSide));
+        return lvl == null ? Optional.empty() : Optional.of(lvl.head());
+    }
+
+    /**
+     * Returns true if the aggressing limit crosses the current top of opposite side.
+     * MARKET orders pass {@link #marketLimit(OrderSide)} and cross if opposite has any liquidity.
+     */
+    public boolean isCrossed(long aggressingLimit, OrderSide aggressingSide) {
+        PriceLevel top = best(other(aggressingSide));
+        return top != null && crosses(aggressingLimit, aggressingSide, top.price());
+    }
+
+    private static boolean crosses(long aggressingLimit, OrderSide aggressingSide, long restingPrice) {
+        return aggressingSide == OrderSide.BUY ? aggressingLimit >= restingPrice : aggressingLimit <= restingPrice;
+    }
+
+    /**
+     * True if the opposite side holds at least {@code quantity} lots at prices acceptable to the aggressor.
+     * Walks aggregated levels best-first, so cost is bounded by the number of crossed levels.
+     */
+    public boolean canFill(long aggressingLimit, OrderSide aggressingSide, long quantity) {
+        long have = 0;
+        for (PriceLevel lvl : levels(other(aggressingSide)).values()) {
+            if (!crosses(aggressingLimit, aggressingSide, lvl.price())) break;
+            have += lvl.fillableQuantity();
+            if (have >= quantity) return true;
+        }
+        return false;
+    }
+
+    public BookOrder pollOpp(OrderSide aggressingSide) {
+        PriceLevel lvl = best(other(aggressingSide));
+        if (lvl == null) return null;
+        BookOrder o = lvl.head();
+        index.remove(o.id);
+        unlink(o);
+        return o;
+    }
+
+    public void requeueOpp(BookOrder o) {
+        if (o.shown() > 0) {
+            // 'o' was just polled from the top of its level; put it back at the front to keep time priority.
+            levelFor(o).addFirst(o);
+        } else {
+            // Iceberg whose slice is used up: the next slice joins the back of the queue, with a new arrival stamp.
+            o.refill();
+            o.createdAtMicros = nextArrival(o.createdAtMicros);
+            levelFor(o).addLast(o);
+        }
+        index.put(o.id, o);
     }
 }
@@ -0,0 +1,76 @@
+// src/main/java/com/tradestream/matching_engine/matching/PriceLevel.java
+package com.tradestream.matching_engine.matching;
+
+/**
+ * All resting orders at one price on one side of the book, in time priority.
+ * Backed by an intrusive doubly-linked list so unlinking a known order is O(1).
+ */
+final class PriceLevel {
+    private final long price;
+    private BookOrder head;
+    private BookOrder tail;
+    private int size;
+    private long totalQuantity;   // displayed lots
+    private long hiddenQuantity;  // iceberg reserves behind the displayed slices
+    boolean depthDirty;   // queued in the book's depth change list
+
+    PriceLevel(long price) { this.price = price; }
+
+    long price() { return price; }
+    BookOrder head() { return head; }
+    int size() { return size; }
+    boolean isEmpty() { return size == 0; }
+
+    /** Displayed lots across the level, as published in the depth feed. */
+    long totalQuantity() { return totalQuantity; }
+
+    /** Every lot an aggressor could take at this price, iceberg reserves included (used for FOK checks). */
+    long fillableQuantity() { return totalQuantity + hiddenQuantity; }
+
+    /** New arrival: joins the back of the time queue. */
+    void addLast(BookOrder o) {
+        o.level = this;
+        o.prev = tail;
+        o.next = null;
+        if (tail == null) head = o; else tail.next = o;
+        tail = o;
+        size++;
+        count(o, 1);
+    }
+
+    /** Partially filled order going back in: keeps its place at the front. */
+    void addFirst(BookOrder o) {
+        o.level = this;
+        o.prev = null;
+        o.next = head;
+        if (head == null) tail = o; else head.prev = o;
+        head = o;
+        size++;
+        count(o, 1);
+    }
+
+    void unlink(BookOrder o) {
+        if (o.prev == null) head = o.next; else o.prev.next = o.next;
+        if (o.next == null) tail = o.prev; else o.next.prev = o.prev;
+        o.prev = null;
+        o.next = null;
+        o.level = null;
+        size--;
+        count(o, -1);
+    }
+
+    /** Amend down in place: the order keeps its position, the level's totals follow. */
+    void reduce(BookOrder o, long remaining) {
+        count(o, -1);
+        o.remaining = remaining;
+        if (o.visible > remaining) o.visible = remaining;
+        count(o, 1);
+    }
+
+    // An order's quantities only change while it is out of its level (or in reduce()), so this subtracts what it added
+    private void count(BookOrder o, int sign) {
+        long shown = o.shown();
+        totalQuantity += sign * shown;
+        hiddenQuantity += sign * (o.remaining - shown);
+    }
+}
@@ -0,0 +1,43 @@
+// src/main/java/com/tradestream/matching_engine/matching/TickScale.java
+package com.tradestream.matching_engine.matching;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point scale for one ticker: prices as whole ticks, quantities as whole lots.
+ * Conversions happen only at the event/persistence boundary; the book compares raw longs.
+ */
+public final class TickScale {
+    private final String ticker;
+    private final BigDecimal tickSize;
+    private final BigDecimal lotSize;
+
+    public TickScale(String ticker, BigDecimal tickSize, BigDecimal lotSize) {
+        if (tickSize.signum() <= 0 || lotSize.signum() <= 0) {
+            throw new IllegalArgumentException("Tick and lot size must be positive for " + ticker);
+        }
+        this.ticker = ticker;
+        this.tickSize = tickSize;
+        this.lotSize = lotSize;
+    }
+
+    public String ticker() { return ticker; }
+    public BigDecimal tickSize() { return tickSize; }
+    public BigDecimal lotSize() { return lotSize; }
+
+    public long toTicks(BigDecimal price) { return scale(price, tickSize, "price"); }
+    public long toLots(BigDecimal quantity) { return scale(quantity, lotSize, "quantity"); }
+
+    public BigDecimal toPrice(long ticks) { return BigDecimal.valueOf(ticks).multiply(tickSize); }
+    public BigDecimal toQuantity(long lots) { return BigDecimal.valueOf(lots).multiply(lotSize); }
+
+    private long scale(BigDecimal v, BigDecimal unit, String what) {
+        try {
+            return v.divide(unit).longValueExact();
+        } catch (ArithmeticException e) {
+            // Not retryable: the event itself is invalid for this instrument
+            throw new IllegalArgumentException(
+                    what + " " + v.toPlainString() + " is not a whole multiple of " + unit.toPlainString() + " for " + ticker, e);
+        }
+    }
+}
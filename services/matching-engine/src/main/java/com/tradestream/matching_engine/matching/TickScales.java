@@ -0,0 +1,34 @@
+// src/main/java/com/tradestream/matching_engine/matching/TickScales.java
+package com.tradestream.matching_engine.matching;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.tradestream.matching_engine.config.EngineProps;
+
+/** Resolves the {@link TickScale} for a ticker from {@code tradestream.instruments}. */
+@Component
+public class TickScales {
+    private final EngineProps.Instruments cfg;
+    private final Map<String, TickScale> cache = new ConcurrentHashMap<>();
+
+    public TickScales(EngineProps props) { this.cfg = props.getInstruments(); }
+
+    public TickScale forTicker(String ticker) {
+        return cache.computeIfAbsent(ticker, t -> new TickScale(t,
+                lookup(cfg.getTickSizes(), t, cfg.getDefaultTickSize()),
+                lookup(cfg.getLotSizes(), t, cfg.getDefaultLotSize())));
+    }
+
+    // Map keys may arrive lower-cased when bound from environment variables
+    private static BigDecimal lookup(Map<String, BigDecimal> m, String ticker, BigDecimal dflt) {
+        BigDecimal v = m.get(ticker);
+        if (v == null) v = m.get(ticker.toUpperCase(Locale.ROOT));
+        if (v == null) v = m.get(ticker.toLowerCase(Locale.ROOT));
+        return v != null ? v : dflt;
+    }
+}
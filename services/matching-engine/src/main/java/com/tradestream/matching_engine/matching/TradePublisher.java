@@ -1,21 +1,105 @@
 // matching/TradePublisher.java
 package com.tradestream.matching_engine.matching;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.tradestream.matching_engine.config.EngineProps;
 import com.tradestream.matching_engine.dto.TradeExecutedEvent;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
 
-import lombok.RequiredArgsConstructor;
-
+/**
+ * Publishes trade.executed.
+ * Fills are buffered for the surrounding transaction and sent together just before it commits (after the
+ * resting_orders flush), followed by one producer flush, so an aggressive order that sweeps N levels, or a
+ * whole batch slice, costs one network round trip rather than N. The commit waits for every ack: a failed
+ * send rolls the transaction back, the matching service rebuilds the books it touched from resting_orders,
+ * and the order is redelivered instead of its trade being dropped. Trades that did go out before a failed
+ * send or commit come back under the same tradeId (it is derived from the fill), so consumers drop them.
+ * The producer is idempotent (see KafkaConfig), so its internal retries never duplicate or reorder trades.
+ */
 @Component
-@RequiredArgsConstructor
 public class TradePublisher {
+    private static final Logger log = LoggerFactory.getLogger(TradePublisher.class);
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final EngineProps props;
+    private final EngineMetrics metrics;
+
+    public TradePublisher(KafkaTemplate<String, Object> kafkaTemplate, EngineProps props, EngineMetrics metrics) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.props = props;
+        this.metrics = metrics;
+    }
+
+    private record Pending(String key, TradeExecutedEvent event) { }
 
     public void publish(TradeExecutedEvent event, String key) {
-        kafkaTemplate.send(props.getTradeExecuted(), key, event);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sendAll(List.of(new Pending(key, event)));
+            return;
+        }
+        Batch b = batch();
+        if (b.trades.isEmpty()) b.firstAt = System.nanoTime();
+        b.trades.add(new Pending(key, event));
+    }
+
+    private Batch batch() {
+        Batch b = (Batch) TransactionSynchronizationManager.getResource(this);
+        if (b == null) {
+            b = new Batch();
+            TransactionSynchronizationManager.bindResource(this, b);
+            TransactionSynchronizationManager.registerSynchronization(b);
+        }
+        return b;
+    }
+
+    private void sendAll(List<Pending> trades) {
+        if (trades.isEmpty()) return;
+        String topic = props.getTopics().getTradeExecuted();
+        List<CompletableFuture<SendResult<String, Object>>> acks = new ArrayList<>(trades.size());
+        for (Pending p : trades) acks.add(kafkaTemplate.send(topic, p.key(), p.event()));
+        kafkaTemplate.flush(); // don't sit out linger.ms: everything for this commit goes now
+        try {
+            // Completes within the producer's delivery.timeout.ms, either way
+            CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Publishing " + trades.size() + " trade(s) to " + topic + " failed",
+                    e.getCause());
+        }
+        log.debug("Published {} trade(s) to {}", trades.size(), topic);
+    }
+
+    /** Per-transaction trade buffer, bound as a transaction resource. */
+    private final class Batch implements TransactionSynchronization {
+        final List<Pending> trades = new ArrayList<>();
+        long firstAt;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (trades.isEmpty()) return;
+            sendAll(trades);
+            metrics.matchToPublish(System.nanoTime() - firstAt);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TradePublisher.this);
+        }
+
+        // Last before commit: once sent, trades can't be taken back, so the DB writes go first
+        @Override
+        public int getOrder() { return Ordered.LOWEST_PRECEDENCE; }
     }
 }
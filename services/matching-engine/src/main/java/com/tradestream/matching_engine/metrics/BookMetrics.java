@@ -0,0 +1,130 @@
+// metrics/BookMetrics.java
+package com.tradestream.matching_engine.metrics;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.matching.MatchingSequencer;
+import com.tradestream.matching_engine.matching.MatchingService;
+import com.tradestream.matching_engine.matching.OrderBook;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Per-ticker book gauges: {@code engine.book.orders}, {@code engine.book.levels} and {@code engine.book.quantity}
+ * (displayed) by side, and {@code engine.book.stops}. Books may only be read on their shard thread, so each
+ * shard copies its numbers out on a timer and the gauges read the copies; a ticker whose book is evicted loses
+ * its gauges on the next refresh.
+ */
+@Component
+public class BookMetrics {
+    private static final Logger log = LoggerFactory.getLogger(BookMetrics.class);
+
+    private final MatchingService matching;
+    private final MatchingSequencer sequencer;
+    private final MeterRegistry registry;
+    private final EngineProps.Metrics cfg;
+    private final Map<String, Stats> byTicker = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    /** Last copied numbers for one book, plus the gauges reading them. */
+    private static final class Stats {
+        volatile int bidOrders, askOrders, bidLevels, askLevels, stops;
+        volatile double bidQty, askQty;
+        final List<Meter> meters = new ArrayList<>();
+    }
+
+    public BookMetrics(MatchingService matching, MatchingSequencer sequencer, MeterRegistry registry, EngineProps props) {
+        this.matching = matching;
+        this.sequencer = sequencer;
+        this.registry = registry;
+        this.cfg = props.getMetrics();
+    }
+
+    /** Starts refreshing; called once recovery has finished. */
+    public synchronized void startSchedule() {
+        if (cfg.getBookGaugeIntervalSeconds() <= 0 || scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "book-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        long every = cfg.getBookGaugeIntervalSeconds();
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, every, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stopSchedule() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void refresh() {
+        try {
+            List<CompletableFuture<Set<String>>> shards = new ArrayList<>(sequencer.shardCount());
+            for (int i = 0; i < sequencer.shardCount(); i++) {
+                final int shard = i;
+                shards.add(sequencer.submitToShard(shard, () -> copy(shard)));
+            }
+            Set<String> live = new HashSet<>();
+            for (var f : shards) live.addAll(MatchingSequencer.await(f));
+            byTicker.entrySet().removeIf(e -> {
+                if (live.contains(e.getKey())) return false;
+                e.getValue().meters.forEach(registry::remove);
+                return true;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Book metrics refresh failed; will retry", e);
+        }
+    }
+
+    /** Runs on the shard's thread; returns the tickers it reported. */
+    private Set<String> copy(int shard) {
+        Set<String> seen = new HashSet<>();
+        matching.forEachBook(shard, (ticker, book) -> {
+            seen.add(ticker);
+            Stats s = byTicker.computeIfAbsent(ticker, this::register);
+            double lot = book.scale().lotSize().doubleValue();
+            s.bidOrders = book.orderCount(OrderSide.BUY);
+            s.askOrders = book.orderCount(OrderSide.SELL);
+            s.bidLevels = book.levelCount(OrderSide.BUY);
+            s.askLevels = book.levelCount(OrderSide.SELL);
+            s.bidQty = book.displayedLots(OrderSide.BUY) * lot;
+            s.askQty = book.displayedLots(OrderSide.SELL) * lot;
+            s.stops = book.stopCount();
+        });
+        return seen;
+    }
+
+    private Stats register(String ticker) {
+        Stats s = new Stats();
+        Tags bid = Tags.of("ticker", ticker, "side", "BUY");
+        Tags ask = Tags.of("ticker", ticker, "side", "SELL");
+        s.meters.add(Gauge.builder("engine.book.orders", s, x -> x.bidOrders).tags(bid).register(registry));
+        s.meters.add(Gauge.builder("engine.book.orders", s, x -> x.askOrders).tags(ask).register(registry));
+        s.meters.add(Gauge.builder("engine.book.levels", s, x -> x.bidLevels).tags(bid).register(registry));
+        s.meters.add(Gauge.builder("engine.book.levels", s, x -> x.askLevels).tags(ask).register(registry));
+        s.meters.add(Gauge.builder("engine.book.quantity", s, x -> x.bidQty).tags(bid).register(registry));
+        s.meters.add(Gauge.builder("engine.book.quantity", s, x -> x.askQty).tags(ask).register(registry));
+        s.meters.add(Gauge.builder("engine.book.stops", s, x -> x.stops).tags("ticker", ticker).register(registry));
+        return s;
+    }
+}
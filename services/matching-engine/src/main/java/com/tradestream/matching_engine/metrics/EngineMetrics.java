@@ -0,0 +1,70 @@
+// metrics/EngineMetrics.java
+package com.tradestream.matching_engine.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Hot-path meters, following one order from Kafka to trade.executed:
+ * <pre>
+ *   engine.record.age         producer timestamp -> poll handed to the listener (broker + consumer fetch)
+ *   engine.consume.to.match   poll handed to the listener -> that order's match done (dedup, shard queue, matching)
+ *   engine.match              matching one order, stops it fires included
+ *   engine.db.flush           one resting_orders batch upsert (engine.db.flush.rows: its size)
+ *   engine.match.to.publish   first trade buffered in a transaction -> every trade of it acked
+ *   engine.order.fills        trades per incoming order
+ * </pre>
+ * Percentiles and Prometheus histogram buckets come from {@code management.metrics.distribution.*} in
+ * application.yml; Micrometer keeps them in HdrHistogram-backed rolling windows. Recording is lock-free.
+ */
+@Component
+public class EngineMetrics {
+    private final Timer recordAge;
+    private final Timer consumeToMatch;
+    private final Timer match;
+    private final Timer dbFlush;
+    private final DistributionSummary dbFlushRows;
+    private final Timer matchToPublish;
+    private final DistributionSummary fillsPerOrder;
+
+    public EngineMetrics(MeterRegistry registry) {
+        recordAge = Timer.builder("engine.record.age")
+                .description("order.placed producer timestamp to consumption").register(registry);
+        consumeToMatch = Timer.builder("engine.consume.to.match")
+                .description("Poll received to order matched").register(registry);
+        match = Timer.builder("engine.match")
+                .description("Matching one incoming order").register(registry);
+        dbFlush = Timer.builder("engine.db.flush")
+                .description("resting_orders batch upsert").register(registry);
+        dbFlushRows = DistributionSummary.builder("engine.db.flush.rows")
+                .description("Rows per resting_orders batch upsert").register(registry);
+        matchToPublish = Timer.builder("engine.match.to.publish")
+                .description("First trade of a transaction buffered to all of its trades acked").register(registry);
+        fillsPerOrder = DistributionSummary.builder("engine.order.fills")
+                .description("Trades per incoming order").register(registry);
+    }
+
+    /** {@code timestampMs} is the record's Kafka timestamp; skewed clocks can't produce negative samples. */
+    public void recordAge(long timestampMs, long nowMs) {
+        if (timestampMs > 0) recordAge.record(Math.max(0, nowMs - timestampMs), TimeUnit.MILLISECONDS);
+    }
+
+    public void consumeToMatch(long nanos) { consumeToMatch.record(nanos, TimeUnit.NANOSECONDS); }
+
+    public void match(long nanos, int fills) {
+        match.record(nanos, TimeUnit.NANOSECONDS);
+        fillsPerOrder.record(fills);
+    }
+
+    public void dbFlush(long nanos, int rows) {
+        dbFlush.record(nanos, TimeUnit.NANOSECONDS);
+        dbFlushRows.record(rows);
+    }
+
+    public void matchToPublish(long nanos) { matchToPublish.record(nanos, TimeUnit.NANOSECONDS); }
+}
@@ -0,0 +1,240 @@
+package com.tradestream.matching_engine.persistence;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tradestream.matching_engine.config.DedupProps;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-process front for the processed_messages ledger.
+ *
+ * A bloom filter over recent (topic, messageId) keys says "definitely new" without a DB round trip; an LRU
+ * of recently committed keys says "definitely seen". Only keys the filter calls maybe-seen that are no
+ * longer in the LRU still need the query. Keys are added once their transaction commits.
+ *
+ * The filter is warmed from processed_messages at startup and topped up whenever partitions are assigned,
+ * so redeliveries after a restart or rebalance are still recognised. Two filter generations rotate; a key
+ * is remembered for at least {@code expectedInsertions} newer keys.
+ *
+ * A miss is only proof for records produced after the filter's horizon: the ledger time from which it holds
+ * every committed key (the warm-up window, raised to the oldest row fetched when the warm-up hit its limit,
+ * and to the start of the oldest kept generation once one is dropped). A record stamped earlier (an offset
+ * reset, a replayed backlog) could have been processed before the horizon, so its miss goes to the DB too.
+ * The ledger's unique key is no backstop here: a duplicate called new is applied, and its events sent,
+ * before the insert fails at flush, if it fails at all.
+ *
+ * This class is copied verbatim (only the package differs) into every service with a processed_messages
+ * ledger; a fix to one copy goes into all of them.
+ */
+@Component
+public class DedupFilter implements ConsumerAwareRebalanceListener {
+    private static final Logger log = LoggerFactory.getLogger(DedupFilter.class);
+
+    private static final long REWARM_OVERLAP_SECONDS = 60; // rows are stamped before their tx commits
+    private static final long CLOCK_SLACK_SECONDS = 60; // record timestamps come from the producer's clock
+
+    public enum Verdict { NEW, SEEN, MAYBE }
+
+    private final JdbcTemplate jdbc;
+    private final DedupProps cfg;
+    private final String recentSql;
+    private final Map<String, Boolean> recent;
+
+    private volatile boolean active;
+    private Bloom current;
+    private Bloom previous;
+    private Instant warmedAt;
+    private Instant horizon; // null until warmed: no miss is proof before that
+
+    public DedupFilter(JdbcTemplate jdbc, DedupProps cfg) {
+        this.jdbc = jdbc;
+        this.cfg = cfg;
+        String at = cfg.getTimestampColumn();
+        this.recentSql = "SELECT topic, message_id, " + at + " FROM processed_messages WHERE " + at + " >= ? "
+                + "ORDER BY " + at + " DESC LIMIT ?";
+        int lruSize = cfg.getLruSize();
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) { return size() > lruSize; }
+        };
+        this.current = newBloom();
+        this.active = cfg.isEnabled();
+    }
+
+    @PostConstruct
+    void warmAtStartup() {
+        if (active) warm();
+    }
+
+    /** Partitions may come with redeliveries another instance already committed; pick those rows up. */
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (active && !partitions.isEmpty()) warm();
+    }
+
+    /** {@code timestamp} is the record's (epoch millis, negative if it has none); see the class comment. */
+    public synchronized Verdict check(String topic, UUID messageId, long timestamp) {
+        if (!active) return Verdict.MAYBE;
+        String key = key(topic, messageId);
+        long h = hash(key);
+        if (!current.mightContain(h) && (previous == null || !previous.mightContain(h))) {
+            return afterHorizon(timestamp) ? Verdict.NEW : Verdict.MAYBE;
+        }
+        return recent.containsKey(key) ? Verdict.SEEN : Verdict.MAYBE;
+    }
+
+    private boolean afterHorizon(long timestamp) {
+        return horizon != null && timestamp >= 0
+                && Instant.ofEpochMilli(timestamp).isAfter(horizon.plusSeconds(CLOCK_SLACK_SECONDS));
+    }
+
+    /** True if already processed; {@code ledger} (the DB check) only runs when the filter can't tell. */
+    public boolean isDuplicate(String topic, UUID messageId, long timestamp, BooleanSupplier ledger) {
+        return switch (check(topic, messageId, timestamp)) {
+            case NEW -> false;
+            case SEEN -> true;
+            case MAYBE -> ledger.getAsBoolean();
+        };
+    }
+
+    public void recordAfterCommit(String topic, UUID messageId) { recordAfterCommit(topic, List.of(messageId)); }
+
+    /** Remembers the keys once the surrounding transaction commits (immediately if there is none). */
+    public void recordAfterCommit(String topic, Collection<UUID> messageIds) {
+        if (!active || messageIds.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(topic, messageIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override public void afterCommit() { record(topic, messageIds); }
+        });
+    }
+
+    private synchronized void record(String topic, Collection<UUID> messageIds) {
+        Instant now = Instant.now();
+        for (UUID id : messageIds) add(key(topic, id), now);
+    }
+
+    /** {@code at} is the key's ledger time (or commit time); keys arrive oldest first. */
+    private void add(String key, Instant at) {
+        if (current.from == null) current.from = at;
+        if (current.put(hash(key)) >= cfg.getExpectedInsertions()) {
+            // The generation dropped here held the keys from before this one's start
+            raiseHorizon(current.from);
+            previous = current;
+            current = newBloom();
+        }
+        recent.put(key, Boolean.TRUE);
+    }
+
+    private void raiseHorizon(Instant to) {
+        if (horizon == null || to.isAfter(horizon)) horizon = to;
+    }
+
+    private void warm() {
+        Instant startedAt = Instant.now();
+        Instant since;
+        synchronized (this) {
+            since = warmedAt == null
+                    ? startedAt.minus(cfg.getWarmHours(), ChronoUnit.HOURS)
+                    : warmedAt.minusSeconds(REWARM_OVERLAP_SECONDS);
+        }
+        List<String> keys = new ArrayList<>();
+        List<Instant> times = new ArrayList<>();
+        try {
+            jdbc.query(recentSql, rs -> {
+                // Read as text: a uuid column and a varchar of UUID.toString() give the same key
+                keys.add(key(rs.getString(1), rs.getString(2)));
+                times.add(rs.getTimestamp(3).toInstant());
+            }, Timestamp.from(since), cfg.getExpectedInsertions());
+        } catch (RuntimeException e) {
+            // A filter missing committed keys would call real duplicates new; fall back to the DB for everything
+            log.warn("Could not warm dedup filter from processed_messages; disabling it", e);
+            active = false;
+            return;
+        }
+        synchronized (this) {
+            // Oldest first, so the newest end up in the LRU
+            for (int i = keys.size() - 1; i >= 0; i--) add(keys.get(i), times.get(i));
+            if (warmedAt == null) raiseHorizon(since);
+            // Hit the limit: rows older than the last one fetched may be missing
+            if (keys.size() >= cfg.getExpectedInsertions()) raiseHorizon(times.get(times.size() - 1));
+            warmedAt = startedAt;
+        }
+        log.info("Dedup filter warmed with {} keys since {}", keys.size(), since);
+    }
+
+    private Bloom newBloom() { return new Bloom(cfg.getExpectedInsertions(), cfg.getFalsePositiveRate()); }
+
+    private static String key(String topic, Object messageId) { return topic + "|" + messageId; }
+
+    // FNV-1a over the key, finished with a murmur3 fmix64
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** Plain bit-array bloom filter; k probes derived from one 64-bit hash (Kirsch-Mitzenmacher). */
+    private static final class Bloom {
+        private final long[] bits;
+        private final long numBits;
+        private final int probes;
+        private long inserted;
+        Instant from; // ledger time of its first key
+
+        Bloom(long expected, double fpp) {
+            long m = (long) Math.ceil(-expected * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            this.numBits = Math.max(64, m);
+            this.bits = new long[(int) ((numBits + 63) >>> 6)];
+            this.probes = Math.max(1, (int) Math.round((double) numBits / expected * Math.log(2)));
+        }
+
+        /** Sets the key's bits; returns how many keys this generation now holds. */
+        long put(long hash) {
+            int h1 = (int) hash, h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= probes; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+            return ++inserted;
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash, h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= probes; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+    }
+}
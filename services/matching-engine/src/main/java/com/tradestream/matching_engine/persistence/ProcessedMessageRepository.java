@@ -1,12 +1,20 @@
 // persistence/ProcessedMessageRepository.java
 package com.tradestream.matching_engine.persistence;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.tradestream.matching_engine.domain.ProcessedMessage;
 
 public interface ProcessedMessageRepository extends JpaRepository<ProcessedMessage, Long> { // PK type changed
     boolean existsByTopicAndMessageId(String topic, UUID messageId); // NEW
+
+    /** The subset of {@code ids} already recorded for {@code topic} (one round trip for many ids). */
+    @Query("select p.messageId from ProcessedMessage p where p.topic = :topic and p.messageId in :ids")
+    List<UUID> findExistingMessageIds(@Param("topic") String topic, @Param("ids") Collection<UUID> ids);
 }
@@ -0,0 +1,34 @@
+// persistence/ProcessedMessageWriter.java
+package com.tradestream.matching_engine.persistence;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Batch insert of idempotency ledger rows. The JPA entity uses an IDENTITY key, which stops Hibernate
+ * from batching inserts, so a poll's worth of rows goes through one JDBC batch instead.
+ */
+@Component
+public class ProcessedMessageWriter {
+    private static final String INSERT =
+            "INSERT INTO processed_messages (topic, message_id, received_at) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+
+    public ProcessedMessageWriter(JdbcTemplate jdbc) { this.jdbc = jdbc; }
+
+    public void insertAll(String topic, List<UUID> messageIds) {
+        if (messageIds.isEmpty()) return;
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbc.batchUpdate(INSERT, messageIds, messageIds.size(), (ps, id) -> {
+            ps.setString(1, topic);
+            ps.setObject(2, id);
+            ps.setTimestamp(3, now);
+        });
+    }
+}
@@ -8,13 +8,23 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.tradestream.matching_engine.domain.RestingOrder;
 
 public interface RestingOrderRepository extends JpaRepository<RestingOrder, UUID> {
-    @Query("select r from RestingOrder r where r.status in ('ACTIVE','PARTIALLY_FILLED')")
+    // Ordered by arrival so warm start rebuilds each price level (and each stop trigger) in time priority.
+    // PENDING rows are armed stops, which go back into the trigger index.
+    @Query("select r from RestingOrder r where r.status in ('ACTIVE','PARTIALLY_FILLED','PENDING') order by r.createdAt")
     List<RestingOrder> findAllActive();
 
+    // Lazy hydration of one book. Runs outside the caller's transaction so the rows come back detached:
+    // the book mutates them and resting_orders is written by RestingOrderWriter, not by dirty checking.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED, readOnly = true)
+    @Query("select r from RestingOrder r where r.ticker = :ticker and r.status in ('ACTIVE','PARTIALLY_FILLED','PENDING') order by r.createdAt")
+    List<RestingOrder> findActiveByTicker(@Param("ticker") String ticker);
+
     @Modifying
     @Query("update RestingOrder r set r.status=:status where r.id=:id")
     int updateStatus(@Param("id") UUID id, @Param("status") String status);
@@ -0,0 +1,129 @@
+// persistence/RestingOrderWriter.java
+package com.tradestream.matching_engine.persistence;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.domain.RestingOrder;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
+
+/**
+ * Write-behind for resting_orders.
+ * The match loop stages state changes here instead of merging entities one fill at a time; changes are
+ * coalesced per order id and written as a single JDBC batch upsert just before the surrounding
+ * transaction commits, so they land atomically with the processed_messages row for the same event(s).
+ * A transaction that stages more than {@code flushSize} distinct orders flushes early (still inside it).
+ * created_at is rewritten too: it is the order's place in its queue, and moves when the order goes to the back.
+ */
+@Component
+public class RestingOrderWriter {
+    private static final Logger log = LoggerFactory.getLogger(RestingOrderWriter.class);
+
+    private static final String UPSERT = """
+            INSERT INTO resting_orders (id, user_id, ticker, side, order_type, time_in_force, price, stop_price,
+                                        original_quantity, remaining_quantity, display_quantity, visible_quantity,
+                                        status, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, now())
+            ON CONFLICT (id) DO UPDATE
+               SET price = EXCLUDED.price,
+                   original_quantity = EXCLUDED.original_quantity,
+                   remaining_quantity = EXCLUDED.remaining_quantity,
+                   visible_quantity = EXCLUDED.visible_quantity,
+                   status = EXCLUDED.status,
+                   created_at = EXCLUDED.created_at,
+                   updated_at = now()
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final int flushSize;
+    private final EngineMetrics metrics;
+
+    public RestingOrderWriter(JdbcTemplate jdbc, EngineProps props, EngineMetrics metrics) {
+        this.jdbc = jdbc;
+        this.flushSize = props.getPersistence().getFlushSize();
+        this.metrics = metrics;
+    }
+
+    /** Records the current state of {@code ro}; the latest state per id wins. */
+    public void stage(RestingOrder ro) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // No surrounding transaction to ride on: write through
+            write(List.of(ro));
+            return;
+        }
+        Buffer buf = buffer();
+        buf.pending.put(ro.getId(), ro);
+        if (buf.pending.size() >= flushSize) buf.drain();
+    }
+
+    private Buffer buffer() {
+        Buffer buf = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buf == null) {
+            buf = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buf);
+            TransactionSynchronizationManager.registerSynchronization(buf);
+        }
+        return buf;
+    }
+
+    private void write(List<RestingOrder> rows) {
+        if (rows.isEmpty()) return;
+        long t0 = System.nanoTime();
+        jdbc.batchUpdate(UPSERT, rows, rows.size(), RestingOrderWriter::bind);
+        metrics.dbFlush(System.nanoTime() - t0, rows.size());
+        log.debug("Flushed {} resting order rows", rows.size());
+    }
+
+    private static void bind(PreparedStatement ps, RestingOrder ro) throws SQLException {
+        ps.setObject(1, ro.getId());
+        ps.setObject(2, ro.getUserId());
+        ps.setString(3, ro.getTicker());
+        ps.setString(4, ro.getSide().name());
+        ps.setString(5, ro.getOrderType().name());
+        ps.setString(6, ro.getTimeInForce().name());
+        ps.setBigDecimal(7, ro.getPrice());
+        ps.setBigDecimal(8, ro.getStopPrice());
+        ps.setBigDecimal(9, ro.getOriginalQuantity());
+        ps.setBigDecimal(10, ro.getRemainingQuantity());
+        ps.setBigDecimal(11, ro.getDisplayQuantity());
+        ps.setBigDecimal(12, ro.getVisibleQuantity());
+        ps.setString(13, ro.getStatus());
+        ps.setTimestamp(14, Timestamp.from(ro.getCreatedAt().toInstant()));
+    }
+
+    /** Per-transaction staging area, bound as a transaction resource. */
+    private final class Buffer implements TransactionSynchronization {
+        final Map<UUID, RestingOrder> pending = new LinkedHashMap<>();
+
+        void drain() {
+            write(new ArrayList<>(pending.values()));
+            pending.clear();
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) { drain(); }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(RestingOrderWriter.this);
+        }
+
+        // Ahead of trade publication, which runs last
+        @Override
+        public int getOrder() { return 0; }
+    }
+}
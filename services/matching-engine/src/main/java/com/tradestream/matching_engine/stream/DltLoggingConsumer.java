@@ -12,7 +12,8 @@ import org.springframework.stereotype.Component;
 public class DltLoggingConsumer {
 
   @KafkaListener(
-      topics = {"#{engineProps.orderPlaced}.DLT", "#{engineProps.orderCancelled}.DLT"},
+      topics = {"#{engineProps.topics.orderPlaced}.DLT", "#{engineProps.topics.orderCancelled}.DLT",
+                "#{engineProps.topics.orderAmended}.DLT"},
       groupId = "matching-engine-dlt-logger",
       containerFactory = "bytesKafkaListenerContainerFactory",
       properties = { "auto.offset.reset=latest" }
@@ -0,0 +1,106 @@
+package com.tradestream.matching_engine.stream;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tradestream.matching_engine.domain.ProcessedMessage;
+import com.tradestream.matching_engine.dto.OrderAmendedEvent;
+import com.tradestream.matching_engine.journal.EngineJournal;
+import com.tradestream.matching_engine.matching.MatchingSequencer;
+import com.tradestream.matching_engine.matching.MatchingService;
+import com.tradestream.matching_engine.persistence.DedupFilter;
+import com.tradestream.matching_engine.persistence.ProcessedMessageRepository;
+
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class OrderAmendedConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderAmendedConsumer.class);
+
+    private final MatchingService matchingService;
+    private final ProcessedMessageRepository msgRepo;
+    private final MatchingSequencer sequencer;
+    private final TransactionTemplate tx;
+    private final EngineJournal journal;
+    private final DedupFilter dedup;
+
+    @KafkaListener(
+        topics = "#{engineProps.topics.orderAmended}",
+        containerFactory = "kafkaListenerContainerFactory",
+        properties = {
+            "spring.json.value.default.type=com.tradestream.matching_engine.dto.OrderAmendedEvent",
+            "spring.json.trusted.packages=com.tradestream.*",
+            "spring.json.use.type.headers=false"
+        }
+    )
+    public void onMessage(ConsumerRecord<String, OrderAmendedEvent> rec, Acknowledgment ack) {
+        log.debug("AMEND CONSUMED topic={} key={} partition={} offset={} value={}",
+                rec.topic(), rec.key(), rec.partition(), rec.offset(), rec.value());
+
+        OrderAmendedEvent evt = rec.value();
+        UUID messageId = extractMessageId(rec, null);
+        if (messageId == null) {
+            String rid = rec.topic() + "|" + rec.partition() + "|" + rec.offset();
+            messageId = UUID.nameUUIDFromBytes(rid.getBytes(StandardCharsets.UTF_8));
+        }
+        final UUID msgId = messageId;
+
+        // Route to the shard owning the book; orders-service always sets ticker (and keys by it)
+        String ticker = evt.getTicker() != null ? evt.getTicker() : rec.key();
+        if (ticker == null && evt.getOrderId() != null) {
+            ticker = matchingService.tickerOf(evt.getOrderId()).orElse(null);
+        }
+        if (ticker == null) ticker = ""; // not in any book: nothing to amend, any shard will do
+        final String routedTicker = ticker;
+
+        sequencer.call(routedTicker, () -> tx.execute(status -> {
+            if (dedup.isDuplicate(rec.topic(), msgId, rec.timestamp(),
+                    () -> msgRepo.existsByTopicAndMessageId(rec.topic(), msgId))) {
+                log.debug("DUP topic={} messageId={} - skipping", rec.topic(), msgId);
+                return false;
+            }
+
+            if (evt.getOrderId() != null) {
+                log.debug("APPLYING AMEND orderId={} ticker={} qty={} price={}",
+                        evt.getOrderId(), evt.getTicker(), evt.getQuantity(), evt.getPrice());
+                journal.appendAmended(rec.topic(), msgId, evt.getOrderId(), routedTicker, evt.getPrice(), evt.getQuantity());
+                matchingService.amend(evt.getOrderId(), routedTicker, evt.getPrice(), evt.getQuantity());
+            } else {
+                log.warn("AMEND event missing orderId, ignoring");
+            }
+
+            msgRepo.save(ProcessedMessage.builder()
+                    .topic(rec.topic())
+                    .messageId(msgId)
+                    .receivedAt(OffsetDateTime.now())
+                    .build());
+            dedup.recordAfterCommit(rec.topic(), msgId);
+            return true;
+        }));
+
+        ack.acknowledge();
+    }
+
+    private UUID extractMessageId(ConsumerRecord<?, ?> rec, UUID fallback) {
+        var header = rec.headers().lastHeader("eventId");
+        if (header != null) {
+            try {
+                return UUID.fromString(new String(header.value()));
+            } catch (Exception e) {
+                log.warn("Invalid eventId header for record key={}, using fallback", rec.key(), e);
+            }
+        }
+        return fallback;
+    }
+}
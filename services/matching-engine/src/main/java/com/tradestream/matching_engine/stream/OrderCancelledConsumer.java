@@ -10,11 +10,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.tradestream.matching_engine.domain.ProcessedMessage;
 import com.tradestream.matching_engine.dto.OrderCancelledEvent;
+import com.tradestream.matching_engine.journal.EngineJournal;
+import com.tradestream.matching_engine.matching.MatchingSequencer;
 import com.tradestream.matching_engine.matching.MatchingService;
+import com.tradestream.matching_engine.persistence.DedupFilter;
 import com.tradestream.matching_engine.persistence.ProcessedMessageRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -27,9 +30,13 @@ public class OrderCancelledConsumer {
 
     private final MatchingService matchingService;
     private final ProcessedMessageRepository msgRepo;
+    private final MatchingSequencer sequencer;
+    private final TransactionTemplate tx;
+    private final EngineJournal journal;
+    private final DedupFilter dedup;
 
     @KafkaListener(
-        topics = "#{engineProps.orderCancelled}",
+        topics = "#{engineProps.topics.orderCancelled}",
         containerFactory = "kafkaListenerContainerFactory",
         properties = {
             "spring.json.value.default.type=com.tradestream.matching_engine.dto.OrderCancelledEvent",
@@ -37,9 +44,8 @@ public class OrderCancelledConsumer {
             "spring.json.use.type.headers=false"
         }
     )
-    @Transactional
     public void onMessage(ConsumerRecord<String, OrderCancelledEvent> rec, Acknowledgment ack) {
-        log.info("CANCEL CONSUMED topic={} key={} partition={} offset={} value={}",
+        log.debug("CANCEL CONSUMED topic={} key={} partition={} offset={} value={}",
                 rec.topic(), rec.key(), rec.partition(), rec.offset(), rec.value());
 
         OrderCancelledEvent evt = rec.value();
@@ -48,26 +54,40 @@ public class OrderCancelledConsumer {
             String rid = rec.topic() + "|" + rec.partition() + "|" + rec.offset();
             messageId = UUID.nameUUIDFromBytes(rid.getBytes(StandardCharsets.UTF_8));
         }
+        final UUID msgId = messageId;
 
-        if (msgRepo.existsByTopicAndMessageId(rec.topic(), messageId)) {
-            log.info("DUP topic={} messageId={} - skipping", rec.topic(), messageId);
-            ack.acknowledge();
-            return;
+        // Route to the shard owning the book; orders-service always sets ticker (and keys by it)
+        String ticker = evt.getTicker() != null ? evt.getTicker() : rec.key();
+        if (ticker == null && evt.getOrderId() != null) {
+            ticker = matchingService.tickerOf(evt.getOrderId()).orElse(null);
         }
+        if (ticker == null) ticker = ""; // not in any book: only the row is updated, any shard will do
+        final String routedTicker = ticker;
 
-        if (evt.getOrderId() != null) {
-            log.info("APPLYING CANCEL orderId={} ticker={} qty={} price={}",
-                    evt.getOrderId(), evt.getTicker(), evt.getQuantity(), evt.getPrice());
-            matchingService.cancel(evt.getOrderId());
-        } else {
-            log.warn("CANCEL event missing orderId, ignoring");
-        }
+        sequencer.call(routedTicker, () -> tx.execute(status -> {
+            if (dedup.isDuplicate(rec.topic(), msgId, rec.timestamp(),
+                    () -> msgRepo.existsByTopicAndMessageId(rec.topic(), msgId))) {
+                log.debug("DUP topic={} messageId={} - skipping", rec.topic(), msgId);
+                return false;
+            }
+
+            if (evt.getOrderId() != null) {
+                log.debug("APPLYING CANCEL orderId={} ticker={} qty={} price={}",
+                        evt.getOrderId(), evt.getTicker(), evt.getQuantity(), evt.getPrice());
+                journal.appendCancelled(rec.topic(), msgId, evt.getOrderId(), routedTicker);
+                matchingService.cancel(evt.getOrderId(), routedTicker);
+            } else {
+                log.warn("CANCEL event missing orderId, ignoring");
+            }
 
-        msgRepo.save(ProcessedMessage.builder()
-                .topic(rec.topic())
-                .messageId(messageId)
-                .receivedAt(OffsetDateTime.now())
-                .build());
+            msgRepo.save(ProcessedMessage.builder()
+                    .topic(rec.topic())
+                    .messageId(msgId)
+                    .receivedAt(OffsetDateTime.now())
+                    .build());
+            dedup.recordAfterCommit(rec.topic(), msgId);
+            return true;
+        }));
 
         ack.acknowledge();
     }
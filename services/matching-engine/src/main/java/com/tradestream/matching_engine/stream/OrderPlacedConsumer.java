@@ -3,67 +3,194 @@ package com.tradestream.matching_engine.stream;
 
 import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.tradestream.matching_engine.domain.ProcessedMessage;
 import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+import com.tradestream.matching_engine.journal.EngineJournal;
+import com.tradestream.matching_engine.matching.MatchingSequencer;
 import com.tradestream.matching_engine.matching.MatchingService;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
+import com.tradestream.matching_engine.persistence.DedupFilter;
 import com.tradestream.matching_engine.persistence.ProcessedMessageRepository;
+import com.tradestream.matching_engine.persistence.ProcessedMessageWriter;
 
 import lombok.RequiredArgsConstructor;
 
+/**
+ * Consumes order.placed a whole poll at a time.
+ * The dedup filter clears most of the poll in memory and one IN (...) query checks the rest; the new records are split by sequencer shard (keeping per-ticker order)
+ * and each shard matches its slice in a single transaction that also batch-inserts the ledger rows.
+ * The poll is acked once. If a record fails, everything before it in its shard is still committed (see runSlice) and
+ * the error handler is told its index, so redelivery resumes there and the rest dedups.
+ */
 @Component
 @RequiredArgsConstructor
 public class OrderPlacedConsumer {
-    
+
     private static final Logger log = LoggerFactory.getLogger(OrderPlacedConsumer.class);
-    
+
     private final MatchingService matchingService;
     private final ProcessedMessageRepository msgRepo;
+    private final ProcessedMessageWriter msgWriter;
+    private final MatchingSequencer sequencer;
+    private final TransactionTemplate tx;
+    private final EngineJournal journal;
+    private final DedupFilter dedup;
+    private final EngineMetrics metrics;
+
+    /** Outcome of one shard's slice: index (in the poll) of the record that failed, or -1. */
+    private record SliceResult(int failedAt, RuntimeException cause) {
+        static final SliceResult OK = new SliceResult(-1, null);
+    }
 
     @KafkaListener(
-        topics = "#{engineProps.orderPlaced}",
+        topics = "#{engineProps.topics.orderPlaced}",
         containerFactory = "kafkaListenerContainerFactory",
+        batch = "true",
         properties = {
             "spring.json.value.default.type=com.tradestream.matching_engine.dto.OrderPlacedEvent",
             "spring.json.trusted.packages=com.tradestream.*",
             "spring.json.use.type.headers=false"
         }
     )
-    @Transactional
-    public void onMessage(ConsumerRecord<String, OrderPlacedEvent> rec, Acknowledgment ack) {
-        OrderPlacedEvent evt = rec.value();
-        
-        UUID messageId = extractMessageId(rec, null);
-        if (messageId == null) {
-            String rid = rec.topic() + "|" + rec.partition() + "|" + rec.offset();
-            messageId = UUID.nameUUIDFromBytes(rid.getBytes(StandardCharsets.UTF_8));
+    public void onMessages(List<ConsumerRecord<String, OrderPlacedEvent>> recs, Acknowledgment ack) {
+        long receivedAt = System.nanoTime();
+        long nowMs = System.currentTimeMillis();
+        for (var rec : recs) metrics.recordAge(rec.timestamp(), nowMs);
+
+        // Records after an undeserializable/unroutable one wait for the error handler to deal with it
+        int limit = recs.size();
+        for (int i = 0; i < recs.size(); i++) {
+            OrderPlacedEvent evt = recs.get(i).value();
+            if (evt == null || evt.getTicker() == null) { limit = i; break; }
         }
 
-        if (msgRepo.existsByTopicAndMessageId(rec.topic(), messageId)) {
-            log.info("DUP topic={} messageId={} - skipping", rec.topic(), messageId);
-            ack.acknowledge();
-            return;
+        UUID[] ids = new UUID[limit];
+        for (int i = 0; i < limit; i++) ids[i] = messageId(recs.get(i));
+        Set<String> done = alreadyProcessed(recs, ids, limit);
+
+        Map<Integer, List<Integer>> slices = new LinkedHashMap<>();
+        for (int i = 0; i < limit; i++) {
+            var rec = recs.get(i);
+            if (!done.add(rec.topic() + "|" + ids[i])) { // also drops repeats within this poll
+                log.debug("DUP topic={} messageId={} - skipping", rec.topic(), ids[i]);
+                continue;
+            }
+            slices.computeIfAbsent(sequencer.shardOf(rec.value().getTicker()), s -> new ArrayList<>()).add(i);
         }
 
-        matchingService.handleIncoming(evt);
-        msgRepo.save(ProcessedMessage.builder()
-                .topic(rec.topic())
-                .messageId(messageId)
-                .receivedAt(OffsetDateTime.now())
-                .build());
+        List<CompletableFuture<SliceResult>> pending = new ArrayList<>(slices.size());
+        slices.forEach((shard, idx) -> pending.add(sequencer.submitToShard(shard, () -> runSlice(recs, ids, idx, receivedAt))));
 
+        int failedAt = limit;
+        RuntimeException cause = limit < recs.size()
+                ? new IllegalArgumentException("order.placed record without a usable value/ticker at offset "
+                        + recs.get(limit).offset())
+                : null;
+        for (var f : pending) {
+            SliceResult r = MatchingSequencer.await(f);
+            if (r.failedAt() >= 0 && r.failedAt() < failedAt) {
+                failedAt = r.failedAt();
+                cause = r.cause();
+            }
+        }
+        if (cause != null) {
+            throw new BatchListenerFailedException("order.placed batch failed at index " + failedAt, cause, failedAt);
+        }
         ack.acknowledge();
     }
 
+    /**
+     * Runs on the shard thread: matches the slice in order and commits it with its ledger rows.
+     * A record that fails rolls the whole transaction back (the matching service then rebuilds the books it
+     * touched from resting_orders), and the records before it are matched again in a fresh transaction.
+     */
+    private SliceResult runSlice(List<ConsumerRecord<String, OrderPlacedEvent>> recs, UUID[] ids, List<Integer> idx,
+                                 long receivedAt) {
+        int[] failedAt = { -1 }; // position in idx
+        RuntimeException[] cause = { null };
+        try {
+            tx.executeWithoutResult(status -> {
+                Map<String, List<UUID>> committed = new HashMap<>();
+                for (int n = 0; n < idx.size(); n++) {
+                    int i = idx.get(n);
+                    var rec = recs.get(i);
+                    try {
+                        OffsetDateTime arrivedAt = OffsetDateTime.now();
+                        journal.appendPlaced(rec.topic(), ids[i], rec.value(), arrivedAt);
+                        matchingService.handleIncoming(rec.value(), arrivedAt);
+                        metrics.consumeToMatch(System.nanoTime() - receivedAt);
+                    } catch (RuntimeException e) {
+                        // The failed call already doomed the transaction; roll back quietly and retry the prefix
+                        failedAt[0] = n;
+                        cause[0] = e;
+                        status.setRollbackOnly();
+                        return;
+                    }
+                    committed.computeIfAbsent(rec.topic(), t -> new ArrayList<>()).add(ids[i]);
+                }
+                committed.forEach((topic, list) -> {
+                    msgWriter.insertAll(topic, list);
+                    dedup.recordAfterCommit(topic, list);
+                });
+            });
+        } catch (RuntimeException e) {
+            // Nothing in this slice committed
+            return new SliceResult(idx.get(0), e);
+        }
+        if (failedAt[0] < 0) return SliceResult.OK;
+
+        int failed = idx.get(failedAt[0]);
+        log.warn("order.placed record at offset {} failed; re-running the {} record(s) before it in its shard",
+                recs.get(failed).offset(), failedAt[0]);
+        SliceResult prefix = failedAt[0] > 0
+                ? runSlice(recs, ids, idx.subList(0, failedAt[0]), receivedAt)
+                : SliceResult.OK;
+        return prefix.failedAt() >= 0 ? prefix : new SliceResult(failed, cause[0]);
+    }
+
+    private Set<String> alreadyProcessed(List<ConsumerRecord<String, OrderPlacedEvent>> recs, UUID[] ids, int limit) {
+        Set<String> done = new HashSet<>();
+        Map<String, List<UUID>> byTopic = new HashMap<>(); // only what the filter can't decide goes to the DB
+        for (int i = 0; i < limit; i++) {
+            String topic = recs.get(i).topic();
+            switch (dedup.check(topic, ids[i], recs.get(i).timestamp())) {
+                case NEW -> { }
+                case SEEN -> done.add(topic + "|" + ids[i]);
+                case MAYBE -> byTopic.computeIfAbsent(topic, t -> new ArrayList<>()).add(ids[i]);
+            }
+        }
+        byTopic.forEach((topic, list) ->
+                msgRepo.findExistingMessageIds(topic, list).forEach(id -> done.add(topic + "|" + id)));
+        return done;
+    }
+
+    private UUID messageId(ConsumerRecord<?, ?> rec) {
+        UUID messageId = extractMessageId(rec, null);
+        if (messageId == null) {
+            String rid = rec.topic() + "|" + rec.partition() + "|" + rec.offset();
+            messageId = UUID.nameUUIDFromBytes(rid.getBytes(StandardCharsets.UTF_8));
+        }
+        return messageId;
+    }
+
     private UUID extractMessageId(ConsumerRecord<?,?> rec, UUID fallback) {
         // Use header "eventId" if present; else fallback to orderId; ensures idempotency across retries.
         var header = rec.headers().lastHeader("eventId");
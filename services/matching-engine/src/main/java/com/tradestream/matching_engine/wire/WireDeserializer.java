@@ -0,0 +1,93 @@
+// wire/WireDeserializer.java
+package com.tradestream.matching_engine.wire;
+
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.dto.OrderAmendedEvent;
+import com.tradestream.matching_engine.dto.OrderCancelledEvent;
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+
+/**
+ * Value deserializer that reads both formats: {@link WireFormat} binary when the content-type header says so,
+ * otherwise the usual JsonDeserializer (configured by the same spring.json.* properties as before).
+ */
+public class WireDeserializer implements Deserializer<Object> {
+    private final JsonDeserializer<Object> json = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return json.deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) return null;
+        if (!WireFormat.isBinary(headers)) return json.deserialize(topic, headers, data);
+        try {
+            return decode(new WireFormat.Reader(data));
+        } catch (SerializationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new SerializationException("Malformed binary record on " + topic, e);
+        }
+    }
+
+    private static Object decode(WireFormat.Reader in) {
+        switch (in.type()) {
+            case WireFormat.ORDER_PLACED: {
+                return OrderPlacedEvent.builder()
+                        .orderId(in.uuid())
+                        .userId(in.uuid())
+                        .ticker(in.string())
+                        .side(in.enumName(OrderSide.class))
+                        .orderType(in.enumName(OrderType.class))
+                        .timeInForce(in.enumName(TimeInForce.class))
+                        .price(in.decimal())
+                        .quantity(in.decimal())
+                        .timestamp(in.instant())
+                        .stopPrice(in.decimal())
+                        .displayQuantity(in.decimal())
+                        .build();
+            }
+            case WireFormat.ORDER_CANCELLED: {
+                return OrderCancelledEvent.builder()
+                        .orderId(in.uuid())
+                        .userId(in.uuid())
+                        .ticker(in.string())
+                        .quantity(in.decimal())
+                        .price(in.decimal())
+                        .timestamp(in.instant())
+                        .build();
+            }
+            case WireFormat.ORDER_AMENDED: {
+                return OrderAmendedEvent.builder()
+                        .orderId(in.uuid())
+                        .userId(in.uuid())
+                        .ticker(in.string())
+                        .price(in.decimal())
+                        .quantity(in.decimal())
+                        .timestamp(in.instant())
+                        .build();
+            }
+            default:
+                throw new SerializationException("Unexpected binary record type " + in.type());
+        }
+    }
+
+    @Override
+    public void close() { json.close(); }
+}
@@ -0,0 +1,2 @@
+-- Lazy book hydration loads one ticker's live orders, in arrival order, on first use
+CREATE INDEX IF NOT EXISTS ix_resting_orders_ticker_status ON resting_orders(ticker, status, created_at);
@@ -0,0 +1,2 @@
+-- Trigger price of STOP / STOP_LIMIT orders; armed stops are stored with status PENDING
+ALTER TABLE resting_orders ADD COLUMN IF NOT EXISTS stop_price NUMERIC(18,8);
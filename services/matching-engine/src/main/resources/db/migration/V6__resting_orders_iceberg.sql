@@ -0,0 +1,3 @@
+-- Iceberg orders: peak shown at a time and what is left of the current slice (both null otherwise)
+ALTER TABLE resting_orders ADD COLUMN IF NOT EXISTS display_quantity NUMERIC(18,8);
+ALTER TABLE resting_orders ADD COLUMN IF NOT EXISTS visible_quantity NUMERIC(18,8);
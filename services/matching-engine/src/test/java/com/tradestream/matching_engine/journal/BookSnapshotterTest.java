@@ -0,0 +1,131 @@
+package com.tradestream.matching_engine.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.RestingOrder;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+import com.tradestream.matching_engine.dto.TradeExecutedEvent;
+import com.tradestream.matching_engine.matching.MatchingSequencer;
+import com.tradestream.matching_engine.matching.MatchingService;
+import com.tradestream.matching_engine.matching.TickScales;
+import com.tradestream.matching_engine.matching.TradePublisher;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
+import com.tradestream.matching_engine.persistence.RestingOrderRepository;
+import com.tradestream.matching_engine.persistence.RestingOrderWriter;
+
+/** Snapshots written by the shard threads of a running sequencer; rows and trades go nowhere. */
+class BookSnapshotterTest {
+
+    @TempDir
+    Path dir;
+
+    private EngineJournal journal;
+    private MatchingSequencer sequencer;
+    private MatchingService matching;
+    private BookSnapshotter snapshotter;
+    private long clock;
+
+    @BeforeEach
+    void setUp() {
+        EngineProps props = new EngineProps();
+        props.getInstruments().setDefaultTickSize(new BigDecimal("0.01"));
+        props.getInstruments().setDefaultLotSize(BigDecimal.ONE);
+        props.getSequencer().setShards(2);
+        props.getBooks().setLazyLoad(false);
+        props.getJournal().setDir(dir.toString());
+        props.getJournal().setFsync(false);
+        props.getJournal().setSegmentSize(1 << 20);
+        EngineMetrics metrics = new EngineMetrics(new SimpleMeterRegistry());
+        RestingOrderWriter writer = new RestingOrderWriter(null, props, metrics) {
+            @Override
+            public void stage(RestingOrder ro) { }
+        };
+        TradePublisher publisher = new TradePublisher(null, props, metrics) {
+            @Override
+            public void publish(TradeExecutedEvent event, String key) { }
+        };
+        journal = new EngineJournal(props);
+        sequencer = new MatchingSequencer(props);
+        sequencer.start();
+        matching = new MatchingService(mock(RestingOrderRepository.class), writer, publisher, new TickScales(props),
+                sequencer, props, metrics);
+        snapshotter = new BookSnapshotter(journal, matching, sequencer, props);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sequencer.stop();
+    }
+
+    /** Journals and matches one order on its ticker's shard, as the consumers do. */
+    private OrderPlacedEvent place(String ticker, OrderSide side, long qty) {
+        var e = OrderPlacedEvent.builder()
+                .orderId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .ticker(ticker)
+                .side(side)
+                .orderType(OrderType.LIMIT)
+                .timeInForce(TimeInForce.GTC)
+                .price(new BigDecimal("100.00"))
+                .quantity(BigDecimal.valueOf(qty))
+                .build();
+        OffsetDateTime at = Instant.ofEpochSecond(++clock).atOffset(ZoneOffset.UTC);
+        sequencer.call(ticker, () -> {
+            journal.appendPlaced("order.placed.v1", UUID.randomUUID(), e, at);
+            return matching.handleIncoming(e, at);
+        });
+        return e;
+    }
+
+    @Test
+    void roundTripsRestingOrdersInBookOrder() {
+        var first = place("AAPL", OrderSide.SELL, 5);
+        var second = place("AAPL", OrderSide.SELL, 3);
+
+        snapshotter.snapshot();
+        var snap = snapshotter.loadLatest().orElseThrow();
+
+        assertThat(snap.orders()).extracting(RestingOrder::getId)
+                .containsExactly(first.getOrderId(), second.getOrderId());
+        RestingOrder ro = snap.orders().get(1);
+        assertThat(ro.getTicker()).isEqualTo("AAPL");
+        assertThat(ro.getRemainingQuantity()).isEqualByComparingTo("3");
+        assertThat(ro.getPrice()).isEqualByComparingTo("100.00");
+        assertThat(ro.getCreatedAt().toEpochSecond()).isEqualTo(2);
+        assertThat(snap.lastSeqByTicker()).containsEntry("AAPL", journal.lastSeqFor("AAPL"));
+    }
+
+    @Test
+    void emptiedBookKeepsItsLastSequence() {
+        place("AAPL", OrderSide.SELL, 5);
+        place("AAPL", OrderSide.BUY, 5); // trades the book empty
+        place("MSFT", OrderSide.SELL, 1);
+        long aaplSeq = journal.lastSeqFor("AAPL");
+
+        snapshotter.snapshot();
+        var snap = snapshotter.loadLatest().orElseThrow();
+
+        // Without it recovery would replay AAPL's records past upTo onto an empty book
+        assertThat(snap.lastSeqByTicker()).containsEntry("AAPL", aaplSeq).containsKey("MSFT");
+        assertThat(snap.orders()).extracting(RestingOrder::getTicker).containsExactly("MSFT");
+    }
+}
@@ -0,0 +1,72 @@
+package com.tradestream.matching_engine.matching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.RestingOrder;
+import com.tradestream.matching_engine.domain.TimeInForce;
+
+/** Pooled order slots and the row they materialize at the persistence boundary. */
+class BookOrderTest {
+
+    private final TickScale sc = new TickScale("TEST", new BigDecimal("0.01"), new BigDecimal("0.1"));
+    private final OrderBook book = new OrderBook(sc);
+
+    private BookOrder order(OrderType type, long price, long original, long remaining) {
+        return book.acquire().set(UUID.randomUUID(), UUID.randomUUID(), "TEST", OrderSide.BUY, type,
+                TimeInForce.GTC, price, original, remaining, 1_500_000);
+    }
+
+    @Test
+    void releasedSlotIsHandedOutAgainWithNothingLeftInIt() {
+        BookOrder o = order(OrderType.STOP_LIMIT, 100_00, 10, 10).arm(101_00).iceberg(4);
+        book.release(o);
+
+        assertThat(o.id()).isNull();
+        assertThat(o.ticker()).isNull();
+        BookOrder again = book.acquire();
+        assertThat(again).isSameAs(o);
+        assertThat(book.acquire()).isNotSameAs(o); // pool is empty again
+
+        again.set(UUID.randomUUID(), UUID.randomUUID(), "TEST", OrderSide.SELL, OrderType.LIMIT, TimeInForce.GTC,
+                100_00, 5, 5, 0);
+        assertThat(again.armed()).isFalse();
+        assertThat(again.peak()).isZero();
+        assertThat(again.shown()).isEqualTo(5);
+    }
+
+    @Test
+    void statusFollowsFromTheQuantities() {
+        assertThat(order(OrderType.LIMIT, 100_00, 10, 10).status()).isEqualTo("ACTIVE");
+        assertThat(order(OrderType.LIMIT, 100_00, 10, 3).status()).isEqualTo("PARTIALLY_FILLED");
+        assertThat(order(OrderType.LIMIT, 100_00, 10, 0).status()).isEqualTo("FILLED");
+        assertThat(order(OrderType.STOP, 0, 10, 10).arm(99_00).status()).isEqualTo("PENDING");
+    }
+
+    @Test
+    void entityCarriesScaledValuesOnly() {
+        BookOrder o = order(OrderType.LIMIT, 100_25, 30, 12).iceberg(5);
+
+        RestingOrder row = o.toEntity(sc);
+
+        assertThat(row.getPrice()).isEqualByComparingTo("100.25");
+        assertThat(row.getStopPrice()).isNull();
+        assertThat(row.getOriginalQuantity()).isEqualByComparingTo("3");
+        assertThat(row.getRemainingQuantity()).isEqualByComparingTo("1.2");
+        assertThat(row.getDisplayQuantity()).isEqualByComparingTo("0.5");
+        assertThat(row.getVisibleQuantity()).isEqualByComparingTo("0.5");
+        assertThat(row.getStatus()).isEqualTo("PARTIALLY_FILLED");
+        assertThat(row.getCreatedAt()).isEqualTo(OffsetDateTime.of(1970, 1, 1, 0, 0, 1, 500_000_000, ZoneOffset.UTC));
+
+        BookOrder market = order(OrderType.MARKET, OrderBook.marketLimit(OrderSide.BUY), 10, 10);
+        assertThat(market.toEntity(sc, "CANCELED").getPrice()).isNull();
+    }
+}
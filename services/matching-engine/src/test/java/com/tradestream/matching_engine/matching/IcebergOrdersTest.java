@@ -0,0 +1,107 @@
+package com.tradestream.matching_engine.matching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+
+/** Icebergs: one slice on display at a time, refilled from the reserve at the back of the level. */
+class IcebergOrdersTest extends MatchingTestSupport {
+
+    private static OrderPlacedEvent iceberg(OrderSide side, String price, long qty, long display) {
+        var e = limit(side, price, qty);
+        e.setDisplayQuantity(BigDecimal.valueOf(display));
+        return e;
+    }
+
+    @Test
+    void usedUpSliceRefillsAtTheBackOfTheBook() {
+        OrderBook book = new OrderBook(new TickScale(TICKER, new BigDecimal("0.01"), BigDecimal.ONE));
+        BookOrder iceberg = book.acquire().set(UUID.randomUUID(), UUID.randomUUID(), TICKER, OrderSide.SELL,
+                OrderType.LIMIT, TimeInForce.GTC, 100_00, 10, 10, 0).iceberg(4);
+        BookOrder plain = book.acquire().set(UUID.randomUUID(), UUID.randomUUID(), TICKER, OrderSide.SELL,
+                OrderType.LIMIT, TimeInForce.GTC, 100_00, 3, 3, 0);
+        book.add(iceberg);
+        book.add(plain);
+        assertThat(book.displayedLots(OrderSide.SELL)).isEqualTo(7);
+        assertThat(book.canFill(100_00, OrderSide.BUY, 13)).isTrue(); // hidden reserve counts for FOK
+        assertThat(book.canFill(100_00, OrderSide.BUY, 14)).isFalse();
+
+        BookOrder top = book.pollOpp(OrderSide.BUY);
+        top.remaining -= 4;
+        top.visible -= 4;
+        book.requeueOpp(top);
+
+        List<UUID> ids = new ArrayList<>();
+        book.forEachOrder(o -> ids.add(o.id()));
+        assertThat(ids).containsExactly(plain.id(), iceberg.id());
+        assertThat(iceberg.visible()).isEqualTo(4);
+        assertThat(book.displayedLots(OrderSide.SELL)).isEqualTo(7);
+    }
+
+    @Test
+    void tradesOneSliceAtATimeAndRefillsAtTheBack() {
+        var iceberg = place(iceberg(OrderSide.SELL, "100.00", 10, 4));
+        var plain = place(limit(OrderSide.SELL, "100.00", 5));
+        assertThat(book().displayedLots(OrderSide.SELL)).isEqualTo(9);
+
+        var buy = place(limit(OrderSide.BUY, "100.00", 6));
+
+        assertThat(trades).hasSize(2);
+        assertTrade(trades.get(0), buy, iceberg, "100.00", 4);
+        assertTrade(trades.get(1), buy, plain, "100.00", 2);
+        assertThat(resting()).containsExactly(rest(plain, 3), rest(iceberg, 6));
+        assertThat(book().displayedLots(OrderSide.SELL)).isEqualTo(7);
+        assertThat(rows.get(iceberg.getOrderId()).getVisibleQuantity()).isEqualByComparingTo("4");
+    }
+
+    @Test
+    void icebergThatTradesOnArrivalShowsAtMostWhatIsLeft() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 7));
+        var buy = place(iceberg(OrderSide.BUY, "100.00", 10, 4));
+
+        assertTrade(trades.get(0), buy, sell, "100.00", 7);
+        assertThat(resting()).containsExactly(rest(buy, 3));
+        assertThat(book().displayedLots(OrderSide.BUY)).isEqualTo(3);
+    }
+
+    @Test
+    void rebuiltBookShowsTheCurrentSlice() {
+        props.getBooks().setLazyLoad(true);
+        matching = newService();
+        var iceberg = place(iceberg(OrderSide.SELL, "100.00", 10, 4));
+        place(limit(OrderSide.BUY, "100.00", 5)); // uses up one slice and one lot of the next
+
+        evictAndRehydrate();
+
+        BookOrder rebuilt = book().get(iceberg.getOrderId());
+        assertThat(rebuilt.remaining()).isEqualTo(5);
+        assertThat(rebuilt.visible()).isEqualTo(3);
+        assertThat(book().displayedLots(OrderSide.SELL)).isEqualTo(3);
+    }
+
+    @Test
+    void rebuiltBookKeepsARefilledSliceBehindLaterArrivals() {
+        props.getBooks().setLazyLoad(true);
+        matching = newService();
+        var iceberg = place(iceberg(OrderSide.SELL, "100.00", 10, 4));
+        var early = place(limit(OrderSide.SELL, "100.00", 5));
+        place(limit(OrderSide.BUY, "100.00", 4)); // uses up the slice: the iceberg goes behind 'early'
+        var late = place(limit(OrderSide.SELL, "100.00", 5));
+        List<String> live = resting();
+        assertThat(live).containsExactly(rest(early, 5), rest(iceberg, 6), rest(late, 5));
+
+        evictAndRehydrate();
+
+        assertThat(resting()).isEqualTo(live);
+    }
+}
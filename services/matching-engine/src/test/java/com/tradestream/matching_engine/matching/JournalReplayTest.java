@@ -0,0 +1,63 @@
+package com.tradestream.matching_engine.matching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+import com.tradestream.matching_engine.journal.EngineJournal;
+import com.tradestream.matching_engine.journal.JournalRecord;
+
+/** Commands read back from the journal and replayed rebuild the book the live run left. */
+class JournalReplayTest extends MatchingTestSupport {
+
+    @Test
+    void replayRebuildsTheSameBookWithoutSideEffects(@TempDir Path dir) {
+        props.getJournal().setDir(dir.toString());
+        props.getJournal().setFsync(false);
+        props.getJournal().setSegmentSize(1 << 20);
+        EngineJournal journal = new EngineJournal(props);
+
+        var iceberg = limit(OrderSide.SELL, "100.00", 10);
+        iceberg.setDisplayQuantity(BigDecimal.valueOf(4));
+        List<OrderPlacedEvent> commands = List.of(iceberg,
+                limit(OrderSide.SELL, "100.00", 5), limit(OrderSide.SELL, "101.00", 5),
+                limit(OrderSide.BUY, "100.00", 6), limit(OrderSide.BUY, "99.00", 3),
+                limit(OrderSide.BUY, "101.00", 8, TimeInForce.IOC));
+        for (OrderPlacedEvent e : commands) {
+            OffsetDateTime at = arrival();
+            journal.appendPlaced("order.placed.v1", UUID.randomUUID(), e, at);
+            matching.handleIncoming(e, at);
+        }
+        List<String> live = resting();
+
+        trades.clear();
+        rows.clear();
+        matching = newService();
+        List<JournalRecord> records = new ArrayList<>();
+        journal.read(1, records::add);
+        assertThat(records).hasSize(commands.size());
+        for (JournalRecord r : records) {
+            var p = (JournalRecord.Placed) r.command();
+            var at = Instant.EPOCH.plus(p.arrivedAtMicros(), ChronoUnit.MICROS).atOffset(ZoneOffset.UTC);
+            matching.replayIncoming(p.event(), at);
+        }
+
+        assertThat(resting()).isEqualTo(live);
+        assertThat(trades).isEmpty();
+        assertThat(rows).isEmpty();
+    }
+}
@@ -0,0 +1,203 @@
+package com.tradestream.matching_engine.matching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+import com.tradestream.matching_engine.dto.TradeExecutedEvent;
+
+/** Price-time matching through {@link MatchingService}; see {@link MatchingTestSupport} for the fixture. */
+class MatchingServiceTest extends MatchingTestSupport {
+
+    // ---- matching ----
+
+    @Test
+    void fillsBestPriceFirstThenByArrival() {
+        var far = place(limit(OrderSide.SELL, "101.00", 5));
+        var first = place(limit(OrderSide.SELL, "100.00", 5));
+        var second = place(limit(OrderSide.SELL, "100.00", 5));
+
+        var buy = place(limit(OrderSide.BUY, "101.00", 12));
+
+        assertThat(trades).hasSize(3);
+        assertTrade(trades.get(0), buy, first, "100.00", 5);
+        assertTrade(trades.get(1), buy, second, "100.00", 5);
+        assertTrade(trades.get(2), buy, far, "101.00", 2);
+        assertThat(resting()).containsExactly(rest(far, 3));
+    }
+
+    @Test
+    void partialFillLeavesTheRestResting() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 10));
+        var buy = place(limit(OrderSide.BUY, "100.00", 4));
+
+        assertThat(trades).hasSize(1);
+        assertTrade(trades.get(0), buy, sell, "100.00", 4);
+        assertThat(resting()).containsExactly(rest(sell, 6));
+        assertThat(rows.get(sell.getOrderId()).getStatus()).isEqualTo("PARTIALLY_FILLED");
+        assertThat(rows).doesNotContainKey(buy.getOrderId()); // filled on arrival: never had a row
+    }
+
+    @Test
+    void tradeCarriesEachSidesOwnerWhicheverSideAggresses() {
+        var restingBuy = place(limit(OrderSide.BUY, "100.00", 5));
+        var sellAggressor = place(limit(OrderSide.SELL, "100.00", 2));
+        var restingSell = place(limit(OrderSide.SELL, "101.00", 5));
+        var buyAggressor = place(limit(OrderSide.BUY, "101.00", 4));
+
+        assertThat(trades).hasSize(2);
+        assertThat(trades.get(0).getBuyUserId()).isEqualTo(restingBuy.getUserId());
+        assertThat(trades.get(0).getSellUserId()).isEqualTo(sellAggressor.getUserId());
+        assertThat(trades.get(1).getBuyUserId()).isEqualTo(buyAggressor.getUserId());
+        assertThat(trades.get(1).getSellUserId()).isEqualTo(restingSell.getUserId());
+        assertThat(restingBuy.getUserId()).isNotEqualTo(sellAggressor.getUserId());
+    }
+
+    @Test
+    void limitThatDoesNotCrossRests() {
+        var sell = place(limit(OrderSide.SELL, "100.01", 5));
+        var buy = place(limit(OrderSide.BUY, "100.00", 5));
+
+        assertThat(trades).isEmpty();
+        assertThat(resting()).containsExactly(rest(buy, 5), rest(sell, 5));
+    }
+
+    @Test
+    void fokTradesOnlyWhenItCanFillCompletely() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 5));
+
+        place(limit(OrderSide.BUY, "100.00", 6, TimeInForce.FOK));
+        assertThat(trades).isEmpty();
+        assertThat(resting()).containsExactly(rest(sell, 5));
+
+        var fok = place(limit(OrderSide.BUY, "100.00", 5, TimeInForce.FOK));
+        assertThat(trades).hasSize(1);
+        assertTrade(trades.get(0), fok, sell, "100.00", 5);
+        assertThat(resting()).isEmpty();
+    }
+
+    @Test
+    void iocCancelsWhatItCannotFill() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 5));
+        var ioc = place(limit(OrderSide.BUY, "100.00", 8, TimeInForce.IOC));
+
+        assertThat(trades).hasSize(1);
+        assertTrade(trades.get(0), ioc, sell, "100.00", 5);
+        assertThat(resting()).isEmpty();
+    }
+
+    @Test
+    void marketRemainderIsCanceled() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 5));
+        var market = place(event(OrderSide.BUY, OrderType.MARKET, TimeInForce.GTC, null, 8));
+
+        assertThat(trades).hasSize(1);
+        assertTrade(trades.get(0), market, sell, "100.00", 5);
+        assertThat(resting()).isEmpty();
+    }
+
+    @Test
+    void priceOffTheTickGridIsRejectedBeforeTouchingTheBook() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 5));
+
+        assertThatThrownBy(() -> place(limit(OrderSide.BUY, "100.005", 5)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(trades).isEmpty();
+        assertThat(resting()).containsExactly(rest(sell, 5));
+    }
+
+    @Test
+    void placedOrderAlreadyWorkingIsRejected() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 5));
+
+        assertThatThrownBy(() -> place(sell)).isInstanceOf(IllegalStateException.class);
+        assertThat(resting()).containsExactly(rest(sell, 5));
+    }
+
+    @Test
+    void cancelTakesTheOrderOutOfItsQueue() {
+        var first = place(limit(OrderSide.SELL, "100.00", 5));
+        var second = place(limit(OrderSide.SELL, "100.00", 5));
+
+        matching.cancel(first.getOrderId(), TICKER);
+
+        assertThat(resting()).containsExactly(rest(second, 5));
+        assertThat(rows.get(first.getOrderId()).getStatus()).isEqualTo("CANCELED");
+        var buy = place(limit(OrderSide.BUY, "100.00", 5));
+        assertTrade(trades.get(0), buy, second, "100.00", 5);
+    }
+
+    @Test
+    void cancelOfAnOrderNotInTheBookOnlyUpdatesItsRow() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 5));
+        place(limit(OrderSide.BUY, "100.00", 5));
+
+        matching.cancel(sell.getOrderId(), TICKER);
+
+        verify(repo).updateStatus(sell.getOrderId(), "CANCELED");
+        assertThat(resting()).isEmpty();
+    }
+
+    // ---- trade ids and rollback ----
+
+    @Test
+    void sameCommandsGiveTheSameTradeIds() {
+        List<OrderPlacedEvent> commands = List.of(
+                limit(OrderSide.SELL, "100.00", 5), limit(OrderSide.SELL, "100.00", 5),
+                limit(OrderSide.BUY, "100.00", 3), limit(OrderSide.BUY, "100.00", 3),
+                limit(OrderSide.BUY, "100.00", 3));
+        commands.forEach(this::place);
+        List<UUID> firstRun = trades.stream().map(TradeExecutedEvent::getTradeId).toList();
+
+        trades.clear();
+        rows.clear();
+        matching = newService();
+        commands.forEach(this::place);
+
+        assertThat(firstRun).hasSize(4).doesNotHaveDuplicates();
+        assertThat(trades.stream().map(TradeExecutedEvent::getTradeId).toList()).isEqualTo(firstRun);
+    }
+
+    @Test
+    void rolledBackTransactionRebuildsTheBooksItTouched() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 10));
+
+        TransactionSynchronizationManager.initSynchronization();
+        place(limit(OrderSide.BUY, "100.00", 4));
+        place(limit(OrderSide.SELL, "100.50", 2));
+        assertThat(resting()).hasSize(2);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(resting()).containsExactly(rest(sell, 10));
+    }
+
+    @Test
+    void committedTransactionKeepsTheBooks() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 10));
+
+        TransactionSynchronizationManager.initSynchronization();
+        place(limit(OrderSide.BUY, "100.00", 4));
+        rows.putAll(staged);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(resting()).containsExactly(rest(sell, 6));
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        syncs.forEach(s -> s.afterCompletion(status));
+        staged.clear();
+    }
+}
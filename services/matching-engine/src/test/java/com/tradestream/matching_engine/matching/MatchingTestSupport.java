@@ -0,0 +1,154 @@
+package com.tradestream.matching_engine.matching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.RestingOrder;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+import com.tradestream.matching_engine.dto.TradeExecutedEvent;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
+import com.tradestream.matching_engine.persistence.RestingOrderRepository;
+import com.tradestream.matching_engine.persistence.RestingOrderWriter;
+
+/**
+ * {@link MatchingService} without Postgres or Kafka: resting_orders is a map (rows staged inside a
+ * transaction only land when the test commits it), trades are collected in a list. Tick 0.01, lot 1,
+ * one shard, eager books; a test that changes {@link #props} calls {@link #newService()} again.
+ */
+abstract class MatchingTestSupport {
+    static final String TICKER = "TEST";
+    private static final Set<String> ACTIVE = Set.of("ACTIVE", "PARTIALLY_FILLED", "PENDING");
+
+    final Map<UUID, RestingOrder> rows = new HashMap<>();
+    final Map<UUID, RestingOrder> staged = new HashMap<>();
+    final List<TradeExecutedEvent> trades = new ArrayList<>();
+    EngineProps props;
+    RestingOrderRepository repo;
+    MatchingService matching;
+    private long clock;
+
+    @BeforeEach
+    void setUpService() {
+        props = new EngineProps();
+        props.getInstruments().setDefaultTickSize(new BigDecimal("0.01"));
+        props.getInstruments().setDefaultLotSize(BigDecimal.ONE);
+        props.getSequencer().setShards(1);
+        props.getBooks().setLazyLoad(false);
+        matching = newService();
+    }
+
+    @AfterEach
+    void clearTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /** A fresh service (empty books) over the same rows, as after a restart. */
+    MatchingService newService() {
+        EngineMetrics metrics = new EngineMetrics(new SimpleMeterRegistry());
+        RestingOrderWriter writer = new RestingOrderWriter(null, props, metrics) {
+            @Override
+            public void stage(RestingOrder ro) {
+                (TransactionSynchronizationManager.isSynchronizationActive() ? staged : rows).put(ro.getId(), ro);
+            }
+        };
+        TradePublisher publisher = new TradePublisher(null, props, metrics) {
+            @Override
+            public void publish(TradeExecutedEvent event, String key) { trades.add(event); }
+        };
+        repo = mock(RestingOrderRepository.class);
+        when(repo.findActiveByTicker(anyString())).thenAnswer(inv -> rows.values().stream()
+                .filter(ro -> ro.getTicker().equals(inv.getArgument(0)) && ACTIVE.contains(ro.getStatus()))
+                .sorted(Comparator.comparing(RestingOrder::getCreatedAt))
+                .toList());
+        return new MatchingService(repo, writer, publisher, new TickScales(props), new MatchingSequencer(props),
+                props, metrics);
+    }
+
+    static OrderPlacedEvent limit(OrderSide side, String price, long qty, TimeInForce tif) {
+        return event(side, OrderType.LIMIT, tif, price, qty);
+    }
+
+    static OrderPlacedEvent limit(OrderSide side, String price, long qty) {
+        return limit(side, price, qty, TimeInForce.GTC);
+    }
+
+    static OrderPlacedEvent event(OrderSide side, OrderType type, TimeInForce tif, String price, long qty) {
+        return OrderPlacedEvent.builder()
+                .orderId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .ticker(TICKER)
+                .side(side)
+                .orderType(type)
+                .timeInForce(tif)
+                .price(price != null ? new BigDecimal(price) : null)
+                .quantity(BigDecimal.valueOf(qty))
+                .build();
+    }
+
+    /** Distinct, increasing arrival times, so hydration from rows restores the same queue order. */
+    OffsetDateTime arrival() {
+        return Instant.EPOCH.plus(++clock, ChronoUnit.SECONDS).atOffset(ZoneOffset.UTC);
+    }
+
+    OrderPlacedEvent place(OrderPlacedEvent e) {
+        matching.handleIncoming(e, arrival());
+        return e;
+    }
+
+    /** Lazy books only: drops the book as an idle eviction would, then has a no-op command rebuild it from rows. */
+    void evictAndRehydrate() {
+        assertThat(matching.evictIdle(0, -1)).isEqualTo(1);
+        matching.amend(UUID.randomUUID(), TICKER, null, BigDecimal.ONE); // unknown order: only hydrates the book
+    }
+
+    OrderBook book() {
+        OrderBook[] found = { null };
+        matching.forEachBook(0, (ticker, b) -> { if (ticker.equals(TICKER)) found[0] = b; });
+        return found[0];
+    }
+
+    /** Resting orders as "id:remaining", bids then asks, best price first and FIFO within a level. */
+    List<String> resting() {
+        List<String> out = new ArrayList<>();
+        book().forEachOrder(o -> out.add(o.id() + ":" + o.remaining()));
+        return out;
+    }
+
+    static String rest(OrderPlacedEvent e, long remaining) { return e.getOrderId() + ":" + remaining; }
+
+    static void assertTrade(TradeExecutedEvent t, OrderPlacedEvent buy, OrderPlacedEvent sell, String price, long qty) {
+        assertThat(t.getBuyOrderId()).isEqualTo(buy.getOrderId());
+        assertThat(t.getSellOrderId()).isEqualTo(sell.getOrderId());
+        assertThat(t.getBuyUserId()).isEqualTo(buy.getUserId());
+        assertThat(t.getSellUserId()).isEqualTo(sell.getUserId());
+        assertThat(t.getPrice()).isEqualByComparingTo(price);
+        assertThat(t.getQuantity()).isEqualByComparingTo(BigDecimal.valueOf(qty));
+    }
+}
@@ -0,0 +1,108 @@
+package com.tradestream.matching_engine.matching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.RestingOrder;
+import com.tradestream.matching_engine.domain.TimeInForce;
+
+/** In-place amend: keeps time priority only for less quantity at the same price. */
+class OrderAmendTest extends MatchingTestSupport {
+
+    @Test
+    void lessQuantityAtSamePriceKeepsQueuePosition() {
+        var first = place(limit(OrderSide.SELL, "100.00", 10));
+        var second = place(limit(OrderSide.SELL, "100.00", 10));
+
+        matching.amend(first.getOrderId(), TICKER, null, BigDecimal.valueOf(6));
+        assertThat(resting()).containsExactly(rest(first, 6), rest(second, 10));
+
+        var buy = place(limit(OrderSide.BUY, "100.00", 6));
+        assertTrade(trades.get(0), buy, first, "100.00", 6);
+    }
+
+    @Test
+    void moreQuantityOrNewPriceReentersAtTheBack() {
+        var first = place(limit(OrderSide.SELL, "100.00", 10));
+        var second = place(limit(OrderSide.SELL, "100.00", 10));
+
+        matching.amend(first.getOrderId(), TICKER, null, BigDecimal.valueOf(15));
+        assertThat(resting()).containsExactly(rest(second, 10), rest(first, 15));
+
+        matching.amend(second.getOrderId(), TICKER, new BigDecimal("99.00"), null);
+        assertThat(resting()).containsExactly(rest(second, 10), rest(first, 15));
+        assertThat(book().peekBest(OrderSide.BUY).orElseThrow().price()).isEqualTo(99_00);
+    }
+
+    @Test
+    void newPriceThatCrossesMatches() {
+        var sell = place(limit(OrderSide.SELL, "101.00", 5));
+        var buy = place(limit(OrderSide.BUY, "100.00", 5));
+
+        matching.amend(buy.getOrderId(), TICKER, new BigDecimal("101.00"), null);
+
+        assertThat(trades).hasSize(1);
+        assertTrade(trades.get(0), buy, sell, "101.00", 5);
+        assertThat(resting()).isEmpty();
+    }
+
+    @Test
+    void newTotalAtWhatAlreadyTradedClosesTheOrder() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 10));
+        place(limit(OrderSide.BUY, "100.00", 4));
+
+        matching.amend(sell.getOrderId(), TICKER, null, BigDecimal.valueOf(3));
+
+        assertThat(resting()).isEmpty();
+        RestingOrder row = rows.get(sell.getOrderId());
+        assertThat(row.getStatus()).isEqualTo("FILLED");
+        assertThat(row.getOriginalQuantity()).isEqualByComparingTo("4");
+    }
+
+    @Test
+    void armedStopTakesTheNewTriggerWithoutEnteringTheBook() {
+        var stop = event(OrderSide.BUY, OrderType.STOP_LIMIT, TimeInForce.GTC, "101.00", 3);
+        stop.setStopPrice(new BigDecimal("101.00"));
+        place(stop);
+
+        matching.amend(stop.getOrderId(), TICKER, new BigDecimal("102.00"), BigDecimal.valueOf(5));
+
+        assertThat(book().stopCount()).isEqualTo(1);
+        assertThat(book().levelCount(OrderSide.BUY)).isZero();
+        assertThat(rows.get(stop.getOrderId()).getStatus()).isEqualTo("PENDING");
+        assertThat(rows.get(stop.getOrderId()).getOriginalQuantity()).isEqualByComparingTo("5");
+    }
+
+    @Test
+    void amendOfAnOrderNotInTheBookIsIgnored() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 5));
+
+        matching.amend(UUID.randomUUID(), TICKER, null, BigDecimal.valueOf(2));
+
+        assertThat(resting()).containsExactly(rest(sell, 5));
+    }
+
+    @Test
+    void reenteredOrderStaysBehindEarlierArrivalsWhenTheBookIsRebuilt() {
+        props.getBooks().setLazyLoad(true);
+        matching = newService();
+        var first = place(limit(OrderSide.SELL, "100.00", 10));
+        var second = place(limit(OrderSide.SELL, "100.00", 10));
+        matching.amend(first.getOrderId(), TICKER, null, BigDecimal.valueOf(15));
+        var moved = place(limit(OrderSide.SELL, "101.00", 5));
+        matching.amend(moved.getOrderId(), TICKER, new BigDecimal("100.00"), null);
+        List<String> live = resting();
+        assertThat(live).containsExactly(rest(second, 10), rest(first, 15), rest(moved, 5));
+
+        evictAndRehydrate();
+
+        assertThat(resting()).isEqualTo(live);
+    }
+}
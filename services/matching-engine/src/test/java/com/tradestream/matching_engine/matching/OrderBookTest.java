@@ -0,0 +1,102 @@
+package com.tradestream.matching_engine.matching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.TimeInForce;
+
+/** The book on its own: ordering, the order index, iceberg and stop bookkeeping. Prices in ticks, sizes in lots. */
+class OrderBookTest {
+
+    private final OrderBook book = new OrderBook(new TickScale("TEST", new BigDecimal("0.01"), BigDecimal.ONE));
+
+    private BookOrder order(OrderSide side, long price, long lots) {
+        return book.acquire().set(UUID.randomUUID(), UUID.randomUUID(), "TEST", side, OrderType.LIMIT,
+                TimeInForce.GTC, price, lots, lots, 0);
+    }
+
+    private List<UUID> ids() {
+        List<UUID> ids = new ArrayList<>();
+        book.forEachOrder(o -> ids.add(o.id()));
+        return ids;
+    }
+
+    @Test
+    void bestPriceFirstThenArrivalOrder() {
+        BookOrder far = order(OrderSide.SELL, 101_00, 5);
+        BookOrder first = order(OrderSide.SELL, 100_00, 5);
+        BookOrder second = order(OrderSide.SELL, 100_00, 5);
+        book.add(far);
+        book.add(first);
+        book.add(second);
+
+        assertThat(book.peekBest(OrderSide.BUY)).containsSame(first);
+        assertThat(book.pollOpp(OrderSide.BUY)).isSameAs(first);
+        assertThat(book.pollOpp(OrderSide.BUY)).isSameAs(second);
+        assertThat(book.levelCount(OrderSide.SELL)).isEqualTo(1); // emptied level is gone
+        assertThat(book.pollOpp(OrderSide.BUY)).isSameAs(far);
+        assertThat(book.pollOpp(OrderSide.BUY)).isNull();
+    }
+
+    @Test
+    void requeuedPartialFillKeepsItsPlace() {
+        BookOrder first = order(OrderSide.BUY, 100_00, 5);
+        BookOrder second = order(OrderSide.BUY, 100_00, 5);
+        book.add(first);
+        book.add(second);
+
+        BookOrder top = book.pollOpp(OrderSide.SELL);
+        top.remaining = 2;
+        book.requeueOpp(top);
+
+        assertThat(ids()).containsExactly(first.id(), second.id());
+        assertThat(book.displayedLots(OrderSide.BUY)).isEqualTo(7);
+    }
+
+    @Test
+    void removeByIdUnlinksFromTheMiddleAndDropsEmptiedLevels() {
+        BookOrder best = order(OrderSide.BUY, 100_00, 5);
+        BookOrder a = order(OrderSide.BUY, 99_00, 5);
+        BookOrder b = order(OrderSide.BUY, 99_00, 5);
+        BookOrder c = order(OrderSide.BUY, 99_00, 5);
+        book.add(best);
+        book.add(a);
+        book.add(b);
+        book.add(c);
+
+        assertThat(book.remove(b.id())).isSameAs(b);
+        assertThat(ids()).containsExactly(best.id(), a.id(), c.id());
+        assertThat(book.remove(b.id())).isNull();
+
+        book.remove(best.id());
+        assertThat(book.levelCount(OrderSide.BUY)).isEqualTo(1);
+        assertThat(book.peekBest(OrderSide.SELL)).containsSame(a); // best bid moved down a level
+        assertThat(book.displayedLots(OrderSide.BUY)).isEqualTo(10);
+    }
+
+    @Test
+    void addRefusesAnIdAlreadyInTheBook() {
+        BookOrder resting = order(OrderSide.BUY, 100_00, 5);
+        book.add(resting);
+        BookOrder again = order(OrderSide.BUY, 99_00, 5);
+        again.id = resting.id();
+
+        assertThatThrownBy(() -> book.add(again)).isInstanceOf(IllegalStateException.class);
+        assertThat(book.size()).isEqualTo(1);
+        assertThat(book.levelCount(OrderSide.BUY)).isEqualTo(1);
+
+        assertThat(book.remove(resting.id())).isSameAs(resting);
+        assertThat(book.size()).isZero();
+        assertThat(book.levelCount(OrderSide.BUY)).isZero();
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.tradestream.matching_engine.matching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+
+/** STOP and STOP_LIMIT: armed in the trigger index, fired by trades that reach the trigger. */
+class StopOrdersTest extends MatchingTestSupport {
+
+    private static OrderPlacedEvent stop(OrderSide side, OrderType type, String trigger, String price, long qty) {
+        var e = event(side, type, TimeInForce.GTC, price, qty);
+        e.setStopPrice(new BigDecimal(trigger));
+        return e;
+    }
+
+    @Test
+    void triggerIndexFiresInTriggerOrderOnceTradesReachIt() {
+        OrderBook book = new OrderBook(new TickScale(TICKER, new BigDecimal("0.01"), BigDecimal.ONE));
+        BookOrder near = book.acquire().set(UUID.randomUUID(), UUID.randomUUID(), TICKER, OrderSide.BUY,
+                OrderType.STOP, TimeInForce.GTC, 0, 1, 1, 0).arm(101_00);
+        BookOrder far = book.acquire().set(UUID.randomUUID(), UUID.randomUUID(), TICKER, OrderSide.BUY,
+                OrderType.STOP, TimeInForce.GTC, 0, 1, 1, 0).arm(102_00);
+        book.add(far);
+        book.add(near);
+        assertThat(book.stopCount()).isEqualTo(2);
+        assertThat(book.levelCount(OrderSide.BUY)).isZero(); // invisible until triggered
+
+        book.resetTradeRange();
+        book.noteTrade(100_00);
+        assertThat(book.pollTriggeredStop()).isNull();
+
+        book.noteTrade(101_50);
+        BookOrder fired = book.pollTriggeredStop();
+        assertThat(fired).isSameAs(near);
+        assertThat(fired.armed()).isFalse();
+        assertThat(book.pollTriggeredStop()).isNull();
+        assertThat(book.contains(far.id())).isTrue();
+    }
+
+    @Test
+    void stopWaitsForATradeAtItsTrigger() {
+        var low = place(limit(OrderSide.SELL, "100.00", 5));
+        var high = place(limit(OrderSide.SELL, "101.00", 10));
+        var stop = place(stop(OrderSide.BUY, OrderType.STOP, "101.00", null, 3));
+        assertThat(book().stopCount()).isEqualTo(1);
+        assertThat(rows.get(stop.getOrderId()).getStatus()).isEqualTo("PENDING");
+
+        var buy1 = place(limit(OrderSide.BUY, "100.00", 5)); // prints at 100: below the trigger
+        assertThat(book().stopCount()).isEqualTo(1);
+
+        var buy2 = place(limit(OrderSide.BUY, "101.00", 1)); // prints at 101: fires the stop
+        assertThat(book().stopCount()).isZero();
+        assertThat(trades).hasSize(3);
+        assertTrade(trades.get(0), buy1, low, "100.00", 5);
+        assertTrade(trades.get(1), buy2, high, "101.00", 1);
+        assertTrade(trades.get(2), stop, high, "101.00", 3);
+        assertThat(rows.get(stop.getOrderId()).getStatus()).isEqualTo("FILLED");
+        assertThat(resting()).containsExactly(rest(high, 6));
+    }
+
+    @Test
+    void triggeredStopLimitRestsAtItsLimit() {
+        var sell = place(limit(OrderSide.SELL, "100.00", 5));
+        var stop = place(stop(OrderSide.SELL, OrderType.STOP_LIMIT, "100.00", "99.50", 4));
+        var buy = place(limit(OrderSide.BUY, "100.00", 5)); // prints at 100: fires the sell stop
+
+        assertThat(trades).hasSize(1);
+        assertTrade(trades.get(0), buy, sell, "100.00", 5);
+        assertThat(book().stopCount()).isZero();
+        assertThat(resting()).containsExactly(rest(stop, 4));
+        assertThat(rows.get(stop.getOrderId()).getStatus()).isEqualTo("ACTIVE");
+    }
+
+    @Test
+    void stopWithoutStopPriceIsRejected() {
+        var stop = event(OrderSide.BUY, OrderType.STOP, TimeInForce.GTC, null, 3);
+
+        assertThatThrownBy(() -> place(stop)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(book().size()).isZero();
+    }
+
+    @Test
+    void triggeredStopLimitStaysBehindEarlierRestingOrdersWhenTheBookIsRebuilt() {
+        props.getBooks().setLazyLoad(true);
+        matching = newService();
+        var stop = place(stop(OrderSide.SELL, OrderType.STOP_LIMIT, "100.00", "101.00", 4));
+        var resting = place(limit(OrderSide.SELL, "101.00", 5));
+        place(limit(OrderSide.SELL, "100.00", 1));
+        place(limit(OrderSide.BUY, "100.00", 1)); // prints at 100: the stop joins 101 behind 'resting'
+        List<String> live = resting();
+        assertThat(live).containsExactly(rest(resting, 5), rest(stop, 4));
+
+        evictAndRehydrate();
+
+        assertThat(resting()).isEqualTo(live);
+    }
+}
@@ -0,0 +1,59 @@
+package com.tradestream.matching_engine.matching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.tradestream.matching_engine.config.EngineProps;
+
+/** Fixed-point conversion at the event/persistence boundary, and per-ticker tick and lot sizes. */
+class TickScaleTest {
+
+    private final TickScale sc = new TickScale("BTC", new BigDecimal("0.5"), new BigDecimal("0.001"));
+
+    @Test
+    void convertsWholeMultiplesBothWays() {
+        assertThat(sc.toTicks(new BigDecimal("20000.5"))).isEqualTo(40_001);
+        assertThat(sc.toTicks(new BigDecimal("20000.500000"))).isEqualTo(40_001); // trailing zeros don't matter
+        assertThat(sc.toLots(new BigDecimal("1.25"))).isEqualTo(1_250);
+
+        assertThat(sc.toPrice(40_001)).isEqualByComparingTo("20000.5");
+        assertThat(sc.toQuantity(1_250)).isEqualByComparingTo("1.25");
+    }
+
+    @Test
+    void refusesValuesOffTheGrid() {
+        assertThatThrownBy(() -> sc.toTicks(new BigDecimal("20000.25")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("price 20000.25 is not a whole multiple of 0.5 for BTC");
+        assertThatThrownBy(() -> sc.toLots(new BigDecimal("0.0005")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("quantity");
+    }
+
+    @Test
+    void refusesNonPositiveSizes() {
+        assertThatThrownBy(() -> new TickScale("X", BigDecimal.ZERO, BigDecimal.ONE))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TickScale("X", BigDecimal.ONE, new BigDecimal("-1")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void tickScalesUsePerTickerSizesWhateverTheKeyCase() {
+        EngineProps props = new EngineProps();
+        props.getInstruments().setDefaultTickSize(new BigDecimal("0.01"));
+        props.getInstruments().setDefaultLotSize(BigDecimal.ONE);
+        props.getInstruments().setTickSizes(Map.of("btc", new BigDecimal("0.5"))); // as bound from env vars
+        TickScales scales = new TickScales(props);
+
+        assertThat(scales.forTicker("BTC").tickSize()).isEqualByComparingTo("0.5");
+        assertThat(scales.forTicker("BTC").lotSize()).isEqualByComparingTo("1");
+        assertThat(scales.forTicker("AAPL").tickSize()).isEqualByComparingTo("0.01");
+        assertThat(scales.forTicker("BTC")).isSameAs(scales.forTicker("BTC"));
+    }
+}
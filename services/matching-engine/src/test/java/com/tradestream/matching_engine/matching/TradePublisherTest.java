@@ -0,0 +1,117 @@
+package com.tradestream.matching_engine.matching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.dto.TradeExecutedEvent;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
+
+/** Trades ride on the surrounding transaction: sent together before commit, one flush, every ack awaited. */
+class TradePublisherTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafka = mock(KafkaTemplate.class);
+    private TradePublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        EngineProps props = new EngineProps();
+        props.getTopics().setTradeExecuted("trade.executed.v1");
+        publisher = new TradePublisher(kafka, props, new EngineMetrics(new SimpleMeterRegistry()));
+        when(kafka.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @AfterEach
+    void clearTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static TradeExecutedEvent trade() {
+        return TradeExecutedEvent.builder().tradeId(UUID.randomUUID()).ticker("TEST").build();
+    }
+
+    private static List<TransactionSynchronization> syncs() {
+        return TransactionSynchronizationManager.getSynchronizations();
+    }
+
+    @Test
+    void tradesWaitForCommitThenGoOutWithOneFlush() {
+        TransactionSynchronizationManager.initSynchronization();
+        var first = trade();
+        var second = trade();
+        publisher.publish(first, "TEST");
+        publisher.publish(second, "TEST");
+        verify(kafka, never()).send(anyString(), anyString(), any());
+
+        syncs().forEach(s -> s.beforeCommit(false));
+
+        var order = inOrder(kafka);
+        order.verify(kafka).send("trade.executed.v1", "TEST", first);
+        order.verify(kafka).send("trade.executed.v1", "TEST", second);
+        order.verify(kafka, times(1)).flush();
+
+        syncs().forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertThat(TransactionSynchronizationManager.getResource(publisher)).isNull();
+    }
+
+    @Test
+    void rolledBackTransactionSendsNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+        publisher.publish(trade(), "TEST");
+
+        syncs().forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(kafka, never()).send(anyString(), anyString(), any());
+        assertThat(TransactionSynchronizationManager.getResource(publisher)).isNull();
+    }
+
+    @Test
+    void failedSendFailsTheCommit() {
+        CompletableFuture<SendResult<String, Object>> nack =
+                CompletableFuture.failedFuture(new IllegalStateException("broker down"));
+        when(kafka.send(anyString(), anyString(), any())).thenReturn(nack);
+        TransactionSynchronizationManager.initSynchronization();
+        publisher.publish(trade(), "TEST");
+
+        assertThatThrownBy(() -> syncs().forEach(s -> s.beforeCommit(false)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("trade.executed.v1")
+                .hasRootCauseMessage("broker down");
+    }
+
+    @Test
+    void withoutATransactionEachTradeIsSentAtOnce() {
+        var t = trade();
+
+        publisher.publish(t, "TEST");
+
+        verify(kafka).send(eq("trade.executed.v1"), eq("TEST"), eq(t));
+        verify(kafka).flush();
+    }
+}
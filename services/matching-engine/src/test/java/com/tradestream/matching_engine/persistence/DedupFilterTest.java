@@ -0,0 +1,220 @@
+package com.tradestream.matching_engine.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.tradestream.matching_engine.config.DedupProps;
+
+/**
+ * Verdicts, horizon and after-commit recording. The warm-up query is answered from {@link #ledger} (newest
+ * first, as the SQL orders it). The false positive rate is set low enough that a miss is a miss.
+ */
+class DedupFilterTest {
+    private static final String TOPIC = "order.placed.v1";
+    private static final Duration WARM = Duration.ofHours(24);
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final DedupProps props = new DedupProps();
+    private final List<ResultSet> ledger = new ArrayList<>();
+    private final Instant now = Instant.now();
+
+    @BeforeEach
+    void setUp() {
+        props.setExpectedInsertions(1_000);
+        props.setFalsePositiveRate(1e-9);
+        props.setLruSize(1_000);
+        props.setWarmHours(WARM.toHours());
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (ResultSet rs : ledger) handler.processRow(rs);
+            return null;
+        }).when(jdbc).query(anyString(), any(RowCallbackHandler.class), any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private DedupFilter warmed() {
+        DedupFilter f = new DedupFilter(jdbc, props);
+        f.warmAtStartup();
+        return f;
+    }
+
+    private UUID processed(Instant at) throws SQLException {
+        UUID id = UUID.randomUUID();
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn(TOPIC);
+        when(rs.getString(2)).thenReturn(id.toString());
+        when(rs.getTimestamp(3)).thenReturn(Timestamp.from(at));
+        ledger.add(rs);
+        return id;
+    }
+
+    private static long ts(Instant at) { return at.toEpochMilli(); }
+
+    @Test
+    void missInsideTheHorizonIsNew() {
+        DedupFilter f = warmed();
+
+        assertThat(f.check(TOPIC, UUID.randomUUID(), ts(now))).isEqualTo(DedupFilter.Verdict.NEW);
+        assertThat(f.check(TOPIC, UUID.randomUUID(), ts(now.minus(WARM).plusSeconds(120))))
+                .isEqualTo(DedupFilter.Verdict.NEW);
+    }
+
+    @Test
+    void missBeforeTheHorizonGoesToTheLedger() {
+        DedupFilter f = warmed();
+        AtomicInteger asked = new AtomicInteger();
+
+        // older than the warm window, or within the clock slack of its start
+        assertThat(f.check(TOPIC, UUID.randomUUID(), ts(now.minus(WARM).minusSeconds(60))))
+                .isEqualTo(DedupFilter.Verdict.MAYBE);
+        assertThat(f.check(TOPIC, UUID.randomUUID(), ts(now.minus(WARM).plusSeconds(30))))
+                .isEqualTo(DedupFilter.Verdict.MAYBE);
+        assertThat(f.check(TOPIC, UUID.randomUUID(), -1)).isEqualTo(DedupFilter.Verdict.MAYBE);
+        assertThat(f.isDuplicate(TOPIC, UUID.randomUUID(), ts(now.minus(Duration.ofDays(3))),
+                () -> asked.incrementAndGet() > 0)).isTrue();
+        assertThat(asked).hasValue(1);
+    }
+
+    @Test
+    void warmedKeysAreSeenAndTruncatedWarmUpRaisesTheHorizon() throws SQLException {
+        props.setExpectedInsertions(3);
+        Instant oldest = now.minus(Duration.ofHours(2));
+        UUID a = processed(now.minusSeconds(10));
+        processed(now.minus(Duration.ofHours(1)));
+        processed(oldest);                       // the limit: older rows may not have been read
+
+        DedupFilter f = warmed();
+
+        assertThat(f.check(TOPIC, a, ts(now))).isEqualTo(DedupFilter.Verdict.SEEN);
+        assertThat(f.check(TOPIC, UUID.randomUUID(), ts(oldest.minus(Duration.ofMinutes(10)))))
+                .isEqualTo(DedupFilter.Verdict.MAYBE);
+        assertThat(f.check(TOPIC, UUID.randomUUID(), ts(oldest.plus(Duration.ofMinutes(10)))))
+                .isEqualTo(DedupFilter.Verdict.NEW);
+    }
+
+    @Test
+    void generationRotationRaisesTheHorizon() {
+        props.setExpectedInsertions(100);
+        DedupFilter f = warmed();
+        long tenMinutesAgo = ts(now.minus(Duration.ofMinutes(10)));
+        assertThat(f.check(TOPIC, UUID.randomUUID(), tenMinutesAgo)).isEqualTo(DedupFilter.Verdict.NEW);
+
+        for (int i = 0; i < 100; i++) f.recordAfterCommit(TOPIC, UUID.randomUUID());
+
+        // the dropped-to-previous generation started just now; anything older may be forgotten later
+        assertThat(f.check(TOPIC, UUID.randomUUID(), tenMinutesAgo)).isEqualTo(DedupFilter.Verdict.MAYBE);
+        assertThat(f.check(TOPIC, UUID.randomUUID(), ts(Instant.now().plusSeconds(120))))
+                .isEqualTo(DedupFilter.Verdict.NEW);
+    }
+
+    @Test
+    void keysAreAddedOnlyAfterCommit() {
+        DedupFilter f = warmed();
+        UUID committed = UUID.randomUUID(), rolledBack = UUID.randomUUID();
+
+        TransactionSynchronizationManager.initSynchronization();
+        f.recordAfterCommit(TOPIC, committed);
+        assertThat(f.check(TOPIC, committed, ts(now))).isEqualTo(DedupFilter.Verdict.NEW);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.initSynchronization();
+        f.recordAfterCommit(TOPIC, rolledBack);
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(f.check(TOPIC, committed, ts(now))).isEqualTo(DedupFilter.Verdict.SEEN);
+        assertThat(f.check(TOPIC, rolledBack, ts(now))).isEqualTo(DedupFilter.Verdict.NEW);
+    }
+
+    @Test
+    void keyOutOfTheLruIsMaybe() {
+        props.setLruSize(1);
+        DedupFilter f = warmed();
+        UUID first = UUID.randomUUID();
+        f.recordAfterCommit(TOPIC, first);
+        f.recordAfterCommit(TOPIC, UUID.randomUUID());
+
+        assertThat(f.check(TOPIC, first, ts(now))).isEqualTo(DedupFilter.Verdict.MAYBE);
+    }
+
+    @Test
+    void failedWarmUpDisablesTheFilter() {
+        doThrow(new DataAccessResourceFailureException("down"))
+                .when(jdbc).query(anyString(), any(RowCallbackHandler.class), any(), any());
+        DedupFilter f = warmed();
+        UUID id = UUID.randomUUID();
+        f.recordAfterCommit(TOPIC, id);
+
+        assertThat(f.check(TOPIC, UUID.randomUUID(), ts(now))).isEqualTo(DedupFilter.Verdict.MAYBE);
+        assertThat(f.check(TOPIC, id, ts(now))).isEqualTo(DedupFilter.Verdict.MAYBE);
+        assertThat(f.isDuplicate(TOPIC, id, ts(now), () -> false)).isFalse();
+    }
+
+    @Test
+    void disabledFilterLeavesEverythingToTheLedger() {
+        props.setEnabled(false);
+        DedupFilter f = warmed();
+
+        assertThat(f.check(TOPIC, UUID.randomUUID(), ts(now))).isEqualTo(DedupFilter.Verdict.MAYBE);
+    }
+
+    /**
+     * portfolio-service and transaction-processor carry copies of this class that must stay identical apart
+     * from the package and the DedupProps import. Skipped when the service is built on its own.
+     */
+    @Test
+    void copiesInOtherServicesMatch() throws IOException {
+        Path self = Path.of("src/main/java/com/tradestream/matching_engine/persistence/DedupFilter.java");
+        List<Path> copies = List.of(
+                Path.of("../portfolio-service/src/main/java/com/tradestream/portfolio_service/persistence/DedupFilter.java"),
+                Path.of("../transaction-processor/src/main/java/com/tradestream/transaction_processor/repo/DedupFilter.java"));
+        assumeThat(copies).allMatch(Files::exists);
+
+        String expected = normalized(self);
+        for (Path copy : copies) {
+            assertThat(normalized(copy)).as("%s differs from %s", copy, self).isEqualTo(expected);
+        }
+    }
+
+    private static String normalized(Path file) throws IOException {
+        return Files.readString(file)
+                .replaceFirst("(?m)^package [\\w.]+;", "package _;")
+                .replaceFirst("(?m)^import com\\.tradestream\\.\\w+\\.config\\.DedupProps;", "import _.DedupProps;");
+    }
+}
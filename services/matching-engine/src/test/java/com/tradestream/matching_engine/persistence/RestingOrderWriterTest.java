@@ -0,0 +1,187 @@
+package com.tradestream.matching_engine.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.tradestream.matching_engine.config.EngineProps;
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.RestingOrder;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Coalescing, early flush and commit/rollback. Each batchUpdate is recorded as the list of rows it was given
+ * (with the SQL and row binder kept for the upsert checks); "transactions" are a bare synchronization scope
+ * that each test ends by hand.
+ */
+class RestingOrderWriterTest {
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final EngineProps props = new EngineProps();
+    private final List<List<RestingOrder>> batches = new ArrayList<>();
+    private String sql;
+    private ParameterizedPreparedStatementSetter<RestingOrder> binder;
+    private RestingOrderWriter writer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        props.getPersistence().setFlushSize(3);
+        when(jdbc.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(inv -> {
+                    sql = inv.getArgument(0);
+                    batches.add(new ArrayList<>((Collection<RestingOrder>) inv.getArgument(1)));
+                    binder = inv.getArgument(3);
+                    return new int[0][];
+                });
+        writer = new RestingOrderWriter(jdbc, props, new EngineMetrics(new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static RestingOrder order(UUID id, String remaining) {
+        return RestingOrder.builder()
+                .id(id).userId(UUID.randomUUID()).ticker("AAPL")
+                .side(OrderSide.BUY).orderType(OrderType.LIMIT).timeInForce(TimeInForce.GTC)
+                .price(new BigDecimal("100")).originalQuantity(BigDecimal.TEN)
+                .remainingQuantity(new BigDecimal(remaining)).status("ACTIVE")
+                .createdAt(OffsetDateTime.parse("2025-08-18T10:43:20Z"))
+                .build();
+    }
+
+    private static void begin() { TransactionSynchronizationManager.initSynchronization(); }
+
+    private static void commit() {
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static void rollback() {
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void sameOrderStagedTwiceIsOneRowWithTheLatestState() {
+        UUID id = UUID.randomUUID();
+
+        begin();
+        writer.stage(order(id, "10"));
+        writer.stage(order(id, "4"));
+        assertThat(batches).isEmpty(); // nothing before commit
+        commit();
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).singleElement()
+                .extracting(RestingOrder::getRemainingQuantity).isEqualTo(new BigDecimal("4"));
+    }
+
+    @Test
+    void flushesEarlyWhenFlushSizeIsReached() {
+        begin();
+        writer.stage(order(UUID.randomUUID(), "10"));
+        writer.stage(order(UUID.randomUUID(), "10"));
+        assertThat(batches).isEmpty();
+        writer.stage(order(UUID.randomUUID(), "10"));
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).hasSize(3);
+
+        writer.stage(order(UUID.randomUUID(), "10"));
+        commit();
+
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(1)).hasSize(1);
+    }
+
+    @Test
+    void repeatsOfOneOrderDoNotCountTowardsFlushSize() {
+        UUID id = UUID.randomUUID();
+
+        begin();
+        for (int i = 10; i > 0; i--) writer.stage(order(id, String.valueOf(i)));
+        assertThat(batches).isEmpty();
+        commit();
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).hasSize(1);
+    }
+
+    @Test
+    void nothingWrittenOnRollback() {
+        begin();
+        writer.stage(order(UUID.randomUUID(), "10"));
+        rollback();
+
+        assertThat(batches).isEmpty();
+
+        // the rolled-back buffer is gone: the next transaction writes only its own rows
+        UUID next = UUID.randomUUID();
+        begin();
+        writer.stage(order(next, "10"));
+        commit();
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(RestingOrder::getId).containsExactly(next);
+    }
+
+    @Test
+    void writesThroughWithoutATransaction() {
+        writer.stage(order(UUID.randomUUID(), "10"));
+
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    void upsertRewritesQueuePositionPriceAndOriginalQuantity() throws Exception {
+        RestingOrder ro = order(UUID.randomUUID(), "6");
+        ro.setPrice(new BigDecimal("101.5"));       // amended price
+        ro.setOriginalQuantity(new BigDecimal("8")); // amended down
+        ro.setCreatedAt(OffsetDateTime.parse("2025-08-18T11:00:00Z")); // went to the back of its queue
+        writer.stage(ro);
+
+        String onConflict = sql.substring(sql.indexOf("ON CONFLICT (id) DO UPDATE"));
+        assertThat(onConflict)
+                .contains("created_at = EXCLUDED.created_at")
+                .contains("price = EXCLUDED.price")
+                .contains("original_quantity = EXCLUDED.original_quantity")
+                .contains("remaining_quantity = EXCLUDED.remaining_quantity");
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        binder.setValues(ps, ro);
+        verify(ps).setBigDecimal(7, new BigDecimal("101.5"));
+        verify(ps).setBigDecimal(9, new BigDecimal("8"));
+        verify(ps).setBigDecimal(10, new BigDecimal("6"));
+        verify(ps).setTimestamp(14, Timestamp.from(ro.getCreatedAt().toInstant()));
+    }
+}
@@ -0,0 +1,183 @@
+package com.tradestream.matching_engine.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+import com.tradestream.matching_engine.journal.EngineJournal;
+import com.tradestream.matching_engine.matching.MatchingSequencer;
+import com.tradestream.matching_engine.matching.MatchingService;
+import com.tradestream.matching_engine.metrics.EngineMetrics;
+import com.tradestream.matching_engine.persistence.DedupFilter;
+import com.tradestream.matching_engine.persistence.ProcessedMessageRepository;
+import com.tradestream.matching_engine.persistence.ProcessedMessageWriter;
+
+/**
+ * One poll, one transaction per shard slice. Shards run inline here: ticker "B" is shard 1, everything else
+ * shard 0. The transaction manager only records how each transaction ended.
+ */
+class OrderPlacedConsumerTest {
+    private static final String TOPIC = "order.placed.v1";
+
+    private final MatchingService matching = mock(MatchingService.class);
+    private final ProcessedMessageWriter msgWriter = mock(ProcessedMessageWriter.class);
+    private final MatchingSequencer sequencer = mock(MatchingSequencer.class);
+    private final DedupFilter dedup = mock(DedupFilter.class);
+    private final Acknowledgment ack = mock(Acknowledgment.class);
+    private final List<String> outcomes = new ArrayList<>();
+    private OrderPlacedConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        var txManager = new AbstractPlatformTransactionManager() {
+            @Override protected Object doGetTransaction() { return new Object(); }
+            @Override protected void doBegin(Object tx, TransactionDefinition def) { }
+            @Override protected void doCommit(DefaultTransactionStatus status) { outcomes.add("commit"); }
+            @Override protected void doRollback(DefaultTransactionStatus status) { outcomes.add("rollback"); }
+        };
+        when(sequencer.shardOf(anyString())).thenAnswer(inv -> "B".equals(inv.getArgument(0)) ? 1 : 0);
+        when(sequencer.submitToShard(anyInt(), any())).thenAnswer(inv ->
+                CompletableFuture.completedFuture(inv.<Supplier<?>>getArgument(1).get()));
+        when(dedup.check(anyString(), any(), anyLong())).thenReturn(DedupFilter.Verdict.NEW);
+        consumer = new OrderPlacedConsumer(matching, mock(ProcessedMessageRepository.class), msgWriter, sequencer,
+                new TransactionTemplate(txManager), mock(EngineJournal.class), dedup,
+                new EngineMetrics(new SimpleMeterRegistry()));
+    }
+
+    private static ConsumerRecord<String, OrderPlacedEvent> rec(long offset, String ticker) {
+        var evt = OrderPlacedEvent.builder()
+                .orderId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .ticker(ticker)
+                .side(OrderSide.BUY)
+                .orderType(OrderType.LIMIT)
+                .timeInForce(TimeInForce.GTC)
+                .price(BigDecimal.TEN)
+                .quantity(BigDecimal.ONE)
+                .build();
+        var rec = new ConsumerRecord<>(TOPIC, 0, offset, ticker, evt);
+        rec.headers().add("eventId", UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+        return rec;
+    }
+
+    private static List<ConsumerRecord<String, OrderPlacedEvent>> poll(String... tickers) {
+        List<ConsumerRecord<String, OrderPlacedEvent>> recs = new ArrayList<>();
+        for (int i = 0; i < tickers.length; i++) recs.add(rec(100 + i, tickers[i]));
+        return recs;
+    }
+
+    private static UUID id(ConsumerRecord<?, ?> rec) {
+        return UUID.fromString(new String(rec.headers().lastHeader("eventId").value(), StandardCharsets.UTF_8));
+    }
+
+    private static List<UUID> ids(List<ConsumerRecord<String, OrderPlacedEvent>> recs) {
+        return recs.stream().map(OrderPlacedConsumerTest::id).toList();
+    }
+
+    private void failOn(ConsumerRecord<String, OrderPlacedEvent> rec) {
+        doThrow(new IllegalStateException("boom")).when(matching).handleIncoming(eq(rec.value()), any());
+    }
+
+    @Test
+    void eachShardCommitsItsSliceWithItsLedgerRows() {
+        var recs = poll("A", "B", "A");
+
+        consumer.onMessages(recs, ack);
+
+        assertThat(outcomes).containsExactly("commit", "commit");
+        verify(msgWriter).insertAll(TOPIC, List.of(id(recs.get(0)), id(recs.get(2))));
+        verify(msgWriter).insertAll(TOPIC, List.of(id(recs.get(1))));
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void failedRecordRollsBackItsSliceAndCommitsWhatCameBeforeIt() {
+        var recs = poll("A", "A", "A", "A", "A");
+        failOn(recs.get(3));
+
+        var e = catchThrowableOfType(BatchListenerFailedException.class, () -> consumer.onMessages(recs, ack));
+
+        assertThat(e.getIndex()).isEqualTo(3);
+        assertThat(e).hasRootCauseMessage("boom");
+        assertThat(outcomes).containsExactly("rollback", "commit");
+        verify(msgWriter).insertAll(TOPIC, ids(recs.subList(0, 3)));
+        verify(matching, times(2)).handleIncoming(eq(recs.get(0).value()), any());
+        verify(matching, times(1)).handleIncoming(eq(recs.get(3).value()), any());
+        verify(matching, never()).handleIncoming(eq(recs.get(4).value()), any());
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void failureOnTheFirstRecordCommitsNothing() {
+        var recs = poll("A", "A");
+        failOn(recs.get(0));
+
+        var e = catchThrowableOfType(BatchListenerFailedException.class, () -> consumer.onMessages(recs, ack));
+
+        assertThat(e.getIndex()).isZero();
+        assertThat(outcomes).containsExactly("rollback");
+        verify(msgWriter, never()).insertAll(anyString(), any());
+    }
+
+    @Test
+    void otherShardsCommitAndTheEarliestFailureIsReported() {
+        var recs = poll("A", "B", "A", "B");
+        failOn(recs.get(2));
+        failOn(recs.get(3));
+
+        var e = catchThrowableOfType(BatchListenerFailedException.class, () -> consumer.onMessages(recs, ack));
+
+        assertThat(e.getIndex()).isEqualTo(2);
+        verify(msgWriter).insertAll(TOPIC, List.of(id(recs.get(0))));
+        verify(msgWriter).insertAll(TOPIC, List.of(id(recs.get(1))));
+        assertThat(outcomes).containsExactly("rollback", "commit", "rollback", "commit");
+    }
+
+    @Test
+    void seenRecordsAndRepeatsWithinThePollAreSkipped() {
+        var recs = poll("A", "A");
+        recs.add(recs.get(1)); // same record again in this poll
+        when(dedup.check(TOPIC, id(recs.get(0)), recs.get(0).timestamp())).thenReturn(DedupFilter.Verdict.SEEN);
+
+        consumer.onMessages(recs, ack);
+
+        verify(matching, never()).handleIncoming(eq(recs.get(0).value()), any());
+        verify(matching, times(1)).handleIncoming(eq(recs.get(1).value()), any());
+        verify(msgWriter).insertAll(TOPIC, List.of(id(recs.get(1))));
+        verify(ack).acknowledge();
+    }
+}
@@ -0,0 +1,337 @@
+package com.tradestream.matching_engine.wire;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import com.tradestream.matching_engine.domain.OrderSide;
+import com.tradestream.matching_engine.domain.OrderType;
+import com.tradestream.matching_engine.domain.TimeInForce;
+import com.tradestream.matching_engine.dto.OrderAmendedEvent;
+import com.tradestream.matching_engine.dto.OrderCancelledEvent;
+import com.tradestream.matching_engine.dto.OrderPlacedEvent;
+import com.tradestream.matching_engine.dto.TradeExecutedEvent;
+
+/**
+ * Binary layout plus this service's side of the contract. What it writes is read back field by field in the order
+ * its consumers' WireDeserializers read it; what it reads is written in the order orders-service's WireSerializer
+ * writes it. A change to either order must change the other services and their WireFormatTests too.
+ */
+class WireFormatTest {
+    private static final String TOPIC = "order.placed.v1";
+
+    private static Headers binaryHeaders() {
+        return new RecordHeaders().add(WireFormat.CONTENT_TYPE, WireFormat.BINARY.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static final TradeExecutedEvent SAMPLE = TradeExecutedEvent.builder()
+            .tradeId(UUID.randomUUID()).ticker("AAPL").price(BigDecimal.TEN).quantity(BigDecimal.ONE).build();
+
+    private static WireSerializer serializer(String format) {
+        var s = new WireSerializer();
+        s.configure(format == null ? Map.of() : Map.of(WireFormat.FORMAT_CONFIG, format), false);
+        return s;
+    }
+
+    private static String contentType(Headers headers) {
+        return new String(headers.lastHeader(WireFormat.CONTENT_TYPE).value(), StandardCharsets.US_ASCII);
+    }
+
+    private static Object decode(byte[] data) {
+        return new WireDeserializer().deserialize(TOPIC, binaryHeaders(), data);
+    }
+
+    // ---- layout: the same WireFormat ships in every service ----
+
+    @Test
+    void nullFieldsCostNothingAndReadBackAsNull() {
+        byte[] sparse = new WireFormat.Writer(WireFormat.TRADE_EXECUTED)
+                .uuid(null).string(null).decimal(null).instant(null).int32(null).enumName(null)
+                .toBytes();
+
+        assertThat(sparse).hasSize(7); // magic, version, type, presence
+        var in = new WireFormat.Reader(sparse);
+        assertThat(in.type()).isEqualTo(WireFormat.TRADE_EXECUTED);
+        assertThat(in.uuid()).isNull();
+        assertThat(in.string()).isNull();
+        assertThat(in.decimal()).isNull();
+        assertThat(in.instant()).isNull();
+        assertThat(in.int32()).isNull();
+        assertThat(in.string()).isNull();
+    }
+
+    @Test
+    void decimalsKeepSignAndScale() {
+        List<BigDecimal> values = List.of(
+                new BigDecimal("-123.456"),
+                new BigDecimal("0.000000000000000001"),
+                new BigDecimal("0.00"),
+                new BigDecimal("1E+5"),
+                BigDecimal.valueOf(Long.MIN_VALUE, 127),
+                BigDecimal.valueOf(Long.MAX_VALUE, -128));
+        var out = new WireFormat.Writer(WireFormat.TRADE_EXECUTED);
+        values.forEach(out::decimal);
+
+        var in = new WireFormat.Reader(out.toBytes());
+        for (BigDecimal v : values) assertThat(in.decimal()).isEqualTo(v); // equals() compares scale too
+    }
+
+    @Test
+    void valuesThatDoNotFitTheLayoutThrow() {
+        var out = new WireFormat.Writer(WireFormat.TRADE_EXECUTED);
+
+        assertThatThrownBy(() -> out.decimal(new BigDecimal("123456789012345678901234567890")))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> out.decimal(BigDecimal.valueOf(1, 128))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> out.instant(Instant.parse("2300-01-01T00:00:00Z")))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> out.string("x".repeat(0x10000))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void instantsKeepNanosOnBothSidesOfTheEpoch() {
+        List<Instant> values = List.of(
+                Instant.parse("1969-07-20T20:17:40.123456789Z"),
+                Instant.ofEpochSecond(-1, 1),
+                Instant.EPOCH,
+                Instant.parse("2025-08-18T10:43:20.000000001Z"),
+                Instant.ofEpochSecond(0, Long.MAX_VALUE),
+                Instant.ofEpochSecond(-9_223_372_036L));
+        var out = new WireFormat.Writer(WireFormat.TRADE_EXECUTED);
+        values.forEach(out::instant);
+
+        var in = new WireFormat.Reader(out.toBytes());
+        for (Instant v : values) assertThat(in.instant()).isEqualTo(v);
+    }
+
+    @Test
+    void stringsAreUtf8() {
+        var in = new WireFormat.Reader(new WireFormat.Writer(WireFormat.TRADE_EXECUTED)
+                .string("").string("BRK.B").string("Zürich €").toBytes());
+
+        assertThat(in.string()).isEmpty();
+        assertThat(in.string()).isEqualTo("BRK.B");
+        assertThat(in.string()).isEqualTo("Zürich €");
+    }
+
+    @Test
+    void readerStopsAtTheFieldsItKnowsAndMissingOnesReadAsNull() {
+        UUID id = UUID.randomUUID();
+        byte[] newer = new WireFormat.Writer(WireFormat.TRADE_EXECUTED)
+                .uuid(id).decimal(BigDecimal.TEN).uuid(UUID.randomUUID()).string("appended").toBytes();
+        byte[] older = new WireFormat.Writer(WireFormat.TRADE_EXECUTED).uuid(id).toBytes();
+
+        var oldReader = new WireFormat.Reader(newer);
+        assertThat(oldReader.uuid()).isEqualTo(id);
+        assertThat(oldReader.decimal()).isEqualTo(BigDecimal.TEN);
+
+        var newReader = new WireFormat.Reader(older);
+        assertThat(newReader.uuid()).isEqualTo(id);
+        assertThat(newReader.decimal()).isNull();
+        assertThat(newReader.uuid()).isNull();
+    }
+
+    @Test
+    void foreignOrTruncatedRecordsAreRejected() {
+        assertThatThrownBy(() -> new WireFormat.Reader("{}".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> new WireFormat.Reader(new byte[] { 0x54, 2, 3, 0, 0, 0, 0 }))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> new WireFormat.Reader(new byte[] { 0x54, 1 }))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void contentTypeHeaderSelectsBinary() {
+        assertThat(WireFormat.isBinary(binaryHeaders())).isTrue();
+        assertThat(WireFormat.isBinary(new RecordHeaders())).isFalse();
+        assertThat(WireFormat.isBinary(null)).isFalse();
+    }
+
+    // ---- what this service writes: trade.executed, read back in the order its consumers read it ----
+
+    @Test
+    void tradeExecutedUsesTheConsumerFieldOrder() {
+        var evt = TradeExecutedEvent.builder()
+                .tradeId(UUID.randomUUID()).buyOrderId(UUID.randomUUID()).sellOrderId(UUID.randomUUID())
+                .ticker("AAPL").price(new BigDecimal("-0.000001")).quantity(new BigDecimal("12345.678901234567"))
+                .timestamp(OffsetDateTime.parse("1969-12-31T23:59:59.5Z"))
+                .buyUserId(UUID.randomUUID()).sellUserId(UUID.randomUUID())
+                .build();
+        Headers headers = new RecordHeaders();
+
+        var in = new WireFormat.Reader(serializer("binary").serialize(TOPIC, headers, evt));
+
+        assertThat(contentType(headers)).isEqualTo(WireFormat.BINARY);
+        assertThat(in.type()).isEqualTo(WireFormat.TRADE_EXECUTED);
+        assertThat(in.uuid()).isEqualTo(evt.getTradeId());
+        assertThat(in.uuid()).isEqualTo(evt.getBuyOrderId());
+        assertThat(in.uuid()).isEqualTo(evt.getSellOrderId());
+        assertThat(in.string()).isEqualTo("AAPL");
+        assertThat(in.decimal()).isEqualTo(evt.getPrice());
+        assertThat(in.decimal()).isEqualTo(evt.getQuantity());
+        assertThat(in.instant()).isEqualTo(evt.getTimestamp().toInstant());
+        assertThat(in.uuid()).isEqualTo(evt.getBuyUserId());
+        assertThat(in.uuid()).isEqualTo(evt.getSellUserId());
+    }
+
+    @Test
+    void readerThatPredatesTheUserIdsStillGetsTheTrade() {
+        var evt = TradeExecutedEvent.builder()
+                .tradeId(UUID.randomUUID()).buyOrderId(UUID.randomUUID()).sellOrderId(UUID.randomUUID())
+                .ticker("AAPL").price(BigDecimal.TEN).quantity(BigDecimal.ONE)
+                .buyUserId(UUID.randomUUID()).sellUserId(UUID.randomUUID())
+                .build();
+
+        // orders-service reads only the first seven fields
+        var in = new WireFormat.Reader(serializer("binary").serialize(TOPIC, new RecordHeaders(), evt));
+
+        assertThat(in.uuid()).isEqualTo(evt.getTradeId());
+        assertThat(in.uuid()).isEqualTo(evt.getBuyOrderId());
+        assertThat(in.uuid()).isEqualTo(evt.getSellOrderId());
+        assertThat(in.string()).isEqualTo("AAPL");
+        assertThat(in.decimal()).isEqualTo(BigDecimal.TEN);
+        assertThat(in.decimal()).isEqualTo(BigDecimal.ONE);
+        assertThat(in.instant()).isNull();
+    }
+
+    @Test
+    void decimalTooWideFallsBackToJson() {
+        var evt = TradeExecutedEvent.builder()
+                .tradeId(UUID.randomUUID()).ticker("AAPL")
+                .price(new BigDecimal("123456789012345678901234567890")).quantity(BigDecimal.ONE)
+                .build();
+        Headers headers = new RecordHeaders();
+
+        byte[] body = serializer("binary").serialize(TOPIC, headers, evt);
+
+        assertThat(contentType(headers)).isEqualTo(WireFormat.JSON);
+        assertThat(new String(body, StandardCharsets.UTF_8)).contains("123456789012345678901234567890");
+    }
+
+    @Test
+    void jsonUnlessBinaryIsConfiguredAndOneContentTypePerRecord() {
+        Headers headers = new RecordHeaders();
+        var json = serializer(null);
+
+        json.serialize(TOPIC, headers, SAMPLE);
+        json.serialize(TOPIC, headers, SAMPLE); // a retried send reuses the headers
+
+        assertThat(contentType(headers)).isEqualTo(WireFormat.JSON);
+        assertThat(headers.headers(WireFormat.CONTENT_TYPE)).hasSize(1);
+    }
+
+    @Test
+    void rawBytesAndNullPassThrough() {
+        Headers headers = new RecordHeaders();
+        byte[] raw = { 1, 2, 3 };
+
+        assertThat(serializer("binary").serialize(TOPIC, headers, raw)).isSameAs(raw);
+        assertThat(serializer("binary").serialize(TOPIC, headers, null)).isNull();
+        assertThat(headers.lastHeader(WireFormat.CONTENT_TYPE)).isNull();
+    }
+
+    // ---- what this service reads: order events as orders-service writes them ----
+
+    @Test
+    void orderPlacedDecodes() {
+        UUID orderId = UUID.randomUUID(), userId = UUID.randomUUID();
+        Instant at = Instant.parse("1969-12-31T23:59:59.999999999Z");
+        byte[] data = new WireFormat.Writer(WireFormat.ORDER_PLACED)
+                .uuid(orderId).uuid(userId).string("AAPL")
+                .enumName(OrderSide.BUY).enumName(OrderType.STOP_LIMIT).enumName(TimeInForce.GTC)
+                .decimal(new BigDecimal("-0.5")).decimal(new BigDecimal("100.000001")).instant(at)
+                .decimal(new BigDecimal("99.50")).decimal(new BigDecimal("10"))
+                .toBytes();
+
+        var evt = (OrderPlacedEvent) decode(data);
+
+        assertThat(evt.getOrderId()).isEqualTo(orderId);
+        assertThat(evt.getUserId()).isEqualTo(userId);
+        assertThat(evt.getTicker()).isEqualTo("AAPL");
+        assertThat(evt.getSide()).isEqualTo(OrderSide.BUY);
+        assertThat(evt.getOrderType()).isEqualTo(OrderType.STOP_LIMIT);
+        assertThat(evt.getTimeInForce()).isEqualTo(TimeInForce.GTC);
+        assertThat(evt.getPrice()).isEqualTo(new BigDecimal("-0.5"));
+        assertThat(evt.getQuantity()).isEqualTo(new BigDecimal("100.000001"));
+        assertThat(evt.getTimestamp()).isEqualTo(at);
+        assertThat(evt.getStopPrice()).isEqualTo(new BigDecimal("99.50"));
+        assertThat(evt.getDisplayQuantity()).isEqualTo(new BigDecimal("10"));
+    }
+
+    @Test
+    void orderPlacedFromAWriterWithoutStopOrIcebergFields() {
+        byte[] data = new WireFormat.Writer(WireFormat.ORDER_PLACED)
+                .uuid(UUID.randomUUID()).uuid(UUID.randomUUID()).string("AAPL")
+                .enumName(OrderSide.SELL).enumName(OrderType.MARKET).enumName(TimeInForce.IOC)
+                .decimal(null).decimal(BigDecimal.ONE).instant(null)
+                .toBytes();
+
+        var evt = (OrderPlacedEvent) decode(data);
+
+        assertThat(evt.getOrderType()).isEqualTo(OrderType.MARKET);
+        assertThat(evt.getPrice()).isNull();
+        assertThat(evt.getQuantity()).isEqualTo(BigDecimal.ONE);
+        assertThat(evt.getTimestamp()).isNull();
+        assertThat(evt.getStopPrice()).isNull();
+        assertThat(evt.getDisplayQuantity()).isNull();
+    }
+
+    @Test
+    void orderCancelledDecodes() {
+        UUID orderId = UUID.randomUUID(), userId = UUID.randomUUID();
+        Instant at = Instant.parse("2025-08-18T10:43:20.123456789Z");
+        byte[] data = new WireFormat.Writer(WireFormat.ORDER_CANCELLED)
+                .uuid(orderId).uuid(userId).string("MSFT")
+                .decimal(new BigDecimal("3.25")).decimal(new BigDecimal("410.10")).instant(at)
+                .toBytes();
+
+        var evt = (OrderCancelledEvent) decode(data);
+
+        assertThat(evt.getOrderId()).isEqualTo(orderId);
+        assertThat(evt.getUserId()).isEqualTo(userId);
+        assertThat(evt.getTicker()).isEqualTo("MSFT");
+        assertThat(evt.getQuantity()).isEqualTo(new BigDecimal("3.25"));
+        assertThat(evt.getPrice()).isEqualTo(new BigDecimal("410.10"));
+        assertThat(evt.getTimestamp()).isEqualTo(at);
+    }
+
+    @Test
+    void orderAmendedDecodesUnchangedFieldsAsNull() {
+        UUID orderId = UUID.randomUUID();
+        byte[] data = new WireFormat.Writer(WireFormat.ORDER_AMENDED)
+                .uuid(orderId).uuid(UUID.randomUUID()).string("MSFT")
+                .decimal(null).decimal(new BigDecimal("7")).instant(Instant.EPOCH)
+                .toBytes();
+
+        var evt = (OrderAmendedEvent) decode(data);
+
+        assertThat(evt.getOrderId()).isEqualTo(orderId);
+        assertThat(evt.getPrice()).isNull();
+        assertThat(evt.getQuantity()).isEqualTo(new BigDecimal("7"));
+        assertThat(evt.getTimestamp()).isEqualTo(Instant.EPOCH);
+    }
+
+    @Test
+    void unexpectedTypeOrBadEnumIsRejected() {
+        byte[] badSide = new WireFormat.Writer(WireFormat.ORDER_PLACED)
+                .uuid(UUID.randomUUID()).uuid(UUID.randomUUID()).string("AAPL").string("SIDEWAYS")
+                .toBytes();
+
+        assertThatThrownBy(() -> decode(new WireFormat.Writer(WireFormat.TRADE_EXECUTED).toBytes()))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> decode(badSide)).isInstanceOf(SerializationException.class);
+    }
+}
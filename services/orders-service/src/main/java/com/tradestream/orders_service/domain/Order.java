@@ -46,7 +46,7 @@ public class Order {
     private Side side;
 
     @Enumerated(EnumType.STRING)
-    @Column(nullable = false, length = 8)
+    @Column(nullable = false, length = 16)
     private OrderType type;
 
     @Enumerated(EnumType.STRING)
@@ -56,6 +56,10 @@ public class Order {
     @Column(nullable = false, precision = 18, scale = 6)
     private BigDecimal quantity;
 
+    // iceberg peak shown in the book at a time; null for fully displayed orders
+    @Column(name = "display_quantity", precision = 18, scale = 6)
+    private BigDecimal displayQuantity;
+
     @Builder.Default
     @Column(name = "filled_quantity", nullable = false, precision = 18, scale = 6)
     private BigDecimal filledQuantity = BigDecimal.ZERO;
@@ -64,9 +68,13 @@ public class Order {
     @Column(name = "last_fill_price", precision = 18, scale = 6) // nullable = true (default)
     private BigDecimal lastFillPrice = null; // start null; set when you get a fill price
 
-    // nullable for MARKET; required for LIMIT
+    // nullable for MARKET and STOP; required for LIMIT and STOP_LIMIT
     @Column(precision = 18, scale = 6)
     private BigDecimal price;
+
+    // trigger price; required for STOP and STOP_LIMIT, null otherwise
+    @Column(name = "stop_price", precision = 18, scale = 6)
+    private BigDecimal stopPrice;
     
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 24)
@@ -1,3 +1,3 @@
 package com.tradestream.orders_service.domain;
 
-public enum OrderType { MARKET, LIMIT }
+public enum OrderType { MARKET, LIMIT, STOP, STOP_LIMIT }
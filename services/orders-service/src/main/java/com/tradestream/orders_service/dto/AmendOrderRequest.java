@@ -0,0 +1,11 @@
+package com.tradestream.orders_service.dto;
+
+import java.math.BigDecimal;
+
+import jakarta.validation.constraints.DecimalMin;
+
+/** Replaces the price and/or total quantity of a working order; null keeps the current value. */
+public record AmendOrderRequest(
+        @DecimalMin(value = "0.000001") BigDecimal price,    // LIMIT / STOP_LIMIT only
+        @DecimalMin(value = "0.000001") BigDecimal quantity  // new total, must stay above what is filled
+) { }
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
 
+import com.tradestream.orders_service.domain.Order;
 import com.tradestream.orders_service.domain.OrderStatus;
 import com.tradestream.orders_service.domain.OrderType;
 import com.tradestream.orders_service.domain.Side;
@@ -17,11 +18,34 @@ public record OrderResponse(
     OrderType type,
     TimeInForce timeInForce,
     BigDecimal quantity,
+    BigDecimal displayQuantity,
     BigDecimal price,
+    BigDecimal stopPrice,
     OrderStatus status,
     BigDecimal filledQuantity,
     BigDecimal remainingQuantity,
     BigDecimal lastFillPrice,
     Instant createdAt,
     Instant updatedAt
-) {}
+) {
+    public static OrderResponse from(Order o) {
+        return new OrderResponse(
+            o.getId(),
+            o.getUserId(),
+            o.getTicker(),
+            o.getSide(),
+            o.getType(),
+            o.getTimeInForce(),
+            o.getQuantity(),
+            o.getDisplayQuantity(),
+            o.getPrice(),
+            o.getStopPrice(),
+            o.getStatus(),
+            o.getFilledQuantity(),
+            o.remainingQuantity(),
+            o.getLastFillPrice(),
+            o.getCreatedAt(),
+            o.getUpdatedAt()
+        );
+    }
+}
@@ -19,5 +19,7 @@ public record PlaceOrderRequest(
         @NotNull OrderType type,
         @NotNull TimeInForce timeInForce,
         @NotNull @DecimalMin(value = "0.000001") BigDecimal quantity,
-        @DecimalMin(value = "0.000001") BigDecimal price // required if type=LIMIT
+        @DecimalMin(value = "0.000001") BigDecimal price, // required if type=LIMIT or STOP_LIMIT
+        @DecimalMin(value = "0.000001") BigDecimal stopPrice, // trigger; required if type=STOP or STOP_LIMIT
+        @DecimalMin(value = "0.000001") BigDecimal displayQuantity // iceberg peak; GTC LIMIT/STOP_LIMIT only
 ) { }
@@ -0,0 +1,10 @@
+package com.tradestream.orders_service.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+
+/** A basket of orders placed in one call; each order is validated and accepted or rejected on its own. */
+public record PlaceOrdersBatchRequest(
+        @NotEmpty List<PlaceOrderRequest> orders
+) { }
@@ -0,0 +1,27 @@
+package com.tradestream.orders_service.dto;
+
+import java.util.List;
+
+/** One result per submitted order, in request order. */
+public record PlaceOrdersBatchResponse(
+        int accepted,
+        int rejected,
+        List<Result> results
+) {
+    /** {@code order} is set when accepted; {@code code}/{@code message} as in the single-order error body when rejected. */
+    public record Result(
+            int index,
+            boolean accepted,
+            OrderResponse order,
+            String code,
+            String message
+    ) {
+        public static Result accepted(int index, OrderResponse order) {
+            return new Result(index, true, order, null, null);
+        }
+
+        public static Result rejected(int index, String code, String message) {
+            return new Result(index, false, null, code, message);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.tradestream.orders_service.events;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Payload sent to topic order.amended.v1: the order's price and total quantity after the amend. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderAmendedEvent {
+    private UUID orderId;
+    private UUID userId;
+    private String ticker;
+    private BigDecimal price;
+    private BigDecimal quantity;
+    @JsonFormat(shape = JsonFormat.Shape.STRING) private Instant timestamp;
+}
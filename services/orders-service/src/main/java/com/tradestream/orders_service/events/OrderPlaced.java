@@ -18,6 +18,8 @@ public record OrderPlaced(
         OrderType type,
         TimeInForce timeInForce,
         BigDecimal quantity,
-        BigDecimal price,       // null for MARKET
-        @JsonFormat(shape = JsonFormat.Shape.STRING) Instant timestamp       // event time (createdAt)
+        BigDecimal price,       // null for MARKET and STOP
+        @JsonFormat(shape = JsonFormat.Shape.STRING) Instant timestamp,      // event time (createdAt)
+        BigDecimal stopPrice,   // trigger for STOP / STOP_LIMIT, null otherwise
+        BigDecimal displayQuantity // iceberg peak, null for fully displayed orders
 ) { }
@@ -1,73 +1,127 @@
 package com.tradestream.orders_service.kafka;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.tradestream.orders_service.domain.IngestedFillId;
+import com.tradestream.orders_service.domain.Order;
 import com.tradestream.orders_service.domain.OrderStatus;
 import com.tradestream.orders_service.dto.TradeExecuted;
-import com.tradestream.orders_service.repo.IngestedFillRepository;
+import com.tradestream.orders_service.repo.IngestedFillBatchRepository;
+import com.tradestream.orders_service.repo.IngestedFillBatchRepository.Fill;
 import com.tradestream.orders_service.repo.OrderRepository;
+import com.tradestream.orders_service.risk.RiskCache;
+import com.tradestream.orders_service.service.OrderCache;
+import com.tradestream.orders_service.stream.OrderUpdateHub;
 
 import lombok.RequiredArgsConstructor;
 
+/**
+ * Applies a whole poll of trades in one transaction: every leg goes into {@code ingested_fills} with one
+ * statement, the legs that were new are summed per order, and each touched order is locked and updated once
+ * (locks taken in id order, so two consumers can't deadlock). A sweep that hits one order 50 times in a poll
+ * costs one row lock and one update instead of 50.
+ */
 @Component
 @RequiredArgsConstructor
 public class TradeExecutedConsumer {
 
   private static final Logger log = LoggerFactory.getLogger(TradeExecutedConsumer.class);
 
-  private final IngestedFillRepository ingestedRepo;
+  private final IngestedFillBatchRepository ingestedRepo;
   private final OrderRepository orderRepo;
+  private final RiskCache risk;
+  private final OrderUpdateHub updates;
+  private final OrderCache cache;
+
+  /** New fills of one order within the poll; price is the last one's. */
+  private static final class Pending {
+    BigDecimal qty = BigDecimal.ZERO;
+    BigDecimal lastPrice;
+  }
 
   @KafkaListener(
       topics = "${tradestream.topics.tradeExecuted:trade.executed.v1}",
-      groupId = "${KAFKA_CONSUMER_GROUP:orders-exec-consumer}"
+      groupId = "${KAFKA_CONSUMER_GROUP:orders-exec-consumer}",
+      batch = "true"
   )
   @Transactional
-  public void onExecuted(TradeExecuted t) {
-    boolean touched = false;
+  public void onExecuted(List<ConsumerRecord<String, TradeExecuted>> records) {
+    List<TradeExecuted> trades = new ArrayList<>(records.size());
+    List<Fill> legs = new ArrayList<>(records.size() * 2);
+    for (ConsumerRecord<String, TradeExecuted> rec : records) {
+      TradeExecuted t = rec.value();
+      if (t == null) {
+        // ErrorHandlingDeserializer hands undecodable records through as null
+        log.warn("Skipping undecodable trade at {}-{}@{}", rec.topic(), rec.partition(), rec.offset());
+        continue;
+      }
+      trades.add(t);
+      risk.onTrade(t.ticker(), t.price());
+      if (t.buyOrderId() != null) legs.add(new Fill(t.buyOrderId(), t.tradeId(), t.ticker(), t.timestamp()));
+      if (t.sellOrderId() != null) legs.add(new Fill(t.sellOrderId(), t.tradeId(), t.ticker(), t.timestamp()));
+    }
+    if (legs.isEmpty()) return;
 
-    if (t.buyOrderId() != null) {
-      touched |= applyOnce(t.tradeId(), t.buyOrderId(), t.ticker(), t.timestamp(), t.quantity(), t.price());
+    Set<IngestedFillId> fresh = ingestedRepo.insertNew(legs);
+    if (fresh.size() < legs.size()) {
+      log.debug("{} of {} trade legs in this poll were already applied", legs.size() - fresh.size(), legs.size());
     }
-    if (t.sellOrderId() != null) {
-      touched |= applyOnce(t.tradeId(), t.sellOrderId(), t.ticker(), t.timestamp(), t.quantity(), t.price());
+    Map<UUID, Pending> byOrder = new LinkedHashMap<>();
+    for (TradeExecuted t : trades) {
+      collect(byOrder, fresh, t.buyOrderId(), t);
+      collect(byOrder, fresh, t.sellOrderId(), t);
     }
+    if (byOrder.isEmpty()) return;
 
-    if (!touched) {
-      log.debug("Trade {} already applied for both legs; ignoring", t.tradeId());
+    List<Order> locked = orderRepo.findAllByIdForUpdate(byOrder.keySet());
+    for (Order order : locked) {
+      Pending p = byOrder.remove(order.getId());
+      apply(order, p);
     }
+    byOrder.keySet().forEach(id -> log.warn("Trades reference unknown order {}", id)); // ledger rows stay: handled
   }
 
-  private boolean applyOnce(UUID tradeId, UUID orderId, String ticker,
-                            java.time.Instant ts, BigDecimal qty, BigDecimal price) {
-    int inserted = ingestedRepo.tryInsert(orderId, tradeId, ticker, ts);
-    if (inserted == 0) return false; // already processed this (order,trade)
-
-    return orderRepo.findByIdForUpdate(orderId).map(order -> {
-      if (order.getStatus() == OrderStatus.CANCELED || order.getStatus() == OrderStatus.FILLED) return true;
+  private static void collect(Map<UUID, Pending> byOrder, Set<IngestedFillId> fresh, UUID orderId, TradeExecuted t) {
+    if (orderId == null || !fresh.remove(new IngestedFillId(orderId, t.tradeId()))) return; // duplicate leg
+    Pending p = byOrder.computeIfAbsent(orderId, id -> new Pending());
+    p.qty = p.qty.add(t.quantity());
+    p.lastPrice = t.price();
+  }
 
-      BigDecimal remaining = order.remainingQuantity();
-      if (remaining.signum() <= 0) return true;
+  private void apply(Order order, Pending p) {
+    if (order.getStatus() == OrderStatus.CANCELED) return;
 
-      BigDecimal exec = qty.compareTo(remaining) > 0 ? remaining : qty;
-      order.applyFill(exec);
-      order.setLastFillPrice(price);
-      order.setUpdatedAt(java.time.Instant.now());
-      orderRepo.save(order);
+    // Fresh fills past the total: an amend lowered it below what the engine had already filled, so the engine
+    // closed the order at what traded. Follow it rather than drop real fills.
+    BigDecimal exec = p.qty;
+    if (exec.compareTo(order.remainingQuantity()) > 0) {
+      log.warn("Order {} filled past its amended quantity {}; the engine closed it at {}",
+          order.getId(), order.getQuantity(), order.getFilledQuantity().add(exec));
+      order.setQuantity(order.getFilledQuantity().add(exec));
+    }
+    order.applyFill(exec);
+    order.setLastFillPrice(p.lastPrice);
+    order.setUpdatedAt(Instant.now());
+    orderRepo.save(order);
+    risk.onFill(order.getId(), order.getUserId(), order.getTicker(), order.getSide(), exec);
+    cache.update(order);
+    updates.publish(order);
 
-      log.info("Applied fill {} to order {} → status={}, filled={}, remaining={}",
-          exec, order.getId(), order.getStatus(), order.getFilledQuantity(), order.remainingQuantity());
-      return true;
-    }).orElseGet(() -> {
-      log.warn("Trade {} references unknown order {}", tradeId, orderId);
-      return true; // we inserted the idempotency row; treat as handled
-    });
+    log.debug("Applied fill {} to order {} → status={}, filled={}, remaining={}",
+        exec, order.getId(), order.getStatus(), order.getFilledQuantity(), order.remainingQuantity());
   }
 }
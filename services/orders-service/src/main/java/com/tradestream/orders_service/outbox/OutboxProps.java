@@ -0,0 +1,20 @@
+package com.tradestream.orders_service.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Configuration
+@ConfigurationProperties(prefix = "tradestream.outbox")
+@Getter @Setter
+public class OutboxProps {
+    // keys hash into this many shards; order is kept within a shard. Changing it while rows are pending
+    // can reorder those rows, so drain the table first.
+    private int shards = 8;
+    private int batchSize = 500;
+    private long pollMs = 50;
+    private long sendTimeoutMs = 10_000;
+    private long retryBackoffMs = 1_000; // a failed shard waits this long; the others keep draining
+}
@@ -0,0 +1,184 @@
+package com.tradestream.orders_service.outbox;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tradestream.orders_service.events.OrderAmendedEvent;
+import com.tradestream.orders_service.events.OrderCancelledEvent;
+import com.tradestream.orders_service.events.OrderPlaced;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Publishes {@code outbox} rows to Kafka. Each shard is drained in id order by one relay at a time (a
+ * transaction-scoped advisory lock, rows claimed {@code FOR UPDATE SKIP LOCKED}): a batch is sent, flushed
+ * and acknowledged, then deleted in the same transaction. A failed send (or a failed DELETE/commit after a
+ * good one) leaves the batch to be sent again, so delivery is at-least-once. Every copy of a row carries the
+ * row's {@code event_id} as the {@code eventId} header, which the matching engine dedups on, and the row's
+ * created_at as its timestamp, so a resend is recognised as the message it repeats.
+ *
+ * Shards fail on their own: one that keeps failing (a row that can't be decoded, a record the broker always
+ * rejects) is skipped for {@code retryBackoffMs} between attempts while the others keep draining.
+ */
+@Component
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final int LOCK_CLASS = 0x4f42; // 'OB': first key of pg_try_advisory_xact_lock(int, int)
+    private static final Map<String, Class<?>> TYPES = Map.of(
+            OrderPlaced.class.getSimpleName(), OrderPlaced.class,
+            OrderCancelledEvent.class.getSimpleName(), OrderCancelledEvent.class,
+            OrderAmendedEvent.class.getSimpleName(), OrderAmendedEvent.class);
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final KafkaTemplate<String, Object> kafka;
+    private final ObjectMapper json;
+    private final OutboxProps props;
+
+    private final long[] retryAt; // per shard: System.nanoTime() before which a failed shard is skipped
+    private final boolean[] failed;
+
+    private final Object signal = new Object();
+    private boolean pending;
+    private volatile boolean running;
+    private Thread worker;
+
+    private record Row(long id, UUID eventId, String topic, String key, String type, String payload, long createdAt) { }
+
+    public OutboxRelay(JdbcTemplate jdbc, TransactionTemplate tx, KafkaTemplate<String, Object> kafka,
+                       ObjectMapper json, OutboxProps props) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.kafka = kafka;
+        this.json = json;
+        this.props = props;
+        this.retryAt = new long[props.getShards()];
+        this.failed = new boolean[props.getShards()];
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = new Thread(this::run, "outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        wake();
+        worker.join(props.getSendTimeoutMs());
+    }
+
+    /** Called after a transaction that wrote to the outbox commits, so the relay doesn't wait out its poll. */
+    void wake() {
+        synchronized (signal) {
+            pending = true;
+            signal.notify();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (pass() == 0) idle();
+        }
+    }
+
+    /** One batch from every shard that isn't backing off; returns rows sent. Runs on the relay thread only. */
+    int pass() {
+        int sent = 0;
+        for (int shard = 0; shard < retryAt.length; shard++) {
+            if (failed[shard] && retryAt[shard] - System.nanoTime() > 0) continue;
+            final int s = shard;
+            try {
+                sent += tx.execute(status -> drain(s));
+                failed[shard] = false;
+            } catch (RuntimeException e) {
+                log.warn("Outbox shard {} failed; retrying in {} ms", shard, props.getRetryBackoffMs(), e);
+                failed[shard] = true;
+                retryAt[shard] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(props.getRetryBackoffMs());
+            }
+        }
+        return sent;
+    }
+
+    private void idle() {
+        synchronized (signal) {
+            if (!pending && running) {
+                try {
+                    signal.wait(props.getPollMs());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            }
+            pending = false;
+        }
+    }
+
+    /** One batch of one shard; returns rows sent (0 if another relay holds the shard). */
+    private int drain(int shard) {
+        Boolean mine = jdbc.queryForObject("SELECT pg_try_advisory_xact_lock(?, ?)", Boolean.class, LOCK_CLASS, shard);
+        if (!Boolean.TRUE.equals(mine)) return 0;
+
+        List<Row> rows = jdbc.query("""
+                SELECT id, event_id, topic, msg_key, event_type, payload, created_at FROM outbox
+                WHERE shard = ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED
+                """, (rs, i) -> new Row(rs.getLong(1), rs.getObject(2, UUID.class), rs.getString(3),
+                        rs.getString(4), rs.getString(5), rs.getString(6), rs.getTimestamp(7).getTime()),
+                shard, props.getBatchSize());
+        if (rows.isEmpty()) return 0;
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(rows.size());
+        for (Row r : rows) sends.add(kafka.send(record(r)));
+        kafka.flush();
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(props.getSendTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Outbox send failed for shard " + shard, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending outbox shard " + shard, e);
+        }
+
+        jdbc.batchUpdate("DELETE FROM outbox WHERE id = ?", rows, rows.size(), (ps, r) -> ps.setLong(1, r.id()));
+        return rows.size();
+    }
+
+    private ProducerRecord<String, Object> record(Row r) {
+        var rec = new ProducerRecord<String, Object>(r.topic(), null, r.createdAt(), r.key(), decode(r));
+        rec.headers().add("eventId", r.eventId().toString().getBytes(StandardCharsets.UTF_8));
+        return rec;
+    }
+
+    private Object decode(Row r) {
+        Class<?> type = TYPES.get(r.type());
+        if (type == null) throw new IllegalStateException("Unknown outbox event type " + r.type() + " (id " + r.id() + ")");
+        try {
+            return json.readValue(r.payload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox row " + r.id(), e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.tradestream.orders_service.outbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/** Queues an event in the caller's transaction; {@link OutboxRelay} sends it once that commits. */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper json;
+    private final OutboxProps props;
+    private final OutboxRelay relay;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(String topic, String key, Object event) {
+        addAll(topic, List.of(event), e -> key);
+    }
+
+    /** Queues events with one JDBC batch; they are relayed in list order per key. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> void addAll(String topic, List<T> events, Function<T, String> keyOf) {
+        if (events.isEmpty()) return;
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (T event : events) {
+            String key = keyOf.apply(event);
+            rows.add(new Object[] { UUID.randomUUID(), shardOf(key), topic, key, event.getClass().getSimpleName(),
+                    toJson(event) });
+        }
+        jdbc.batchUpdate("INSERT INTO outbox(event_id, shard, topic, msg_key, event_type, payload) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() { relay.wake(); }
+        });
+    }
+
+    private String toJson(Object event) {
+        try {
+            return json.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + event.getClass().getSimpleName(), e);
+        }
+    }
+
+    private int shardOf(String key) {
+        return Math.floorMod(key.hashCode(), props.getShards());
+    }
+}
@@ -0,0 +1,64 @@
+package com.tradestream.orders_service.repo;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.tradestream.orders_service.domain.IngestedFillId;
+
+import lombok.RequiredArgsConstructor;
+
+/** Set-based writes to the {@code ingested_fills} idempotency ledger. */
+@Repository
+@RequiredArgsConstructor
+public class IngestedFillBatchRepository {
+
+  private final JdbcTemplate jdbc;
+
+  public record Fill(UUID orderId, UUID tradeId, String ticker, Instant ts) { }
+
+  /** Inserts all fills in one statement and returns the (order, trade) pairs that weren't there before. */
+  public Set<IngestedFillId> insertNew(List<Fill> fills) {
+    Set<IngestedFillId> inserted = new HashSet<>();
+    if (fills.isEmpty()) return inserted;
+    int n = fills.size();
+    UUID[] orderIds = new UUID[n];
+    UUID[] tradeIds = new UUID[n];
+    String[] tickers = new String[n];
+    Timestamp[] ts = new Timestamp[n];
+    for (int i = 0; i < n; i++) {
+      Fill f = fills.get(i);
+      orderIds[i] = f.orderId();
+      tradeIds[i] = f.tradeId();
+      tickers[i] = f.ticker();
+      ts[i] = Timestamp.from(f.ts());
+    }
+    jdbc.query(con -> {
+      PreparedStatement ps = con.prepareStatement("""
+          INSERT INTO ingested_fills(order_id, trade_id, ticker, ts)
+          SELECT * FROM unnest(?, ?, ?, ?)
+          ON CONFLICT (order_id, trade_id) DO NOTHING
+          RETURNING order_id, trade_id
+          """);
+      Array[] arrays = {
+          con.createArrayOf("uuid", orderIds),
+          con.createArrayOf("uuid", tradeIds),
+          con.createArrayOf("varchar", tickers),
+          con.createArrayOf("timestamptz", ts)
+      };
+      for (int i = 0; i < arrays.length; i++) ps.setArray(i + 1, arrays[i]);
+      return ps;
+    }, rs -> {
+      inserted.add(new IngestedFillId(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)));
+    });
+    return inserted;
+  }
+}
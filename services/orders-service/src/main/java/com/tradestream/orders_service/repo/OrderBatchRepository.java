@@ -0,0 +1,45 @@
+package com.tradestream.orders_service.repo;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.tradestream.orders_service.domain.Order;
+
+import lombok.RequiredArgsConstructor;
+
+/** Multi-row inserts that bypass JPA; callers assign ids, timestamps and the upper-cased ticker. */
+@Repository
+@RequiredArgsConstructor
+public class OrderBatchRepository {
+
+    private final JdbcTemplate jdbc;
+
+    /** Inserts new orders with one JDBC batch in the caller's transaction. */
+    public void insertAll(List<Order> orders) {
+        if (orders.isEmpty()) return;
+        jdbc.batchUpdate("""
+                INSERT INTO orders(id, user_id, ticker, side, type, time_in_force, quantity, display_quantity,
+                                   price, stop_price, filled_quantity, status, created_at, updated_at, version)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+                """, orders, orders.size(), (ps, o) -> {
+            ps.setObject(1, o.getId());
+            ps.setObject(2, o.getUserId());
+            ps.setString(3, o.getTicker());
+            ps.setString(4, o.getSide().name());
+            ps.setString(5, o.getType().name());
+            ps.setString(6, o.getTimeInForce().name());
+            ps.setBigDecimal(7, o.getQuantity());
+            ps.setObject(8, o.getDisplayQuantity(), Types.NUMERIC);
+            ps.setObject(9, o.getPrice(), Types.NUMERIC);
+            ps.setObject(10, o.getStopPrice(), Types.NUMERIC);
+            ps.setBigDecimal(11, o.getFilledQuantity());
+            ps.setString(12, o.getStatus().name());
+            ps.setTimestamp(13, Timestamp.from(o.getCreatedAt()));
+            ps.setTimestamp(14, Timestamp.from(o.getUpdatedAt()));
+        });
+    }
+}
@@ -1,5 +1,7 @@
 package com.tradestream.orders_service.repo;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -8,6 +10,8 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 
 import com.tradestream.orders_service.domain.Order;
+import com.tradestream.orders_service.domain.OrderStatus;
+import com.tradestream.orders_service.domain.TimeInForce;
 
 import jakarta.persistence.LockModeType;
 
@@ -16,4 +20,16 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select o from Order o where o.id = :id")
     Optional<Order> findByIdForUpdate(UUID id);
+
+    /** Locks in id order, so concurrent batch consumers always acquire row locks in the same sequence. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id in :ids order by o.id")
+    List<Order> findAllByIdForUpdate(Collection<UUID> ids);
+
+    List<Order> findByStatusInAndTimeInForce(List<OrderStatus> statuses, TimeInForce timeInForce);
+
+    /** Rows of (userId, ticker, side, filled quantity) for the risk cache's starting positions. */
+    @Query("select o.userId, o.ticker, o.side, sum(o.filledQuantity) from Order o"
+            + " where o.filledQuantity > 0 group by o.userId, o.ticker, o.side")
+    List<Object[]> sumFilledByUserTickerSide();
 }
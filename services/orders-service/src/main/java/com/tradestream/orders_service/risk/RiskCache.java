@@ -0,0 +1,273 @@
+package com.tradestream.orders_service.risk;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tradestream.orders_service.domain.Order;
+import com.tradestream.orders_service.domain.OrderStatus;
+import com.tradestream.orders_service.domain.OrderType;
+import com.tradestream.orders_service.domain.Side;
+import com.tradestream.orders_service.domain.TimeInForce;
+import com.tradestream.orders_service.repo.OrderRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory pre-trade risk state per user: open notional of working GTC orders, and per ticker the net
+ * filled position plus working quantity on each side. Loaded once at startup, then kept current from this
+ * service's own order changes and {@code trade.executed}, so a check never reads Postgres.
+ *
+ * Reservations are taken before the order row is written and undone if the transaction rolls back; fills
+ * and cancels are applied after commit. Only orders that can rest are reserved (GTC LIMIT and STOP_LIMIT):
+ * IOC/FOK, MARKET and STOP orders are only checked, since the engine cancels whatever they leave unfilled
+ * without telling us. MARKET orders are priced at the ticker's last trade (STOP
+ * at its stop price); with no trade seen yet their notional is not checked. The state covers the orders
+ * and trades this instance sees, so it assumes one orders-service instance (or users pinned to one).
+ */
+@Component
+public class RiskCache {
+    private static final Logger log = LoggerFactory.getLogger(RiskCache.class);
+
+    private final OrderRepository repo;
+    private final RiskProps limits;
+    private final Map<UUID, Account> accounts = new ConcurrentHashMap<>();
+    private final Map<UUID, Reservation> working = new ConcurrentHashMap<>();
+    private final Map<String, BigDecimal> lastPrice = new ConcurrentHashMap<>();
+
+    /** One user's totals; guarded by its own monitor. */
+    private static final class Account {
+        BigDecimal openNotional = BigDecimal.ZERO;
+        final Map<String, Exposure> byTicker = new HashMap<>();
+
+        Exposure exposure(String ticker) { return byTicker.computeIfAbsent(ticker, t -> new Exposure()); }
+    }
+
+    private static final class Exposure {
+        BigDecimal position = BigDecimal.ZERO;   // + long, - short
+        BigDecimal openBuy = BigDecimal.ZERO;
+        BigDecimal openSell = BigDecimal.ZERO;
+    }
+
+    /** What one working order holds against its user's limits. */
+    public static final class Reservation {
+        final UUID userId;
+        final String ticker;
+        final Side side;
+        BigDecimal unitPrice;    // null: not counted in notional
+        BigDecimal remaining;
+        UUID orderId;            // set by bind()
+
+        Reservation(UUID userId, String ticker, Side side, BigDecimal unitPrice, BigDecimal remaining) {
+            this.userId = userId;
+            this.ticker = ticker;
+            this.side = side;
+            this.unitPrice = unitPrice;
+            this.remaining = remaining;
+        }
+
+        BigDecimal notional() { return unitPrice == null ? BigDecimal.ZERO : unitPrice.multiply(remaining); }
+    }
+
+    public RiskCache(OrderRepository repo, RiskProps limits) {
+        this.repo = repo;
+        this.limits = limits;
+    }
+
+    /** Runs before the web server and Kafka listeners start, so no update can race the load. */
+    @PostConstruct
+    void load() {
+        if (!limits.isEnabled()) return;
+        for (Object[] row : repo.sumFilledByUserTickerSide()) {
+            Exposure e = account((UUID) row[0]).exposure((String) row[1]);
+            BigDecimal filled = (BigDecimal) row[3];
+            e.position = e.position.add(row[2] == Side.BUY ? filled : filled.negate());
+        }
+        List<Order> open = repo.findByStatusInAndTimeInForce(
+                List.of(OrderStatus.NEW, OrderStatus.PARTIALLY_FILLED), TimeInForce.GTC);
+        for (Order o : open) {
+            if (!rests(o.getType(), o.getTimeInForce())) continue;
+            Reservation r = new Reservation(o.getUserId(), o.getTicker(), o.getSide(), unitPrice(o.getTicker(),
+                    o.getPrice(), o.getStopPrice()), o.remainingQuantity());
+            hold(account(r.userId), r, 1);
+            working.put(o.getId(), r);
+        }
+        log.info("Risk cache loaded: {} users, {} working orders", accounts.size(), working.size());
+    }
+
+    /**
+     * Checks a new order against the limits and, if it can rest, reserves it. Call before the row is written;
+     * the reservation is undone if the surrounding transaction rolls back. Returns null when nothing was reserved.
+     */
+    public Reservation reserve(UUID userId, String ticker, Side side, OrderType type, TimeInForce tif,
+                               BigDecimal quantity, BigDecimal price, BigDecimal stopPrice) {
+        if (!limits.isEnabled()) return null;
+        if (positive(limits.getMaxOrderQuantity()) && quantity.compareTo(limits.getMaxOrderQuantity()) > 0) {
+            throw new RiskLimitExceededException("quantity exceeds the per-order limit of " + limits.getMaxOrderQuantity());
+        }
+        String key = ticker.toUpperCase();
+        Reservation r = new Reservation(userId, key, side, unitPrice(key, price, stopPrice), quantity);
+        Account a = account(userId);
+        synchronized (a) {
+            check(a, r, BigDecimal.ZERO, BigDecimal.ZERO);
+            if (!rests(type, tif)) return null;
+            hold(a, r, 1);
+        }
+        onRollback(() -> {
+            release(r);
+            if (r.orderId != null) working.remove(r.orderId);
+        });
+        return r;
+    }
+
+    /** Records the id the reserved order was saved under, so fills and cancels can find it. */
+    public void bind(Reservation r, UUID orderId) {
+        if (r == null) return;
+        r.orderId = orderId;
+        working.put(orderId, r);
+    }
+
+    /**
+     * Re-checks a working order at its new price / remaining quantity and moves its reservation; undone on
+     * rollback. Orders without a reservation (see {@link #rests}) only have their limits re-checked.
+     */
+    public void amend(UUID orderId, UUID userId, String ticker, Side side, BigDecimal price, BigDecimal stopPrice,
+                      BigDecimal remaining) {
+        if (!limits.isEnabled()) return;
+        Reservation r = working.get(orderId);
+        Account a = account(userId);
+        synchronized (a) {
+            if (r == null) {
+                check(a, new Reservation(userId, ticker, side, unitPrice(ticker, price, stopPrice), remaining),
+                        BigDecimal.ZERO, BigDecimal.ZERO);
+                return;
+            }
+            BigDecimal oldPrice = r.unitPrice, oldRemaining = r.remaining;
+            Reservation next = new Reservation(userId, ticker, side, unitPrice(ticker, price, stopPrice), remaining);
+            check(a, next, r.notional(), r.remaining);
+            hold(a, r, -1);
+            r.unitPrice = next.unitPrice;
+            r.remaining = next.remaining;
+            hold(a, r, 1);
+            onRollback(() -> {
+                synchronized (a) {
+                    hold(a, r, -1);
+                    r.unitPrice = oldPrice;
+                    r.remaining = oldRemaining;
+                    hold(a, r, 1);
+                }
+            });
+        }
+    }
+
+    /** A fill of {@code qty} on one of the user's orders; applied once the fill has committed. */
+    public void onFill(UUID orderId, UUID userId, String ticker, Side side, BigDecimal qty) {
+        if (!limits.isEnabled()) return;
+        afterCommit(() -> {
+            Account a = account(userId);
+            synchronized (a) {
+                Exposure e = a.exposure(ticker);
+                e.position = e.position.add(side == Side.BUY ? qty : qty.negate());
+                Reservation r = working.get(orderId);
+                if (r == null) return;
+                BigDecimal used = qty.min(r.remaining);
+                hold(a, r, -1);
+                r.remaining = r.remaining.subtract(used);
+                if (r.remaining.signum() > 0) hold(a, r, 1);
+                else working.remove(orderId);
+            }
+        });
+    }
+
+    /** The order left the book without filling the rest (cancel); applied once that has committed. */
+    public void onClosed(UUID orderId) {
+        if (!limits.isEnabled()) return;
+        afterCommit(() -> {
+            Reservation r = working.remove(orderId);
+            if (r != null) release(r);
+        });
+    }
+
+    /** Reference price for MARKET orders on this ticker. */
+    public void onTrade(String ticker, BigDecimal price) {
+        if (limits.isEnabled() && ticker != null && price != null) lastPrice.put(ticker.toUpperCase(), price);
+    }
+
+    private void check(Account a, Reservation r, BigDecimal heldNotional, BigDecimal heldQty) {
+        if (positive(limits.getMaxOpenNotional())
+                && a.openNotional.subtract(heldNotional).add(r.notional()).compareTo(limits.getMaxOpenNotional()) > 0) {
+            throw new RiskLimitExceededException("open notional would exceed the limit of " + limits.getMaxOpenNotional());
+        }
+        if (positive(limits.getMaxPosition())) {
+            Exposure e = a.exposure(r.ticker);
+            BigDecimal worst = r.side == Side.BUY
+                    ? e.position.add(e.openBuy).subtract(heldQty).add(r.remaining)
+                    : e.position.subtract(e.openSell).add(heldQty).subtract(r.remaining).negate();
+            if (worst.compareTo(limits.getMaxPosition()) > 0) {
+                throw new RiskLimitExceededException(r.ticker + " position would exceed the limit of " + limits.getMaxPosition());
+            }
+        }
+    }
+
+    /** Adds ({@code sign} 1) or removes (-1) a reservation from its account; caller holds the account lock. */
+    private static void hold(Account a, Reservation r, int sign) {
+        BigDecimal n = r.notional(), q = r.remaining;
+        if (sign < 0) { n = n.negate(); q = q.negate(); }
+        a.openNotional = a.openNotional.add(n);
+        Exposure e = a.exposure(r.ticker);
+        if (r.side == Side.BUY) e.openBuy = e.openBuy.add(q);
+        else e.openSell = e.openSell.add(q);
+    }
+
+    private void release(Reservation r) {
+        Account a = account(r.userId);
+        synchronized (a) {
+            hold(a, r, -1);
+        }
+    }
+
+    /** Whether the engine may leave this order working; anything else ends with the command that placed it. */
+    private static boolean rests(OrderType type, TimeInForce tif) {
+        return tif == TimeInForce.GTC && (type == OrderType.LIMIT || type == OrderType.STOP_LIMIT);
+    }
+
+    private BigDecimal unitPrice(String ticker, BigDecimal price, BigDecimal stopPrice) {
+        if (price != null) return price;
+        if (stopPrice != null) return stopPrice;
+        return lastPrice.get(ticker);
+    }
+
+    private Account account(UUID userId) { return accounts.computeIfAbsent(userId, u -> new Account()); }
+
+    private static boolean positive(BigDecimal v) { return v != null && v.signum() > 0; }
+
+    private static void onRollback(Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) undo.run();
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() { action.run(); }
+        });
+    }
+}
@@ -0,0 +1,8 @@
+package com.tradestream.orders_service.risk;
+
+/** An order or amend would take the user past one of the {@link RiskProps} limits. */
+public class RiskLimitExceededException extends RuntimeException {
+    public RiskLimitExceededException(String message) {
+        super(message);
+    }
+}
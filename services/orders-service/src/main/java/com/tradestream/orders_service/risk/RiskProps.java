@@ -0,0 +1,22 @@
+package com.tradestream.orders_service.risk;
+
+import java.math.BigDecimal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** Per-user pre-trade limits; zero disables a limit. */
+@Configuration
+@ConfigurationProperties(prefix = "tradestream.risk")
+@Getter @Setter
+public class RiskProps {
+    private boolean enabled = true;
+    private BigDecimal maxOrderQuantity = BigDecimal.ZERO;
+    // sum of remaining quantity x limit (or stop) price over a user's working GTC orders
+    private BigDecimal maxOpenNotional = BigDecimal.ZERO;
+    // absolute net filled quantity per ticker, counting working orders on the side that would grow it
+    private BigDecimal maxPosition = BigDecimal.ZERO;
+}
@@ -0,0 +1,106 @@
+package com.tradestream.orders_service.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tradestream.orders_service.domain.Order;
+import com.tradestream.orders_service.dto.OrderResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded read-through cache of {@link OrderResponse} by order id, for {@code GET /orders/{id}}. Every path that
+ * changes an order (place, amend, cancel, fill) writes the new state here after its transaction commits, so
+ * entries never need a TTL. Each entry carries the row's JPA version and an older version never replaces a
+ * newer one, which keeps a slow miss from overwriting a fill that committed while it was reading.
+ *
+ * LRU by access, split into segments with their own lock so lookups don't all queue on one monitor.
+ * Metrics: {@code orders.cache.gets{result=hit|miss}}, {@code orders.cache.size}.
+ */
+@Component
+public class OrderCache {
+    private static final int SEGMENTS = 16;
+
+    private record Entry(long version, OrderResponse order) { }
+
+    private final Map<UUID, Entry>[] segments;
+    private final Counter hits;
+    private final Counter misses;
+
+    @SuppressWarnings("unchecked")
+    public OrderCache(@Value("${tradestream.orders.cacheSize:100000}") int size, MeterRegistry registry) {
+        int perSegment = Math.max(1, size / SEGMENTS);
+        this.segments = new Map[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) { return size() > perSegment; }
+            };
+        }
+        this.hits = Counter.builder("orders.cache.gets").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("orders.cache.gets").tag("result", "miss").register(registry);
+        Gauge.builder("orders.cache.size", this, OrderCache::size).register(registry);
+    }
+
+    public Optional<OrderResponse> get(UUID id) {
+        Map<UUID, Entry> seg = segment(id);
+        Entry e;
+        synchronized (seg) {
+            e = seg.get(id);
+        }
+        (e != null ? hits : misses).increment();
+        return e == null ? Optional.empty() : Optional.of(e.order());
+    }
+
+    /** Caches a state just read from the database. */
+    public OrderResponse load(Order o) {
+        OrderResponse r = OrderResponse.from(o);
+        store(o.getVersion(), r);
+        return r;
+    }
+
+    /**
+     * Caches the order's new state once the current transaction commits (at once if there is none). The
+     * response is built then, because version and updatedAt are only final after the flush.
+     */
+    public void update(Order o) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            store(o.getVersion(), OrderResponse.from(o));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() { store(o.getVersion(), OrderResponse.from(o)); }
+        });
+    }
+
+    private void store(long version, OrderResponse r) {
+        Map<UUID, Entry> seg = segment(r.id());
+        synchronized (seg) {
+            Entry cur = seg.get(r.id());
+            if (cur == null || cur.version() <= version) seg.put(r.id(), new Entry(version, r));
+        }
+    }
+
+    private Map<UUID, Entry> segment(UUID id) {
+        return segments[(id.hashCode() & 0x7fffffff) % SEGMENTS];
+    }
+
+    private double size() {
+        long n = 0;
+        for (Map<UUID, Entry> seg : segments) {
+            synchronized (seg) {
+                n += seg.size();
+            }
+        }
+        return n;
+    }
+}
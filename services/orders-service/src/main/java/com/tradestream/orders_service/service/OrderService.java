@@ -1,24 +1,38 @@
 package com.tradestream.orders_service.service;
 
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.tradestream.orders_service.domain.Order;
 import com.tradestream.orders_service.domain.OrderStatus;
 import com.tradestream.orders_service.domain.OrderType;
+import com.tradestream.orders_service.domain.TimeInForce;
+import com.tradestream.orders_service.dto.AmendOrderRequest;
 import com.tradestream.orders_service.dto.OrderResponse;
 import com.tradestream.orders_service.dto.PlaceOrderRequest;
+import com.tradestream.orders_service.dto.PlaceOrdersBatchRequest;
+import com.tradestream.orders_service.dto.PlaceOrdersBatchResponse;
+import com.tradestream.orders_service.events.OrderAmendedEvent;
 import com.tradestream.orders_service.events.OrderCancelledEvent;
 import com.tradestream.orders_service.events.OrderPlaced;
-import com.tradestream.orders_service.kafka.OrderProducer;
+import com.tradestream.orders_service.outbox.OutboxWriter;
+import com.tradestream.orders_service.repo.OrderBatchRepository;
 import com.tradestream.orders_service.repo.OrderRepository;
+import com.tradestream.orders_service.risk.RiskCache;
+import com.tradestream.orders_service.risk.RiskLimitExceededException;
+import com.tradestream.orders_service.stream.OrderUpdateHub;
 
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ValidationException;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -26,37 +40,148 @@ import lombok.RequiredArgsConstructor;
 public class OrderService {
 
     private final OrderRepository repo;
-    private final OrderProducer producer;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-    
+    private final OrderBatchRepository batchRepo;
+    private final Validator validator;
+    private final OutboxWriter outbox;
+    private final RiskCache risk;
+    private final OrderUpdateHub updates;
+    private final OrderCache cache;
+
+    @Value("${tradestream.topics.orderPlaced:order.placed.v1}")
+    private String orderPlacedTopic;
+
+    @Value("${tradestream.orders.maxBatchSize:500}")
+    private int maxBatchSize;
+
     @Value("${tradestream.topics.orderCancelled:order.cancelled.v1}")
     private String orderCancelledTopic;
 
+    @Value("${tradestream.topics.orderAmended:order.amended.v1}")
+    private String orderAmendedTopic;
+
     @Transactional
     public OrderResponse place(PlaceOrderRequest r) {
-        // business validation
-        if (r.type() == OrderType.LIMIT && r.price() == null) {
-            throw new ValidationException("price is required for LIMIT orders");
+        validate(r);
+
+        // in-memory limits; a breach is rejected before anything is written
+        var reservation = risk.reserve(r.userId(), r.ticker(), r.side(), r.type(), r.timeInForce(),
+                r.quantity(), r.price(), r.stopPrice());
+
+        var order = newOrder(r);
+        order = repo.save(order);
+        risk.bind(reservation, order.getId());
+
+        // event for matching-engine, sent by the outbox relay once this commits; key by ticker to keep
+        // the same symbol in the same partition
+        var evt = placedEvent(order);
+        outbox.add(orderPlacedTopic, evt.ticker(), evt);
+
+        cache.update(order);
+        updates.publish(order);
+        return OrderResponse.from(order);
+    }
+
+    /**
+     * Places a basket in one transaction: every order is validated and risk-checked on its own, the accepted
+     * ones are inserted with one JDBC batch and queued for publishing with another. Rejections don't affect
+     * the rest of the basket.
+     */
+    @Transactional
+    public PlaceOrdersBatchResponse placeBatch(PlaceOrdersBatchRequest req) {
+        List<PlaceOrderRequest> in = req.orders();
+        if (in.size() > maxBatchSize) {
+            throw new ValidationException("at most " + maxBatchSize + " orders per batch");
+        }
+        PlaceOrdersBatchResponse.Result[] results = new PlaceOrdersBatchResponse.Result[in.size()];
+        List<Order> orders = new ArrayList<>(in.size());
+        List<Integer> positions = new ArrayList<>(in.size());
+        Instant now = Instant.now();
+
+        for (int i = 0; i < in.size(); i++) {
+            PlaceOrderRequest r = in.get(i);
+            try {
+                if (r == null) throw new ValidationException("order is required");
+                Set<ConstraintViolation<PlaceOrderRequest>> violations = validator.validate(r);
+                if (!violations.isEmpty()) {
+                    var v = violations.iterator().next();
+                    throw new ValidationException(v.getPropertyPath() + " " + v.getMessage());
+                }
+                validate(r);
+                var reservation = risk.reserve(r.userId(), r.ticker(), r.side(), r.type(), r.timeInForce(),
+                        r.quantity(), r.price(), r.stopPrice());
+
+                // what @PrePersist would have done, since these rows skip JPA
+                Order o = newOrder(r);
+                o.setId(UUID.randomUUID());
+                o.setTicker(o.getTicker().toUpperCase());
+                o.setCreatedAt(now);
+                o.setUpdatedAt(now);
+                risk.bind(reservation, o.getId());
+                orders.add(o);
+                positions.add(i);
+            } catch (ValidationException e) {
+                results[i] = PlaceOrdersBatchResponse.Result.rejected(i, "BAD_REQUEST", e.getMessage());
+            } catch (RiskLimitExceededException e) {
+                results[i] = PlaceOrdersBatchResponse.Result.rejected(i, "RISK_REJECTED", e.getMessage());
+            }
         }
-        if (r.type() == OrderType.MARKET && r.price() != null) {
-            throw new ValidationException("price must be null for MARKET orders");
+
+        batchRepo.insertAll(orders);
+        outbox.addAll(orderPlacedTopic, orders.stream().map(OrderService::placedEvent).toList(), OrderPlaced::ticker);
+
+        for (int k = 0; k < orders.size(); k++) {
+            int i = positions.get(k);
+            Order o = orders.get(k);
+            cache.update(o);
+            updates.publish(o);
+            results[i] = PlaceOrdersBatchResponse.Result.accepted(i, OrderResponse.from(o));
         }
+        return new PlaceOrdersBatchResponse(orders.size(), in.size() - orders.size(), List.of(results));
+    }
 
-        var order = Order.builder()
+    /** Business rules beyond the bean constraints on {@link PlaceOrderRequest}. */
+    private static void validate(PlaceOrderRequest r) {
+        boolean limit = r.type() == OrderType.LIMIT || r.type() == OrderType.STOP_LIMIT;
+        boolean stop = r.type() == OrderType.STOP || r.type() == OrderType.STOP_LIMIT;
+        if (limit && r.price() == null) {
+            throw new ValidationException("price is required for " + r.type() + " orders");
+        }
+        if (!limit && r.price() != null) {
+            throw new ValidationException("price must be null for " + r.type() + " orders");
+        }
+        if (stop && r.stopPrice() == null) {
+            throw new ValidationException("stopPrice is required for " + r.type() + " orders");
+        }
+        if (!stop && r.stopPrice() != null) {
+            throw new ValidationException("stopPrice must be null for " + r.type() + " orders");
+        }
+        if (r.displayQuantity() != null) {
+            if (!limit || r.timeInForce() != TimeInForce.GTC) {
+                throw new ValidationException("displayQuantity is only allowed on GTC LIMIT and STOP_LIMIT orders");
+            }
+            if (r.displayQuantity().compareTo(r.quantity()) >= 0) {
+                throw new ValidationException("displayQuantity must be less than quantity");
+            }
+        }
+    }
+
+    private static Order newOrder(PlaceOrderRequest r) {
+        return Order.builder()
                 .userId(r.userId())
                 .ticker(r.ticker())
                 .side(r.side())
                 .type(r.type())
                 .timeInForce(r.timeInForce())
                 .quantity(r.quantity())
+                .displayQuantity(r.displayQuantity())
                 .price(r.price())
+                .stopPrice(r.stopPrice())
                 .status(OrderStatus.NEW)
                 .build();
+    }
 
-        order = repo.save(order);
-
-        // publish event for matching-engine
-        var evt = new OrderPlaced(
+    private static OrderPlaced placedEvent(Order order) {
+        return new OrderPlaced(
                 order.getId(),
                 order.getUserId(),
                 order.getTicker(),
@@ -65,36 +190,71 @@ public class OrderService {
                 order.getTimeInForce(),
                 order.getQuantity(),
                 order.getPrice(),
-                order.getCreatedAt()
+                order.getCreatedAt(),
+                order.getStopPrice(),
+                order.getDisplayQuantity()
         );
-        producer.publish(evt);
-
-        return toResponse(order);
     }
 
-    @Transactional(readOnly = true)
-    public OrderResponse get(java.util.UUID id) {
-        var o = repo.findById(id).orElseThrow(() -> new IllegalArgumentException("order not found"));
-        return toResponse(o);
+    /** Served from {@link OrderCache} when possible; a miss is one read-only repository call. */
+    public OrderResponse get(UUID id) {
+        return cache.get(id).orElseGet(() -> cache.load(
+                repo.findById(id).orElseThrow(() -> new IllegalArgumentException("order not found"))));
     }
 
-    private static OrderResponse toResponse(Order o) {
-        return new OrderResponse(
-            o.getId(),
-            o.getUserId(),
-            o.getTicker(),
-            o.getSide(),
-            o.getType(),
-            o.getTimeInForce(),
-            o.getQuantity(),
-            o.getPrice(),
-            o.getStatus(),
-            o.getFilledQuantity(),
-            o.remainingQuantity(),
-            o.getLastFillPrice(),
-            o.getCreatedAt(),
-            o.getUpdatedAt()
-        );
+    /**
+     * Changes price and/or total quantity of a working order with one event; the engine applies it in place
+     * (a smaller quantity keeps time priority, a new price or a larger quantity goes to the back of the queue).
+     * The filled-quantity check only sees fills applied so far; if the engine had already filled the new total,
+     * it closes the order instead, and the fills still in flight then end it as FILLED at what actually traded
+     * (see TradeExecutedConsumer).
+     */
+    @Transactional
+    public OrderResponse amend(UUID orderId, AmendOrderRequest r) {
+        if (r.price() == null && r.quantity() == null) {
+            throw new ValidationException("price or quantity is required");
+        }
+        // Locked so a concurrent fill can't slip in between the filled-quantity check and the update
+        Order order = repo.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+
+        if (order.getStatus() != OrderStatus.NEW && order.getStatus() != OrderStatus.PARTIALLY_FILLED) {
+            throw new IllegalStateException("Only NEW or PARTIALLY_FILLED orders can be amended");
+        }
+        if (r.price() != null && order.getPrice() == null) {
+            throw new ValidationException("price can only be amended on LIMIT and STOP_LIMIT orders");
+        }
+        if (r.quantity() != null && r.quantity().compareTo(order.getFilledQuantity()) <= 0) {
+            throw new ValidationException("quantity must be greater than the filled quantity");
+        }
+        if (r.quantity() != null && order.getDisplayQuantity() != null
+                && order.getDisplayQuantity().compareTo(r.quantity()) >= 0) {
+            throw new ValidationException("quantity must be greater than displayQuantity");
+        }
+
+        BigDecimal price = r.price() != null ? r.price() : order.getPrice();
+        BigDecimal quantity = r.quantity() != null ? r.quantity() : order.getQuantity();
+        risk.amend(order.getId(), order.getUserId(), order.getTicker(), order.getSide(), price, order.getStopPrice(),
+                quantity.subtract(order.getFilledQuantity()));
+
+        order.setPrice(price);
+        order.setQuantity(quantity);
+        Order saved = repo.save(order);
+
+        OrderAmendedEvent event = OrderAmendedEvent.builder()
+                .orderId(saved.getId())
+                .userId(saved.getUserId())
+                .ticker(saved.getTicker())
+                .price(saved.getPrice())
+                .quantity(saved.getQuantity())
+                .timestamp(Instant.now())
+                .build();
+
+        outbox.add(orderAmendedTopic, saved.getTicker(), event);
+
+        cache.update(saved);
+        updates.publish(saved);
+        return OrderResponse.from(saved);
     }
 
     @Transactional
@@ -114,8 +274,9 @@ public class OrderService {
         order.setStatus(OrderStatus.CANCELED);
         order.setUpdatedAt(Instant.now());
         Order saved = repo.save(order);
+        risk.onClosed(saved.getId());
 
-        // Emit Kafka event once
+        // Emit Kafka event once (via the outbox)
         OrderCancelledEvent event = OrderCancelledEvent.builder()
                 .orderId(saved.getId())
                 .userId(saved.getUserId())
@@ -125,9 +286,10 @@ public class OrderService {
                 .timestamp(saved.getUpdatedAt())
                 .build();
 
-        kafkaTemplate.send(orderCancelledTopic, saved.getTicker(), event);
-
+        outbox.add(orderCancelledTopic, saved.getTicker(), event);
 
+        cache.update(saved);
+        updates.publish(saved);
         return saved;
     }
 
@@ -0,0 +1,198 @@
+package com.tradestream.orders_service.stream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.tradestream.orders_service.domain.Order;
+import com.tradestream.orders_service.dto.OrderResponse;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes order state to a user's open {@code GET /orders/stream} connections. Each connection has a bounded
+ * buffer keyed by order id: a newer state replaces an undelivered older one (conflation), so a burst of fills
+ * on one order costs one slot. A connection whose buffer fills with distinct orders is closed with an
+ * {@code overflow} event rather than blocking the publisher; the client reconnects and re-reads with GET.
+ * Sends run on a small pool, never on the consumer or request thread.
+ *
+ * Updates are published after the changing transaction commits. Only changes this instance makes or consumes
+ * are seen, so with several instances a client should stay on the one consuming its tickers.
+ */
+@Component
+public class OrderUpdateHub {
+    private static final Logger log = LoggerFactory.getLogger(OrderUpdateHub.class);
+
+    private final StreamProps props;
+    private final Map<UUID, Set<Subscriber>> byUser = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+
+    public OrderUpdateHub(StreamProps props) {
+        this.props = props;
+        AtomicInteger n = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(props.getSenderThreads(), r -> {
+            Thread t = new Thread(r, "order-stream-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-stream-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, props.getHeartbeatSeconds(), props.getHeartbeatSeconds(),
+                TimeUnit.SECONDS);
+    }
+
+    /** One connection: its emitter and the updates not yet written to it. */
+    private final class Subscriber {
+        final UUID userId;
+        final SseEmitter emitter = newEmitter(props.getTimeoutMs());
+        final LinkedHashMap<UUID, OrderResponse> pending = new LinkedHashMap<>();
+        boolean scheduled;   // a drain is queued or running
+        volatile boolean closed;
+
+        Subscriber(UUID userId) { this.userId = userId; }
+
+        void offer(OrderResponse update) {
+            synchronized (this) {
+                if (closed) return;
+                pending.remove(update.id());          // conflate, and move to the back
+                if (pending.size() >= props.getBufferSize()) {
+                    overflow();
+                    return;
+                }
+                pending.put(update.id(), update);
+                if (scheduled) return;
+                scheduled = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                List<OrderResponse> batch;
+                synchronized (this) {
+                    if (pending.isEmpty() || closed) {
+                        scheduled = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(pending.values());
+                    pending.clear();
+                }
+                try {
+                    for (OrderResponse u : batch) emitter.send(SseEmitter.event().name("order").data(u));
+                } catch (IOException | IllegalStateException e) {
+                    close(null);
+                    return;
+                }
+            }
+        }
+
+        /** Caller holds the monitor. */
+        private void overflow() {
+            log.warn("Order stream for user {} fell {} orders behind; closing it", userId, props.getBufferSize());
+            pending.clear();
+            senders.execute(() -> close("overflow"));
+            closed = true;
+        }
+
+        void close(String reason) {
+            closed = true;
+            remove(this);
+            try {
+                if (reason != null) emitter.send(SseEmitter.event().name(reason).data(reason));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // client already gone
+            }
+        }
+    }
+
+    /** Opens a stream of the user's order updates from now on. */
+    public SseEmitter subscribe(UUID userId) {
+        Subscriber s = new Subscriber(userId);
+        s.emitter.onCompletion(() -> remove(s));
+        s.emitter.onTimeout(() -> s.close(null));
+        s.emitter.onError(e -> remove(s));
+        byUser.computeIfAbsent(userId, u -> ConcurrentHashMap.newKeySet()).add(s);
+        return s.emitter;
+    }
+
+    /**
+     * Queues the order's new state for its owner's connections once the current transaction commits; the
+     * state is read then, after the flush has set updatedAt.
+     */
+    public void publish(Order order) {
+        if (!byUser.containsKey(order.getUserId())) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deliver(order);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() { deliver(order); }
+        });
+    }
+
+    /** Seam for tests, which record what would be written to the connection. */
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private void deliver(Order order) {
+        Set<Subscriber> subs = byUser.get(order.getUserId());
+        if (subs == null) return;
+        OrderResponse update = OrderResponse.from(order);
+        for (Subscriber s : subs) s.offer(update);
+    }
+
+    private void remove(Subscriber s) {
+        byUser.computeIfPresent(s.userId, (u, subs) -> {
+            subs.remove(s);
+            return subs.isEmpty() ? null : subs;
+        });
+    }
+
+    private void heartbeat() {
+        for (Set<Subscriber> subs : byUser.values()) {
+            for (Subscriber s : subs) {
+                senders.execute(() -> {
+                    try {
+                        synchronized (s) {
+                            if (s.closed || s.scheduled) return; // a drain is writing anyway
+                        }
+                        s.emitter.send(SseEmitter.event().comment("ping"));
+                    } catch (IOException | IllegalStateException e) {
+                        s.close(null);
+                    }
+                });
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeats.shutdownNow();
+        byUser.values().forEach(subs -> subs.forEach(s -> s.close(null)));
+        senders.shutdown();
+    }
+}
@@ -0,0 +1,19 @@
+package com.tradestream.orders_service.stream;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Configuration
+@ConfigurationProperties(prefix = "tradestream.stream")
+@Getter @Setter
+public class StreamProps {
+    // distinct orders with an undelivered update per connection; past this the connection is closed
+    private int bufferSize = 256;
+    private int senderThreads = 4;
+    private long heartbeatSeconds = 15;
+    // connections are closed after this; EventSource clients reconnect on their own
+    private long timeoutMs = 1_800_000;
+}
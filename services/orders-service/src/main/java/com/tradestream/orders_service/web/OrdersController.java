@@ -3,19 +3,26 @@ package com.tradestream.orders_service.web;
 import java.util.UUID;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.tradestream.orders_service.domain.Order;
+import com.tradestream.orders_service.dto.AmendOrderRequest;
 import com.tradestream.orders_service.dto.OrderResponse;
 import com.tradestream.orders_service.dto.PlaceOrderRequest;
+import com.tradestream.orders_service.dto.PlaceOrdersBatchRequest;
+import com.tradestream.orders_service.dto.PlaceOrdersBatchResponse;
 import com.tradestream.orders_service.service.OrderService;
+import com.tradestream.orders_service.stream.OrderUpdateHub;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +33,7 @@ import lombok.RequiredArgsConstructor;
 public class OrdersController {
 
     private final OrderService service;
+    private final OrderUpdateHub updates;
 
     @PostMapping
     @ResponseStatus(HttpStatus.ACCEPTED)
@@ -33,11 +41,32 @@ public class OrdersController {
         return service.place(req);
     }
 
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public PlaceOrdersBatchResponse placeBatch(@Valid @RequestBody PlaceOrdersBatchRequest req) {
+        return service.placeBatch(req);
+    }
+
+    /**
+     * Server-sent {@code order} events with the full {@link OrderResponse} each time one of the caller's orders
+     * changes. The caller is {@code X-User-Id}, which the gateway sets from the verified JWT (never the client).
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader("X-User-Id") UUID userId) {
+        return updates.subscribe(userId);
+    }
+
     @GetMapping("/{id}")
     public OrderResponse get(@PathVariable UUID id) {
         return service.get(id);
     }
 
+    @PostMapping("/{id}/amend")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public OrderResponse amend(@PathVariable UUID id, @Valid @RequestBody AmendOrderRequest req) {
+        return service.amend(id, req);
+    }
+
     @PostMapping("/{id}/cancel")
     public ResponseEntity<Order> cancelOrder(@PathVariable UUID id) {
         Order cancelled = service.cancelOrder(id);
@@ -6,6 +6,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import com.tradestream.orders_service.risk.RiskLimitExceededException;
+
 import jakarta.validation.ValidationException;
 
 @RestControllerAdvice
@@ -38,6 +40,10 @@ public class RestExceptionHandler {
         return ResponseEntity.status(409).body(new ApiError("CONFLICT", ex.getMessage()));
     }
 
+    @ExceptionHandler(RiskLimitExceededException.class)
+    public ResponseEntity<ApiError> handleRisk(RiskLimitExceededException ex) {
+        return ResponseEntity.unprocessableEntity().body(new ApiError("RISK_REJECTED", ex.getMessage()));
+    }
 
     record ApiError(String code, String message) {}
 }
@@ -0,0 +1,186 @@
+package com.tradestream.orders_service.wire;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Compact binary encoding shared by every TradeStream topic, selected per record by the content-type header
+ * (records without one are JSON).
+ *
+ * Layout: {@code [byte magic][byte version][byte type][int presence]} then each present field in declaration
+ * order. Bit i of {@code presence} says whether field i is there, so nulls cost nothing. UUIDs are two longs,
+ * decimals a scale byte plus an unscaled long, timestamps epoch nanos, strings and enum names a short length
+ * plus UTF-8. Fields are only ever appended: readers ignore fields past the ones they know, and fields a
+ * writer didn't send read as null.
+ */
+public final class WireFormat {
+    public static final String CONTENT_TYPE = "content-type";
+    public static final String JSON = "application/json";
+    public static final String BINARY = "application/x-tradestream-binary";
+    /** Producer config key selecting what {@link WireSerializer} writes: {@code json} (default) or {@code binary}. */
+    public static final String FORMAT_CONFIG = "tradestream.wire.format";
+
+    public static final byte ORDER_PLACED = 1;
+    public static final byte ORDER_CANCELLED = 2;
+    public static final byte TRADE_EXECUTED = 3;
+    public static final byte TRANSACTION_RECORDED = 4;
+    public static final byte ORDER_AMENDED = 5;
+
+    private static final byte MAGIC = 0x54; // 'T'
+    private static final byte VERSION = 1;
+
+    private WireFormat() { }
+
+    public static boolean isBinary(Headers headers) {
+        Header h = headers == null ? null : headers.lastHeader(CONTENT_TYPE);
+        return h != null && BINARY.equals(new String(h.value(), StandardCharsets.US_ASCII));
+    }
+
+    /** Builds one record; throws ArithmeticException if a value doesn't fit the layout. */
+    public static final class Writer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        private final ByteBuffer scratch = ByteBuffer.allocate(16);
+        private int presence;
+        private int field;
+
+        public Writer(byte type) {
+            out.write(MAGIC);
+            out.write(VERSION);
+            out.write(type);
+            out.writeBytes(new byte[4]); // presence, patched in toBytes()
+        }
+
+        private boolean present(Object v) {
+            if (field == 32) throw new IllegalStateException("More than 32 fields");
+            if (v != null) presence |= 1 << field;
+            field++;
+            return v != null;
+        }
+
+        private void flushScratch() {
+            out.write(scratch.array(), 0, scratch.position());
+            scratch.clear();
+        }
+
+        public Writer uuid(UUID v) {
+            if (present(v)) {
+                scratch.putLong(v.getMostSignificantBits()).putLong(v.getLeastSignificantBits());
+                flushScratch();
+            }
+            return this;
+        }
+
+        public Writer decimal(BigDecimal v) {
+            if (present(v)) {
+                if (v.scale() != (byte) v.scale()) throw new ArithmeticException("Scale out of range: " + v);
+                scratch.put((byte) v.scale()).putLong(v.unscaledValue().longValueExact());
+                flushScratch();
+            }
+            return this;
+        }
+
+        public Writer instant(Instant v) {
+            if (present(v)) {
+                scratch.putLong(Math.addExact(Math.multiplyExact(v.getEpochSecond(), 1_000_000_000L), v.getNano()));
+                flushScratch();
+            }
+            return this;
+        }
+
+        public Writer string(String v) {
+            if (present(v)) {
+                byte[] b = v.getBytes(StandardCharsets.UTF_8);
+                if (b.length > 0xFFFF) throw new ArithmeticException("String too long");
+                scratch.putShort((short) b.length);
+                flushScratch();
+                out.writeBytes(b);
+            }
+            return this;
+        }
+
+        public Writer enumName(Enum<?> v) { return string(v == null ? null : v.name()); }
+
+        public Writer int32(Integer v) {
+            if (present(v)) {
+                scratch.putInt(v);
+                flushScratch();
+            }
+            return this;
+        }
+
+        public byte[] toBytes() {
+            byte[] b = out.toByteArray();
+            ByteBuffer.wrap(b, 3, 4).putInt(presence);
+            return b;
+        }
+    }
+
+    /** Reads one record field by field, in the order the writer wrote them. */
+    public static final class Reader {
+        private final ByteBuffer buf;
+        private final byte type;
+        private final int presence;
+        private int field;
+
+        public Reader(byte[] data) {
+            buf = ByteBuffer.wrap(data);
+            try {
+                if (buf.get() != MAGIC) throw new SerializationException("Not a TradeStream binary record");
+                byte version = buf.get();
+                if (version != VERSION) throw new SerializationException("Unsupported wire version " + version);
+                type = buf.get();
+                presence = buf.getInt();
+            } catch (BufferUnderflowException e) {
+                throw new SerializationException("Truncated binary record", e);
+            }
+        }
+
+        public byte type() { return type; }
+
+        private boolean present() {
+            return field < 32 && (presence & (1 << field++)) != 0;
+        }
+
+        public UUID uuid() {
+            return present() ? new UUID(buf.getLong(), buf.getLong()) : null;
+        }
+
+        public BigDecimal decimal() {
+            if (!present()) return null;
+            int scale = buf.get();
+            return new BigDecimal(BigInteger.valueOf(buf.getLong()), scale);
+        }
+
+        public Instant instant() {
+            if (!present()) return null;
+            long nanos = buf.getLong();
+            return Instant.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), Math.floorMod(nanos, 1_000_000_000L));
+        }
+
+        public String string() {
+            if (!present()) return null;
+            byte[] b = new byte[Short.toUnsignedInt(buf.getShort())];
+            buf.get(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        public <E extends Enum<E>> E enumName(Class<E> type) {
+            String name = string();
+            return name == null ? null : Enum.valueOf(type, name);
+        }
+
+        public Integer int32() {
+            return present() ? buf.getInt() : null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.tradestream.orders_service.wire;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import com.tradestream.orders_service.events.OrderAmendedEvent;
+import com.tradestream.orders_service.events.OrderCancelledEvent;
+import com.tradestream.orders_service.events.OrderPlaced;
+
+/**
+ * Value serializer for this service's producers: JSON unless {@value WireFormat#FORMAT_CONFIG} is
+ * {@code binary}, in which case the events this service publishes go out in {@link WireFormat}.
+ * Either way the content-type header tells consumers which one they got. Values that don't fit the binary
+ * layout, and any other type, fall back to JSON; raw bytes (DLT republishing) pass through untouched.
+ */
+public class WireSerializer implements Serializer<Object> {
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+    private boolean binary;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        binary = "binary".equalsIgnoreCase(String.valueOf(configs.get(WireFormat.FORMAT_CONFIG)));
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return json.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null || data instanceof byte[]) return (byte[]) data;
+        headers.remove(WireFormat.CONTENT_TYPE);
+        if (binary) {
+            byte[] encoded = encode(data);
+            if (encoded != null) {
+                headers.add(WireFormat.CONTENT_TYPE, WireFormat.BINARY.getBytes(StandardCharsets.US_ASCII));
+                return encoded;
+            }
+        }
+        headers.add(WireFormat.CONTENT_TYPE, WireFormat.JSON.getBytes(StandardCharsets.US_ASCII));
+        return json.serialize(topic, headers, data);
+    }
+
+    private static byte[] encode(Object data) {
+        try {
+            if (data instanceof OrderPlaced o) {
+                return new WireFormat.Writer(WireFormat.ORDER_PLACED)
+                        .uuid(o.orderId())
+                        .uuid(o.userId())
+                        .string(o.ticker())
+                        .enumName(o.side())
+                        .enumName(o.type())
+                        .enumName(o.timeInForce())
+                        .decimal(o.price())
+                        .decimal(o.quantity())
+                        .instant(o.timestamp())
+                        .decimal(o.stopPrice())
+                        .decimal(o.displayQuantity())
+                        .toBytes();
+            }
+            if (data instanceof OrderCancelledEvent c) {
+                return new WireFormat.Writer(WireFormat.ORDER_CANCELLED)
+                        .uuid(c.getOrderId())
+                        .uuid(c.getUserId())
+                        .string(c.getTicker())
+                        .decimal(c.getQuantity())
+                        .decimal(c.getPrice())
+                        .instant(c.getTimestamp())
+                        .toBytes();
+            }
+            if (data instanceof OrderAmendedEvent a) {
+                return new WireFormat.Writer(WireFormat.ORDER_AMENDED)
+                        .uuid(a.getOrderId())
+                        .uuid(a.getUserId())
+                        .string(a.getTicker())
+                        .decimal(a.getPrice())
+                        .decimal(a.getQuantity())
+                        .instant(a.getTimestamp())
+                        .toBytes();
+            }
+        } catch (ArithmeticException e) {
+            // e.g. a decimal wider than a long: JSON can still carry it
+        }
+        return null;
+    }
+
+    @Override
+    public void close() { json.close(); }
+}
@@ -0,0 +1,5 @@
+-- Stable id per outbox row, sent as the eventId header: a row sent again (failed DELETE or commit after the
+-- send) is the same message to the matching engine's processed_messages ledger, not a new offset.
+ALTER TABLE outbox ADD COLUMN event_id UUID;
+UPDATE outbox SET event_id = gen_random_uuid() WHERE event_id IS NULL;
+ALTER TABLE outbox ALTER COLUMN event_id SET NOT NULL;
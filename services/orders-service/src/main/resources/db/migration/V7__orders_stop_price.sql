@@ -0,0 +1,3 @@
+-- STOP / STOP_LIMIT orders: wider type column and the trigger price
+ALTER TABLE orders ALTER COLUMN type TYPE VARCHAR(16);
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS stop_price NUMERIC(18,6);
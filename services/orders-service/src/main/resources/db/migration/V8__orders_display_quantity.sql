@@ -0,0 +1,2 @@
+-- Iceberg orders: quantity shown in the book at a time
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS display_quantity NUMERIC(18,6);
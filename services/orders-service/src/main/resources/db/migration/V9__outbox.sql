@@ -0,0 +1,12 @@
+-- Events written in the same transaction as the order change; OutboxRelay publishes then deletes them.
+CREATE TABLE outbox (
+    id          BIGSERIAL    PRIMARY KEY,
+    shard       SMALLINT     NOT NULL,          -- hash(msg_key) % shards; one relay drains a shard at a time
+    topic       VARCHAR(128) NOT NULL,
+    msg_key     VARCHAR(16)  NOT NULL,          -- ticker
+    event_type  VARCHAR(64)  NOT NULL,
+    payload     TEXT         NOT NULL,          -- JSON; re-serialized by the producer's WireSerializer
+    created_at  TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_outbox_shard_id ON outbox(shard, id);
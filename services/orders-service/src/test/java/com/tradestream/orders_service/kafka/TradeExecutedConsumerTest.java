@@ -0,0 +1,210 @@
+package com.tradestream.orders_service.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tradestream.orders_service.domain.IngestedFillId;
+import com.tradestream.orders_service.domain.Order;
+import com.tradestream.orders_service.domain.OrderStatus;
+import com.tradestream.orders_service.domain.OrderType;
+import com.tradestream.orders_service.domain.Side;
+import com.tradestream.orders_service.domain.TimeInForce;
+import com.tradestream.orders_service.dto.TradeExecuted;
+import com.tradestream.orders_service.repo.IngestedFillBatchRepository;
+import com.tradestream.orders_service.repo.IngestedFillBatchRepository.Fill;
+import com.tradestream.orders_service.repo.OrderRepository;
+import com.tradestream.orders_service.risk.RiskCache;
+import com.tradestream.orders_service.service.OrderCache;
+import com.tradestream.orders_service.stream.OrderUpdateHub;
+
+/**
+ * One poll of trades against mocked repositories. The ingested_fills ledger is a set: insertNew returns the
+ * legs it didn't hold yet and remembers them. findAllByIdForUpdate returns whichever of {@link #orders} were asked for.
+ */
+class TradeExecutedConsumerTest {
+    private static final String TOPIC = "trade.executed.v1";
+
+    private final IngestedFillBatchRepository ingestedRepo = mock(IngestedFillBatchRepository.class);
+    private final OrderRepository orderRepo = mock(OrderRepository.class);
+    private final RiskCache risk = mock(RiskCache.class);
+    private final OrderUpdateHub updates = mock(OrderUpdateHub.class);
+    private final OrderCache cache = mock(OrderCache.class);
+    private final Set<IngestedFillId> ledger = new HashSet<>();
+    private final List<Order> orders = new ArrayList<>();
+    private final List<Set<UUID>> locked = new ArrayList<>(); // ids of each findAllByIdForUpdate, as called
+    private TradeExecutedConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        when(ingestedRepo.insertNew(anyList())).thenAnswer(inv -> {
+            Set<IngestedFillId> fresh = new HashSet<>();
+            for (Fill f : inv.<List<Fill>>getArgument(0)) {
+                var id = new IngestedFillId(f.orderId(), f.tradeId());
+                if (ledger.add(id)) fresh.add(id);
+            }
+            return fresh;
+        });
+        when(orderRepo.findAllByIdForUpdate(anyCollection())).thenAnswer(inv -> {
+            Collection<UUID> ids = inv.getArgument(0);
+            locked.add(Set.copyOf(ids));
+            return orders.stream().filter(o -> ids.contains(o.getId())).toList();
+        });
+        consumer = new TradeExecutedConsumer(ingestedRepo, orderRepo, risk, updates, cache);
+    }
+
+    private Order order(Side side, String qty, String filled, OrderStatus status) {
+        Order o = Order.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .ticker("AAPL")
+                .side(side)
+                .type(OrderType.LIMIT)
+                .timeInForce(TimeInForce.GTC)
+                .quantity(new BigDecimal(qty))
+                .filledQuantity(new BigDecimal(filled))
+                .price(new BigDecimal("100"))
+                .status(status)
+                .build();
+        orders.add(o);
+        return o;
+    }
+
+    private static TradeExecuted trade(UUID tradeId, UUID buy, UUID sell, String qty, String price) {
+        return new TradeExecuted(tradeId, buy, sell, "AAPL", new BigDecimal(price), new BigDecimal(qty),
+                Instant.now());
+    }
+
+    private void poll(TradeExecuted... trades) {
+        List<ConsumerRecord<String, TradeExecuted>> recs = new ArrayList<>();
+        for (TradeExecuted t : trades) recs.add(new ConsumerRecord<>(TOPIC, 0, recs.size(), "AAPL", t));
+        consumer.onExecuted(recs);
+    }
+
+    @Test
+    void legsOfOneOrderInAPollAreSummedIntoOneUpdate() {
+        Order buy = order(Side.BUY, "10", "0", OrderStatus.NEW);
+        Order sellA = order(Side.SELL, "3", "0", OrderStatus.NEW);
+        Order sellB = order(Side.SELL, "4", "0", OrderStatus.NEW);
+
+        poll(trade(UUID.randomUUID(), buy.getId(), sellA.getId(), "3", "100"),
+                trade(UUID.randomUUID(), buy.getId(), sellB.getId(), "4", "101"));
+
+        assertThat(buy.getFilledQuantity()).isEqualByComparingTo("7");
+        assertThat(buy.getStatus()).isEqualTo(OrderStatus.PARTIALLY_FILLED);
+        assertThat(buy.getLastFillPrice()).isEqualByComparingTo("101");
+        assertThat(sellA.getStatus()).isEqualTo(OrderStatus.FILLED);
+        assertThat(locked).containsExactly(Set.of(buy.getId(), sellA.getId(), sellB.getId()));
+        verify(orderRepo).save(buy);
+        verify(risk).onFill(buy.getId(), buy.getUserId(), "AAPL", Side.BUY, new BigDecimal("7"));
+        verify(cache).update(buy);
+        verify(updates).publish(buy);
+    }
+
+    @Test
+    void repeatedLegIsAppliedOnce() {
+        Order buy = order(Side.BUY, "10", "0", OrderStatus.NEW);
+        UUID tradeId = UUID.randomUUID();
+        TradeExecuted t = trade(tradeId, buy.getId(), null, "2", "100");
+
+        poll(t, t);                 // redelivered within the poll
+        poll(t);                    // and again in a later one
+
+        assertThat(buy.getFilledQuantity()).isEqualByComparingTo("2");
+        verify(orderRepo).save(buy);
+        verify(risk).onFill(any(), any(), any(), any(), eq(new BigDecimal("2")));
+    }
+
+    @Test
+    void pollOfOnlyKnownLegsLocksNothing() {
+        Order buy = order(Side.BUY, "10", "0", OrderStatus.NEW);
+        UUID tradeId = UUID.randomUUID();
+        ledger.add(new IngestedFillId(buy.getId(), tradeId));
+
+        poll(trade(tradeId, buy.getId(), null, "2", "100"));
+
+        assertThat(locked).isEmpty();
+        assertThat(buy.getFilledQuantity()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void canceledOrderIsLeftAlone() {
+        Order buy = order(Side.BUY, "10", "4", OrderStatus.CANCELED);
+
+        poll(trade(UUID.randomUUID(), buy.getId(), null, "2", "100"));
+
+        assertThat(buy.getFilledQuantity()).isEqualByComparingTo("4");
+        assertThat(buy.getStatus()).isEqualTo(OrderStatus.CANCELED);
+        verify(orderRepo, never()).save(any());
+        verify(risk, never()).onFill(any(), any(), any(), any(), any());
+        verify(updates, never()).publish(any());
+    }
+
+    @Test
+    void overFillAfterAmendDownRaisesQuantityToWhatTraded() {
+        // amended from 10 down to 5 with 3 filled; the engine had already filled 4 more in flight
+        Order buy = order(Side.BUY, "5", "3", OrderStatus.PARTIALLY_FILLED);
+
+        poll(trade(UUID.randomUUID(), buy.getId(), null, "4", "100"));
+
+        assertThat(buy.getQuantity()).isEqualByComparingTo("7");
+        assertThat(buy.getFilledQuantity()).isEqualByComparingTo("7");
+        assertThat(buy.getStatus()).isEqualTo(OrderStatus.FILLED);
+        verify(risk).onFill(buy.getId(), buy.getUserId(), "AAPL", Side.BUY, new BigDecimal("4"));
+    }
+
+    @Test
+    void lateFillOnFilledOrderFollowsTheEngine() {
+        Order buy = order(Side.BUY, "5", "5", OrderStatus.FILLED);
+
+        poll(trade(UUID.randomUUID(), buy.getId(), null, "2", "100"));
+
+        assertThat(buy.getQuantity()).isEqualByComparingTo("7");
+        assertThat(buy.getFilledQuantity()).isEqualByComparingTo("7");
+        assertThat(buy.getStatus()).isEqualTo(OrderStatus.FILLED);
+    }
+
+    @Test
+    void unknownOrderIsSkippedAndTheOtherLegStillApplied() {
+        Order sell = order(Side.SELL, "10", "0", OrderStatus.NEW);
+        UUID unknown = UUID.randomUUID();
+
+        poll(trade(UUID.randomUUID(), unknown, sell.getId(), "3", "100"));
+
+        assertThat(sell.getFilledQuantity()).isEqualByComparingTo("3");
+        verify(orderRepo).save(sell);
+        verify(risk, never()).onFill(eq(unknown), any(), any(), any(), any());
+    }
+
+    @Test
+    void undecodableRecordIsSkipped() {
+        Order buy = order(Side.BUY, "10", "0", OrderStatus.NEW);
+        List<ConsumerRecord<String, TradeExecuted>> recs = new ArrayList<>(Arrays.asList(
+                new ConsumerRecord<>(TOPIC, 0, 0, "AAPL", (TradeExecuted) null),
+                new ConsumerRecord<>(TOPIC, 0, 1, "AAPL", trade(UUID.randomUUID(), buy.getId(), null, "1", "100"))));
+
+        consumer.onExecuted(recs);
+
+        assertThat(buy.getFilledQuantity()).isEqualByComparingTo("1");
+    }
+}
@@ -0,0 +1,193 @@
+package com.tradestream.orders_service.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tradestream.orders_service.events.OrderCancelledEvent;
+
+/**
+ * Drains shards through a mocked JdbcTemplate: each shard's claimed rows are stubbed per test, the advisory
+ * lock is always granted unless a test says otherwise. The relay thread isn't started; tests call pass().
+ */
+class OutboxRelayTest {
+    private static final String TOPIC = "order.cancelled.v1";
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafka = mock(KafkaTemplate.class);
+    private final ObjectMapper json = new ObjectMapper().findAndRegisterModules();
+    private final OutboxProps props = new OutboxProps();
+    private final Map<Integer, List<ResultSet>> claimed = new HashMap<>();
+    private final List<String> outcomes = new ArrayList<>();
+    private OutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        props.setShards(2);
+        props.setRetryBackoffMs(60_000);
+        var txManager = new AbstractPlatformTransactionManager() {
+            @Override protected Object doGetTransaction() { return new Object(); }
+            @Override protected void doBegin(Object tx, TransactionDefinition def) { }
+            @Override protected void doCommit(DefaultTransactionStatus status) { outcomes.add("commit"); }
+            @Override protected void doRollback(DefaultTransactionStatus status) { outcomes.add("rollback"); }
+        };
+        when(jdbc.queryForObject(anyString(), eq(Boolean.class), any(), any())).thenReturn(true);
+        when(jdbc.query(anyString(), any(RowMapper.class), anyInt(), anyInt())).thenAnswer(inv -> {
+            RowMapper<Object> mapper = inv.getArgument(1);
+            List<Object> rows = new ArrayList<>();
+            for (ResultSet rs : claimed.getOrDefault(inv.<Integer>getArgument(2), List.of())) {
+                rows.add(mapper.mapRow(rs, rows.size()));
+            }
+            return rows;
+        });
+        when(kafka.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        relay = new OutboxRelay(jdbc, new TransactionTemplate(txManager), kafka, json, props);
+    }
+
+    private void claim(int shard, long id, UUID eventId, String type, String payload, long createdAt)
+            throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(id);
+        when(rs.getObject(2, UUID.class)).thenReturn(eventId);
+        when(rs.getString(3)).thenReturn(TOPIC);
+        when(rs.getString(4)).thenReturn("AAPL");
+        when(rs.getString(5)).thenReturn(type);
+        when(rs.getString(6)).thenReturn(payload);
+        when(rs.getTimestamp(7)).thenReturn(new Timestamp(createdAt));
+        claimed.computeIfAbsent(shard, s -> new ArrayList<>()).add(rs);
+    }
+
+    private String cancelled(UUID orderId) throws Exception {
+        return json.writeValueAsString(OrderCancelledEvent.builder().orderId(orderId).ticker("AAPL").build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ProducerRecord<String, Object>> sent(int times) {
+        ArgumentCaptor<ProducerRecord<String, Object>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafka, times(times)).send(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Collection<?>> deleted(int times) {
+        ArgumentCaptor<Collection<?>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbc, times(times)).batchUpdate(eq("DELETE FROM outbox WHERE id = ?"), captor.capture(), anyInt(), any());
+        return captor.getAllValues();
+    }
+
+    private void verifyLockTaken(int shard, int times) {
+        verify(jdbc, times(times)).queryForObject(anyString(), eq(Boolean.class), any(), eq(shard));
+    }
+
+    @Test
+    void batchIsSentWithItsEventIdAndTimestampThenDeleted() throws Exception {
+        UUID eventId = UUID.randomUUID(), orderId = UUID.randomUUID();
+        claim(0, 7, eventId, "OrderCancelledEvent", cancelled(orderId), 1_700_000_000_000L);
+
+        assertThat(relay.pass()).isEqualTo(1);
+
+        var rec = sent(1).get(0);
+        assertThat(rec.topic()).isEqualTo(TOPIC);
+        assertThat(rec.key()).isEqualTo("AAPL");
+        assertThat(rec.timestamp()).isEqualTo(1_700_000_000_000L);
+        assertThat(((OrderCancelledEvent) rec.value()).getOrderId()).isEqualTo(orderId);
+        assertThat(new String(rec.headers().lastHeader("eventId").value(), StandardCharsets.UTF_8))
+                .isEqualTo(eventId.toString());
+        verify(kafka).flush();
+        assertThat(deleted(1).get(0)).hasSize(1);
+        assertThat(outcomes).containsExactly("commit", "commit");
+    }
+
+    @Test
+    void poisonedShardDoesNotHoldUpTheOthers() throws Exception {
+        claim(0, 1, UUID.randomUUID(), "NoSuchEvent", "{}", 0);
+        UUID orderId = UUID.randomUUID();
+        claim(1, 2, UUID.randomUUID(), "OrderCancelledEvent", cancelled(orderId), 0);
+
+        assertThat(relay.pass()).isEqualTo(1);
+
+        assertThat(sent(1)).extracting(r -> ((OrderCancelledEvent) r.value()).getOrderId()).containsExactly(orderId);
+        assertThat(deleted(1).get(0)).hasSize(1);
+        assertThat(outcomes).containsExactly("rollback", "commit");
+    }
+
+    @Test
+    void failedShardBacksOffWhileTheOthersKeepDraining() throws Exception {
+        claim(0, 1, UUID.randomUUID(), "OrderCancelledEvent", "not json", 0);
+
+        relay.pass();
+        relay.pass();
+
+        verifyLockTaken(0, 1);
+        verifyLockTaken(1, 2);
+        verify(kafka, never()).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    void failedShardIsRetriedOnceItsBackoffHasPassed() throws Exception {
+        props.setRetryBackoffMs(0);
+        claim(0, 1, UUID.randomUUID(), "OrderCancelledEvent", "not json", 0);
+
+        relay.pass();
+        relay.pass();
+
+        verifyLockTaken(0, 2);
+    }
+
+    @Test
+    void failedSendRollsBackWithoutDeleting() throws Exception {
+        when(kafka.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker")));
+        claim(0, 1, UUID.randomUUID(), "OrderCancelledEvent", cancelled(UUID.randomUUID()), 0);
+
+        assertThat(relay.pass()).isZero();
+
+        verify(jdbc, never()).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        assertThat(outcomes).containsExactly("rollback", "commit");
+    }
+
+    @Test
+    void shardHeldByAnotherRelayIsNotRead() throws Exception {
+        when(jdbc.queryForObject(anyString(), eq(Boolean.class), any(), eq(0))).thenReturn(false);
+        claim(0, 1, UUID.randomUUID(), "OrderCancelledEvent", cancelled(UUID.randomUUID()), 0);
+
+        assertThat(relay.pass()).isZero();
+
+        verify(jdbc, never()).query(anyString(), any(RowMapper.class), eq(0), anyInt());
+        verify(kafka, never()).send(any(ProducerRecord.class));
+    }
+}
@@ -0,0 +1,203 @@
+package com.tradestream.orders_service.risk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.tradestream.orders_service.domain.OrderType;
+import com.tradestream.orders_service.domain.Side;
+import com.tradestream.orders_service.domain.TimeInForce;
+import com.tradestream.orders_service.repo.OrderRepository;
+
+/**
+ * Reservations, rollback and after-commit accounting. The limits are read back through reserve(): an order
+ * that just fits passes, one unit more is rejected. "Transactions" are a bare synchronization scope that
+ * each test ends by hand.
+ */
+class RiskCacheTest {
+    private static final String TICKER = "AAPL";
+
+    private final RiskProps limits = new RiskProps();
+    private final UUID user = UUID.randomUUID();
+    private RiskCache risk;
+
+    @BeforeEach
+    void setUp() {
+        limits.setMaxOpenNotional(new BigDecimal("1000"));
+        risk = new RiskCache(mock(OrderRepository.class), limits);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private RiskCache.Reservation gtcBuy(String qty, String price) {
+        return risk.reserve(user, TICKER, Side.BUY, OrderType.LIMIT, TimeInForce.GTC,
+                new BigDecimal(qty), new BigDecimal(price), null);
+    }
+
+    /** Notional still free for this user: the largest 1 x price order that passes, probed at whole units. */
+    private void assertFree(int units) {
+        if (units < 1000) {
+            assertThatThrownBy(() -> risk.reserve(user, TICKER, Side.BUY, OrderType.LIMIT, TimeInForce.IOC,
+                    BigDecimal.ONE, BigDecimal.valueOf(units + 1), null))
+                    .isInstanceOf(RiskLimitExceededException.class);
+        }
+        // IOC is only checked, never reserved, so probing leaves the state alone
+        assertThat(risk.reserve(user, TICKER, Side.BUY, OrderType.LIMIT, TimeInForce.IOC,
+                BigDecimal.ONE, BigDecimal.valueOf(units), null)).isNull();
+    }
+
+    private static void begin() { TransactionSynchronizationManager.initSynchronization(); }
+
+    private static void commit() {
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static void rollback() {
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void gtcLimitOrderHoldsItsNotional() {
+        assertThat(gtcBuy("60", "10")).isNotNull();
+
+        assertFree(400);
+        assertThatThrownBy(() -> gtcBuy("41", "10"))
+                .isInstanceOf(RiskLimitExceededException.class)
+                .hasMessageContaining("open notional");
+    }
+
+    @Test
+    void ordersThatCannotRestAreCheckedButNotReserved() {
+        assertThat(risk.reserve(user, TICKER, Side.BUY, OrderType.LIMIT, TimeInForce.IOC,
+                new BigDecimal("100"), new BigDecimal("10"), null)).isNull();
+        assertThat(risk.reserve(user, TICKER, Side.BUY, OrderType.STOP, TimeInForce.GTC,
+                new BigDecimal("100"), null, new BigDecimal("10"))).isNull();
+
+        assertFree(1000);
+        assertThatThrownBy(() -> risk.reserve(user, TICKER, Side.BUY, OrderType.LIMIT, TimeInForce.FOK,
+                new BigDecimal("101"), new BigDecimal("10"), null))
+                .isInstanceOf(RiskLimitExceededException.class);
+    }
+
+    @Test
+    void perOrderQuantityLimitRejectsBeforeAnythingIsHeld() {
+        limits.setMaxOrderQuantity(new BigDecimal("50"));
+
+        assertThatThrownBy(() -> gtcBuy("51", "1"))
+                .isInstanceOf(RiskLimitExceededException.class)
+                .hasMessageContaining("per-order");
+        assertFree(1000);
+    }
+
+    @Test
+    void rollbackUndoesTheReservation() {
+        begin();
+        RiskCache.Reservation r = gtcBuy("80", "10");
+        risk.bind(r, UUID.randomUUID());
+        assertFree(200);
+        rollback();
+
+        assertFree(1000);
+    }
+
+    @Test
+    void commitKeepsTheReservation() {
+        begin();
+        risk.bind(gtcBuy("80", "10"), UUID.randomUUID());
+        commit();
+
+        assertFree(200);
+    }
+
+    @Test
+    void fillFreesItsShareOnlyAfterCommit() {
+        UUID orderId = UUID.randomUUID();
+        risk.bind(gtcBuy("100", "10"), orderId);
+        assertFree(0);
+
+        begin();
+        risk.onFill(orderId, user, TICKER, Side.BUY, new BigDecimal("30"));
+        assertThatThrownBy(() -> gtcBuy("1", "1")).isInstanceOf(RiskLimitExceededException.class);
+        commit();
+
+        assertFree(300);
+    }
+
+    @Test
+    void fillThatCompletesTheOrderReleasesIt() {
+        UUID orderId = UUID.randomUUID();
+        risk.bind(gtcBuy("100", "10"), orderId);
+
+        risk.onFill(orderId, user, TICKER, Side.BUY, new BigDecimal("100"));
+        // a late duplicate fill finds nothing left to release
+        risk.onFill(orderId, user, TICKER, Side.BUY, new BigDecimal("5"));
+
+        assertFree(1000);
+    }
+
+    @Test
+    void fillsGrowThePositionLimitedByMaxPosition() {
+        limits.setMaxOpenNotional(BigDecimal.ZERO);
+        limits.setMaxPosition(new BigDecimal("100"));
+        UUID orderId = UUID.randomUUID();
+        risk.bind(gtcBuy("60", "10"), orderId);
+        risk.onFill(orderId, user, TICKER, Side.BUY, new BigDecimal("60"));
+
+        // 60 long: a further 40 on the buy side fits, 41 doesn't; selling down is always fine
+        assertThat(gtcBuy("40", "10")).isNotNull();
+        assertThatThrownBy(() -> gtcBuy("1", "10"))
+                .isInstanceOf(RiskLimitExceededException.class)
+                .hasMessageContaining("position");
+        assertThat(risk.reserve(user, TICKER, Side.SELL, OrderType.LIMIT, TimeInForce.GTC,
+                new BigDecimal("160"), new BigDecimal("10"), null)).isNotNull();
+    }
+
+    @Test
+    void cancelReleasesOnlyAfterCommit() {
+        UUID orderId = UUID.randomUUID();
+        risk.bind(gtcBuy("100", "10"), orderId);
+
+        begin();
+        risk.onClosed(orderId);
+        assertFree(0);
+        commit();
+
+        assertFree(1000);
+    }
+
+    @Test
+    void amendMovesTheReservationAndRollbackRestoresIt() {
+        UUID orderId = UUID.randomUUID();
+        risk.bind(gtcBuy("50", "10"), orderId);
+
+        begin();
+        risk.amend(orderId, user, TICKER, Side.BUY, new BigDecimal("10"), null, new BigDecimal("90"));
+        assertFree(100);
+        rollback();
+        assertFree(500);
+
+        // checked against what the order already holds, not on top of it
+        risk.amend(orderId, user, TICKER, Side.BUY, new BigDecimal("20"), null, new BigDecimal("50"));
+        assertFree(0);
+        assertThatThrownBy(() -> risk.amend(orderId, user, TICKER, Side.BUY, new BigDecimal("20"), null,
+                new BigDecimal("51"))).isInstanceOf(RiskLimitExceededException.class);
+    }
+}
@@ -0,0 +1,172 @@
+package com.tradestream.orders_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.tradestream.orders_service.domain.Order;
+import com.tradestream.orders_service.domain.OrderStatus;
+import com.tradestream.orders_service.domain.OrderType;
+import com.tradestream.orders_service.domain.Side;
+import com.tradestream.orders_service.domain.TimeInForce;
+import com.tradestream.orders_service.dto.OrderResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Version guard, after-commit updates, the size bound and the metrics. Each state of an order is its own
+ * Order instance, as it would be when separate transactions read the row; "transactions" are a bare
+ * synchronization scope that each test ends by hand.
+ */
+class OrderCacheTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Order order(UUID id, long version, OrderStatus status, String filled) {
+        return Order.builder()
+                .id(id).userId(UUID.randomUUID()).ticker("AAPL")
+                .side(Side.BUY).type(OrderType.LIMIT).timeInForce(TimeInForce.GTC)
+                .quantity(BigDecimal.TEN).price(new BigDecimal("100")).filledQuantity(new BigDecimal(filled))
+                .status(status).version(version)
+                .build();
+    }
+
+    private static void begin() { TransactionSynchronizationManager.initSynchronization(); }
+
+    private static void commit() {
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static void rollback() {
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private double gets(String result) {
+        return registry.get("orders.cache.gets").tag("result", result).counter().count();
+    }
+
+    private double size() {
+        return registry.get("orders.cache.size").gauge().value();
+    }
+
+    @Test
+    void staleLoadDoesNotOverwriteANewerUpdate() {
+        var cache = new OrderCache(1000, registry);
+        UUID id = UUID.randomUUID();
+        Order readBeforeTheFill = order(id, 1, OrderStatus.NEW, "0");
+
+        // a fill commits while a miss is still between its SELECT and its load()
+        cache.update(order(id, 2, OrderStatus.FILLED, "10"));
+        OrderResponse returned = cache.load(readBeforeTheFill);
+
+        assertThat(returned.status()).isEqualTo(OrderStatus.NEW); // the caller still gets what it read
+        assertThat(cache.get(id)).get().extracting(OrderResponse::status).isEqualTo(OrderStatus.FILLED);
+    }
+
+    @Test
+    void sameOrNewerVersionReplaces() {
+        var cache = new OrderCache(1000, registry);
+        UUID id = UUID.randomUUID();
+
+        cache.load(order(id, 3, OrderStatus.NEW, "0"));
+        cache.load(order(id, 3, OrderStatus.PARTIALLY_FILLED, "4"));
+        assertThat(cache.get(id)).get().extracting(OrderResponse::filledQuantity).isEqualTo(new BigDecimal("4"));
+
+        cache.update(order(id, 4, OrderStatus.FILLED, "10"));
+        assertThat(cache.get(id)).get().extracting(OrderResponse::status).isEqualTo(OrderStatus.FILLED);
+    }
+
+    @Test
+    void updateLandsOnlyAfterCommit() {
+        var cache = new OrderCache(1000, registry);
+        UUID id = UUID.randomUUID();
+        cache.load(order(id, 1, OrderStatus.NEW, "0"));
+        Order o = order(id, 1, OrderStatus.NEW, "0");
+
+        begin();
+        o.setStatus(OrderStatus.CANCELED);
+        cache.update(o);
+        assertThat(cache.get(id)).get().extracting(OrderResponse::status).isEqualTo(OrderStatus.NEW);
+        o.setVersion(2); // the flush bumps the version before commit
+        commit();
+
+        assertThat(cache.get(id)).get().extracting(OrderResponse::status).isEqualTo(OrderStatus.CANCELED);
+    }
+
+    @Test
+    void rollbackLeavesTheCacheAlone() {
+        var cache = new OrderCache(1000, registry);
+        UUID cached = UUID.randomUUID(), placed = UUID.randomUUID();
+        cache.load(order(cached, 1, OrderStatus.NEW, "0"));
+
+        begin();
+        cache.update(order(cached, 2, OrderStatus.CANCELED, "0"));
+        cache.update(order(placed, 0, OrderStatus.NEW, "0"));
+        rollback();
+
+        assertThat(cache.get(cached)).get().extracting(OrderResponse::status).isEqualTo(OrderStatus.NEW);
+        assertThat(cache.get(placed)).isEmpty();
+    }
+
+    @Test
+    void sizeStaysWithinCacheSize() {
+        var cache = new OrderCache(64, registry);
+
+        for (int i = 0; i < 5_000; i++) cache.load(order(UUID.randomUUID(), 0, OrderStatus.NEW, "0"));
+
+        assertThat(size()).isPositive().isLessThanOrEqualTo(64);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyReadEntryOfASegment() {
+        var cache = new OrderCache(32, registry); // 16 segments of 2
+        List<UUID> sameSegment = new ArrayList<>();
+        while (sameSegment.size() < 3) {
+            UUID id = UUID.randomUUID();
+            if ((id.hashCode() & 0x7fffffff) % 16 == 0) sameSegment.add(id);
+        }
+        UUID first = sameSegment.get(0), second = sameSegment.get(1), third = sameSegment.get(2);
+
+        cache.load(order(first, 0, OrderStatus.NEW, "0"));
+        cache.load(order(second, 0, OrderStatus.NEW, "0"));
+        cache.get(first);
+        cache.load(order(third, 0, OrderStatus.NEW, "0"));
+
+        assertThat(cache.get(first)).isPresent();
+        assertThat(cache.get(second)).isEmpty();
+        assertThat(cache.get(third)).isPresent();
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        var cache = new OrderCache(1000, registry);
+        UUID id = UUID.randomUUID();
+
+        cache.get(id);
+        cache.load(order(id, 0, OrderStatus.NEW, "0"));
+        cache.get(id);
+        cache.get(id);
+
+        assertThat(gets("miss")).isEqualTo(1);
+        assertThat(gets("hit")).isEqualTo(2);
+        assertThat(size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,181 @@
+package com.tradestream.orders_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.tradestream.orders_service.domain.Order;
+import com.tradestream.orders_service.domain.OrderStatus;
+import com.tradestream.orders_service.domain.OrderType;
+import com.tradestream.orders_service.domain.Side;
+import com.tradestream.orders_service.domain.TimeInForce;
+import com.tradestream.orders_service.dto.PlaceOrderRequest;
+import com.tradestream.orders_service.dto.PlaceOrdersBatchRequest;
+import com.tradestream.orders_service.dto.PlaceOrdersBatchResponse;
+import com.tradestream.orders_service.events.OrderPlaced;
+import com.tradestream.orders_service.outbox.OutboxWriter;
+import com.tradestream.orders_service.repo.OrderBatchRepository;
+import com.tradestream.orders_service.repo.OrderRepository;
+import com.tradestream.orders_service.risk.RiskCache;
+import com.tradestream.orders_service.risk.RiskLimitExceededException;
+import com.tradestream.orders_service.risk.RiskProps;
+import com.tradestream.orders_service.stream.OrderUpdateHub;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidationException;
+import jakarta.validation.ValidatorFactory;
+
+/**
+ * placeBatch accepts or rejects each order on its own and writes only the accepted ones. The real validator
+ * and risk cache run (open notional capped at 1000); the repositories, outbox, cache and hub are mocks.
+ */
+class OrderServiceBatchTest {
+    private static final String TOPIC = "order.placed.v1";
+    private static final ValidatorFactory validation = Validation.buildDefaultValidatorFactory();
+
+    private final OrderBatchRepository batchRepo = mock(OrderBatchRepository.class);
+    private final OutboxWriter outbox = mock(OutboxWriter.class);
+    private final OrderUpdateHub updates = mock(OrderUpdateHub.class);
+    private final OrderCache cache = mock(OrderCache.class);
+    private final UUID user = UUID.randomUUID();
+    private RiskCache risk;
+    private OrderService service;
+
+    @BeforeEach
+    void setUp() {
+        RiskProps limits = new RiskProps();
+        limits.setMaxOpenNotional(new BigDecimal("1000"));
+        OrderRepository repo = mock(OrderRepository.class);
+        risk = new RiskCache(repo, limits);
+        service = new OrderService(repo, batchRepo, validation.getValidator(), outbox, risk, updates, cache);
+        ReflectionTestUtils.setField(service, "orderPlacedTopic", TOPIC);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @AfterAll
+    static void closeValidation() { validation.close(); }
+
+    private PlaceOrderRequest limit(String ticker, String qty, String price) {
+        return new PlaceOrderRequest(user, ticker, Side.BUY, OrderType.LIMIT, TimeInForce.GTC,
+                new BigDecimal(qty), price == null ? null : new BigDecimal(price), null, null);
+    }
+
+    private PlaceOrdersBatchResponse place(PlaceOrderRequest... orders) {
+        return service.placeBatch(new PlaceOrdersBatchRequest(Arrays.asList(orders)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Order> inserted() {
+        ArgumentCaptor<List<Order>> captor = ArgumentCaptor.forClass(List.class);
+        verify(batchRepo).insertAll(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void rejectionsDoNotAffectTheRestOfTheBasket() {
+        var res = place(
+                limit("aapl", "10", "10"),                // accepted
+                limit("AAPL", "10", null),                // LIMIT without a price
+                null,
+                limit("MSFT", "91", "10"),                // 100 + 910 > 1000 open notional
+                new PlaceOrderRequest(user, "", Side.SELL, OrderType.MARKET, TimeInForce.IOC,
+                        BigDecimal.ONE, null, null, null)); // blank ticker
+
+        assertThat(res.accepted()).isEqualTo(1);
+        assertThat(res.rejected()).isEqualTo(4);
+        assertThat(res.results()).extracting(PlaceOrdersBatchResponse.Result::index).containsExactly(0, 1, 2, 3, 4);
+        assertThat(res.results()).extracting(PlaceOrdersBatchResponse.Result::code)
+                .containsExactly(null, "BAD_REQUEST", "BAD_REQUEST", "RISK_REJECTED", "BAD_REQUEST");
+        assertThat(res.results().get(1).message()).contains("price is required");
+        assertThat(res.results().get(4).message()).startsWith("ticker");
+
+        var accepted = res.results().get(0);
+        assertThat(accepted.accepted()).isTrue();
+        assertThat(accepted.order().ticker()).isEqualTo("AAPL");
+        assertThat(accepted.order().status()).isEqualTo(OrderStatus.NEW);
+
+        List<Order> rows = inserted();
+        assertThat(rows).singleElement().satisfies(o -> {
+            assertThat(o.getId()).isEqualTo(accepted.order().id());
+            assertThat(o.getTicker()).isEqualTo("AAPL");
+            assertThat(o.getCreatedAt()).isNotNull().isEqualTo(o.getUpdatedAt());
+        });
+        verify(cache).update(rows.get(0));
+        verify(updates).publish(rows.get(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void acceptedOrdersAreInsertedAndQueuedTogetherInRequestOrder() {
+        var res = place(limit("AAPL", "10", "10"), limit("aapl", "0", "10"), limit("MSFT", "20", "10"),
+                limit("GOOG", "30", "10"));
+
+        assertThat(res.accepted()).isEqualTo(3);
+        List<Order> rows = inserted();
+        assertThat(rows).extracting(Order::getTicker).containsExactly("AAPL", "MSFT", "GOOG");
+
+        ArgumentCaptor<List<OrderPlaced>> events = ArgumentCaptor.forClass(List.class);
+        verify(outbox).addAll(eq(TOPIC), events.capture(), any());
+        assertThat(events.getValue()).extracting(OrderPlaced::orderId)
+                .containsExactlyElementsOf(rows.stream().map(Order::getId).toList());
+        verify(updates, times(3)).publish(any());
+        assertThat(res.results()).extracting(PlaceOrdersBatchResponse.Result::accepted)
+                .containsExactly(true, false, true, true);
+    }
+
+    @Test
+    void basketOverTheSizeLimitIsRejectedWhole() {
+        PlaceOrderRequest[] orders = new PlaceOrderRequest[6];
+        Arrays.fill(orders, limit("AAPL", "1", "1"));
+
+        assertThatThrownBy(() -> place(orders))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("at most 5");
+        verify(batchRepo, never()).insertAll(anyList());
+    }
+
+    @Test
+    void failedInsertRollsBackEveryReservationInTheBasket() {
+        doThrow(new IllegalStateException("insert failed")).when(batchRepo).insertAll(anyList());
+        TransactionSynchronizationManager.initSynchronization();
+        assertThatThrownBy(() -> place(limit("AAPL", "50", "10"), limit("MSFT", "50", "10")))
+                .isInstanceOf(IllegalStateException.class);
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // the full limit is free again
+        assertThat(risk.reserve(user, "AAPL", Side.BUY, OrderType.LIMIT, TimeInForce.GTC,
+                new BigDecimal("100"), new BigDecimal("10"), null)).isNotNull();
+        assertThatThrownBy(() -> risk.reserve(user, "AAPL", Side.BUY, OrderType.LIMIT, TimeInForce.GTC,
+                BigDecimal.ONE, BigDecimal.ONE, null)).isInstanceOf(RiskLimitExceededException.class);
+    }
+}
@@ -0,0 +1,232 @@
+package com.tradestream.orders_service.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.tradestream.orders_service.domain.Order;
+import com.tradestream.orders_service.domain.OrderStatus;
+import com.tradestream.orders_service.domain.OrderType;
+import com.tradestream.orders_service.domain.Side;
+import com.tradestream.orders_service.domain.TimeInForce;
+import com.tradestream.orders_service.dto.OrderResponse;
+
+/**
+ * Conflation, overflow and after-commit delivery. Connections are recording emitters whose first send can be
+ * held on a latch, so the test decides what is still undelivered when the next update arrives; everything
+ * sent lands on one queue in send order. "Transactions" are a bare synchronization scope ended by hand.
+ */
+class OrderUpdateHubTest {
+    private static final long WAIT_MS = 5_000;
+
+    private record Sent(String event, Object data) { }
+
+    /** Records sends instead of writing them; the first one waits for {@link #release} while {@link #held}. */
+    private static final class RecordingEmitter extends SseEmitter {
+        final BlockingQueue<Sent> sent = new LinkedBlockingQueue<>();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean held;
+        volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (held && entered.getCount() > 0) {
+                entered.countDown();
+                try {
+                    release.await(WAIT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            // parts: "event:<name>\ndata:", the data, "\n\n"
+            Set<ResponseBodyEmitter.DataWithMediaType> parts = builder.build();
+            Iterator<ResponseBodyEmitter.DataWithMediaType> it = parts.iterator();
+            String head = (String) it.next().getData();
+            if (!head.startsWith("event:")) return; // heartbeat comment
+            sent.add(new Sent(head.substring(6, head.indexOf('\n')), it.next().getData()));
+        }
+
+        @Override
+        public void send(Object object, MediaType mediaType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized void complete() { completed = true; }
+    }
+
+    private final StreamProps props = new StreamProps();
+    private OrderUpdateHub hub;
+    private RecordingEmitter emitter;
+
+    private OrderUpdateHub hub() {
+        props.setHeartbeatSeconds(3_600);
+        props.setSenderThreads(2);
+        hub = new OrderUpdateHub(props) {
+            @Override
+            SseEmitter newEmitter(long timeoutMs) { return emitter = new RecordingEmitter(); }
+        };
+        return hub;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (hub != null) hub.shutdown();
+    }
+
+    private static Order order(UUID user, UUID id, OrderStatus status, String filled) {
+        return Order.builder()
+                .id(id).userId(user).ticker("AAPL")
+                .side(Side.BUY).type(OrderType.LIMIT).timeInForce(TimeInForce.GTC)
+                .quantity(BigDecimal.TEN).price(new BigDecimal("100")).filledQuantity(new BigDecimal(filled))
+                .status(status)
+                .build();
+    }
+
+    private Sent next() throws InterruptedException {
+        Sent s = emitter.sent.poll(WAIT_MS, TimeUnit.MILLISECONDS);
+        assertThat(s).as("nothing sent").isNotNull();
+        return s;
+    }
+
+    private OrderResponse nextOrder() throws InterruptedException {
+        Sent s = next();
+        assertThat(s.event()).isEqualTo("order");
+        return (OrderResponse) s.data();
+    }
+
+    private void holdFirstSend() { emitter.held = true; }
+
+    private void awaitFirstSendHeld() throws InterruptedException {
+        assertThat(emitter.entered.await(WAIT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    void newerStateReplacesAnUndeliveredOne() throws Exception {
+        UUID user = UUID.randomUUID(), a = UUID.randomUUID(), b = UUID.randomUUID();
+        hub().subscribe(user);
+        holdFirstSend();
+
+        hub.publish(order(user, a, OrderStatus.NEW, "0"));
+        awaitFirstSendHeld();
+        // the connection is busy: these queue, and the two later states of a conflate into one slot
+        hub.publish(order(user, a, OrderStatus.PARTIALLY_FILLED, "2"));
+        hub.publish(order(user, b, OrderStatus.NEW, "0"));
+        hub.publish(order(user, a, OrderStatus.PARTIALLY_FILLED, "7"));
+        emitter.release.countDown();
+
+        assertThat(nextOrder().status()).isEqualTo(OrderStatus.NEW);
+        assertThat(nextOrder().id()).isEqualTo(b);
+        OrderResponse latest = nextOrder();
+        assertThat(latest.id()).isEqualTo(a);
+        assertThat(latest.filledQuantity()).isEqualTo(new BigDecimal("7"));
+        assertThat(emitter.sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void connectionFallingBufferSizeOrdersBehindIsClosedWithOverflow() throws Exception {
+        props.setBufferSize(2);
+        UUID user = UUID.randomUUID();
+        hub().subscribe(user);
+        holdFirstSend();
+
+        hub.publish(order(user, UUID.randomUUID(), OrderStatus.NEW, "0"));
+        awaitFirstSendHeld();
+        hub.publish(order(user, UUID.randomUUID(), OrderStatus.NEW, "0"));
+        hub.publish(order(user, UUID.randomUUID(), OrderStatus.NEW, "0"));
+        hub.publish(order(user, UUID.randomUUID(), OrderStatus.NEW, "0")); // a third distinct order: overflow
+
+        assertThat(next()).isEqualTo(new Sent("overflow", "overflow"));
+        emitter.release.countDown();
+        nextOrder(); // the send that was in flight
+        assertThat(emitter.sent.poll(200, TimeUnit.MILLISECONDS)).isNull(); // the buffered two are dropped
+        assertThat(emitter.completed).isTrue();
+
+        hub.publish(order(user, UUID.randomUUID(), OrderStatus.NEW, "0"));
+        assertThat(emitter.sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void updatesOfOneOrderDoNotOverflow() throws Exception {
+        props.setBufferSize(2);
+        UUID user = UUID.randomUUID(), id = UUID.randomUUID();
+        hub().subscribe(user);
+        holdFirstSend();
+
+        hub.publish(order(user, id, OrderStatus.NEW, "0"));
+        awaitFirstSendHeld();
+        for (int i = 1; i <= 10; i++) hub.publish(order(user, id, OrderStatus.PARTIALLY_FILLED, String.valueOf(i)));
+        emitter.release.countDown();
+
+        nextOrder();
+        assertThat(nextOrder().filledQuantity()).isEqualTo(new BigDecimal("10"));
+        assertThat(emitter.completed).isFalse();
+    }
+
+    @Test
+    void deliveredAfterCommitWithTheCommittedState() throws Exception {
+        UUID user = UUID.randomUUID();
+        hub().subscribe(user);
+        Order o = order(user, UUID.randomUUID(), OrderStatus.NEW, "0");
+
+        TransactionSynchronizationManager.initSynchronization();
+        hub.publish(o);
+        o.setStatus(OrderStatus.CANCELED); // still changing before the commit
+        assertThat(emitter.sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(nextOrder().status()).isEqualTo(OrderStatus.CANCELED);
+    }
+
+    @Test
+    void nothingDeliveredOnRollback() throws Exception {
+        UUID user = UUID.randomUUID();
+        hub().subscribe(user);
+        Order rolledBack = order(user, UUID.randomUUID(), OrderStatus.NEW, "0");
+        Order committed = order(user, UUID.randomUUID(), OrderStatus.NEW, "0");
+
+        TransactionSynchronizationManager.initSynchronization();
+        hub.publish(rolledBack);
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+        hub.publish(committed);
+
+        assertThat(nextOrder().id()).isEqualTo(committed.getId());
+        assertThat(emitter.sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void onlyTheOwnersConnectionsGetTheUpdate() throws Exception {
+        UUID user = UUID.randomUUID();
+        hub().subscribe(user);
+
+        hub.publish(order(UUID.randomUUID(), UUID.randomUUID(), OrderStatus.NEW, "0"));
+        Order mine = order(user, UUID.randomUUID(), OrderStatus.NEW, "0");
+        hub.publish(mine);
+
+        assertThat(nextOrder().id()).isEqualTo(mine.getId());
+    }
+}
@@ -1,6 +1,7 @@
 package com.tradestream.portfolio_service.config;
 
 import com.tradestream.portfolio_service.dto.TransactionRecordedEvent;
+import com.tradestream.portfolio_service.persistence.DedupFilter;
 import org.springframework.context.annotation.*;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
@@ -13,12 +14,14 @@ public class ListenerFactoryConfig {
   @Bean
   public ConcurrentKafkaListenerContainerFactory<String, TransactionRecordedEvent>
       kafkaListenerContainerFactory(ConsumerFactory<String, TransactionRecordedEvent> cf,
-                                    DefaultErrorHandler errorHandler) {
+                                    DefaultErrorHandler errorHandler,
+                                    DedupFilter dedup) {
     var f = new ConcurrentKafkaListenerContainerFactory<String, TransactionRecordedEvent>();
     f.setConsumerFactory(cf);
     f.setCommonErrorHandler(errorHandler);
     f.setConcurrency(1); // deterministic updates
     f.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+    f.getContainerProperties().setConsumerRebalanceListener(dedup); // re-warm on assignment
     return f;
   }
 }
@@ -45,7 +45,7 @@ public class TransactionRecordedConsumer {
       msgId = UUID.nameUUIDFromBytes(rid.getBytes(StandardCharsets.UTF_8));
     }
 
-    projector.apply(rec.topic(), msgId, evt);
+    projector.apply(rec.topic(), msgId, rec.timestamp(), evt);
     if (ack != null) ack.acknowledge();
   }
 }
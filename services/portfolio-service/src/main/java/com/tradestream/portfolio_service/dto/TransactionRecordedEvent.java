@@ -1,6 +1,7 @@
 package com.tradestream.portfolio_service.dto;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -27,9 +28,9 @@ public class TransactionRecordedEvent {
 
   public Instant executedAtInstant() {
     if (executedAt == null) return null;
-    long seconds = executedAt.longValue();
-    BigDecimal frac = executedAt.remainder(BigDecimal.ONE);
-    int nanos = frac.movePointRight(9).abs().intValue();
-    return Instant.ofEpochSecond(seconds, nanos);
+    // floor, so -0.25 is -1s + 750ms rather than 0s + 250ms
+    BigDecimal seconds = executedAt.setScale(0, RoundingMode.FLOOR);
+    int nanos = executedAt.subtract(seconds).movePointRight(9).intValue();
+    return Instant.ofEpochSecond(seconds.longValueExact(), nanos);
   }
 }
@@ -10,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.tradestream.portfolio_service.domain.Position;
 import com.tradestream.portfolio_service.domain.ProcessedMessage;
 import com.tradestream.portfolio_service.dto.TransactionRecordedEvent;
+import com.tradestream.portfolio_service.persistence.DedupFilter;
 import com.tradestream.portfolio_service.persistence.PositionRepository;
 import com.tradestream.portfolio_service.persistence.ProcessedMessageRepository;
 
@@ -21,11 +22,14 @@ public class PortfolioProjector {
 
   private final PositionRepository posRepo;
   private final ProcessedMessageRepository msgRepo;
+  private final DedupFilter dedup;
 
   @Transactional
-  public void apply(String topic, UUID messageId, TransactionRecordedEvent e) {
+  /** {@code timestamp} is the record's (epoch millis); it tells the dedup filter whether a miss is proof. */
+  public void apply(String topic, UUID messageId, long timestamp, TransactionRecordedEvent e) {
     if (messageId == null) throw new IllegalArgumentException("eventId missing");
-    if (msgRepo.existsByTopicAndMessageId(topic, messageId)) return;
+    if (dedup.isDuplicate(topic, messageId, timestamp,
+        () -> msgRepo.existsByTopicAndMessageId(topic, messageId))) return;
 
     var userId = e.getUserId();
     var ticker = e.getTicker();
@@ -72,6 +76,7 @@ public class PortfolioProjector {
         .messageId(messageId)
         .receivedAt(OffsetDateTime.now())
         .build());
+    dedup.recordAfterCommit(topic, messageId);
   }
 
   private static BigDecimal nz(BigDecimal v) { return v == null ? BigDecimal.ZERO : v; }
@@ -0,0 +1,70 @@
+package com.tradestream.portfolio_service.wire;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import com.tradestream.portfolio_service.dto.TransactionRecordedEvent;
+
+/**
+ * Value deserializer that reads both formats: {@link WireFormat} binary when the content-type header says so,
+ * otherwise the usual JsonDeserializer (configured by the same spring.json.* properties as before).
+ */
+public class WireDeserializer implements Deserializer<Object> {
+  private final JsonDeserializer<Object> json = new JsonDeserializer<>();
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    json.configure(configs, isKey);
+  }
+
+  @Override
+  public Object deserialize(String topic, byte[] data) {
+    return json.deserialize(topic, data);
+  }
+
+  @Override
+  public Object deserialize(String topic, Headers headers, byte[] data) {
+    if (data == null) return null;
+    if (!WireFormat.isBinary(headers)) return json.deserialize(topic, headers, data);
+    try {
+      return decode(new WireFormat.Reader(data));
+    } catch (SerializationException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw new SerializationException("Malformed binary record on " + topic, e);
+    }
+  }
+
+  private static Object decode(WireFormat.Reader in) {
+    switch (in.type()) {
+      case WireFormat.TRANSACTION_RECORDED: {
+        var b = TransactionRecordedEvent.builder()
+            .eventId(in.uuid())
+            .tradeId(in.uuid())
+            .orderId(in.uuid())
+            .userId(in.uuid())
+            .side(in.string())
+            .ticker(in.string())
+            .quantity(in.decimal())
+            .price(in.decimal());
+        Instant executedAt = in.instant();
+        // Same seconds-with-nanos shape the JSON payload carries
+        if (executedAt != null) {
+          b.executedAt(BigDecimal.valueOf(executedAt.getEpochSecond()).add(BigDecimal.valueOf(executedAt.getNano(), 9)));
+        }
+        return b.version(in.int32()).build();
+      }
+      default:
+        throw new SerializationException("Unexpected binary record type " + in.type());
+    }
+  }
+
+  @Override
+  public void close() { json.close(); }
+}
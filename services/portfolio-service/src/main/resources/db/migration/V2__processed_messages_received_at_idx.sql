@@ -0,0 +1,2 @@
+-- Dedup filter warm-up reads the most recent ledger rows
+CREATE INDEX IF NOT EXISTS ix_processed_received_at ON processed_messages(received_at);
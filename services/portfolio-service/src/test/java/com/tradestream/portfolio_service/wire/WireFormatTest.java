@@ -0,0 +1,215 @@
+package com.tradestream.portfolio_service.wire;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import com.tradestream.portfolio_service.dto.TransactionRecordedEvent;
+
+/**
+* Binary layout plus this service's side of the contract: records are written in the order transaction-processor's
+* WireSerializer writes them. A change to that order must change both services and their WireFormatTests.
+*/
+class WireFormatTest {
+  private static final String TOPIC = "transaction.recorded.v1";
+
+  private static Headers binaryHeaders() {
+    return new RecordHeaders().add(WireFormat.CONTENT_TYPE, WireFormat.BINARY.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private static Object decode(byte[] data) {
+    return new WireDeserializer().deserialize(TOPIC, binaryHeaders(), data);
+  }
+
+  // ---- layout: the same WireFormat ships in every service ----
+
+  @Test
+  void nullFieldsCostNothingAndReadBackAsNull() {
+    byte[] sparse = new WireFormat.Writer(WireFormat.TRADE_EXECUTED)
+        .uuid(null).string(null).decimal(null).instant(null).int32(null).enumName(null)
+        .toBytes();
+
+    assertThat(sparse).hasSize(7); // magic, version, type, presence
+    var in = new WireFormat.Reader(sparse);
+    assertThat(in.type()).isEqualTo(WireFormat.TRADE_EXECUTED);
+    assertThat(in.uuid()).isNull();
+    assertThat(in.string()).isNull();
+    assertThat(in.decimal()).isNull();
+    assertThat(in.instant()).isNull();
+    assertThat(in.int32()).isNull();
+    assertThat(in.string()).isNull();
+  }
+
+  @Test
+  void decimalsKeepSignAndScale() {
+    List<BigDecimal> values = List.of(
+        new BigDecimal("-123.456"),
+        new BigDecimal("0.000000000000000001"),
+        new BigDecimal("0.00"),
+        new BigDecimal("1E+5"),
+        BigDecimal.valueOf(Long.MIN_VALUE, 127),
+        BigDecimal.valueOf(Long.MAX_VALUE, -128));
+    var out = new WireFormat.Writer(WireFormat.TRADE_EXECUTED);
+    values.forEach(out::decimal);
+
+    var in = new WireFormat.Reader(out.toBytes());
+    for (BigDecimal v : values) assertThat(in.decimal()).isEqualTo(v); // equals() compares scale too
+  }
+
+  @Test
+  void valuesThatDoNotFitTheLayoutThrow() {
+    var out = new WireFormat.Writer(WireFormat.TRADE_EXECUTED);
+
+    assertThatThrownBy(() -> out.decimal(new BigDecimal("123456789012345678901234567890")))
+        .isInstanceOf(ArithmeticException.class);
+    assertThatThrownBy(() -> out.decimal(BigDecimal.valueOf(1, 128))).isInstanceOf(ArithmeticException.class);
+    assertThatThrownBy(() -> out.instant(Instant.parse("2300-01-01T00:00:00Z")))
+        .isInstanceOf(ArithmeticException.class);
+    assertThatThrownBy(() -> out.string("x".repeat(0x10000))).isInstanceOf(ArithmeticException.class);
+  }
+
+  @Test
+  void instantsKeepNanosOnBothSidesOfTheEpoch() {
+    List<Instant> values = List.of(
+        Instant.parse("1969-07-20T20:17:40.123456789Z"),
+        Instant.ofEpochSecond(-1, 1),
+        Instant.EPOCH,
+        Instant.parse("2025-08-18T10:43:20.000000001Z"),
+        Instant.ofEpochSecond(0, Long.MAX_VALUE),
+        Instant.ofEpochSecond(-9_223_372_036L));
+    var out = new WireFormat.Writer(WireFormat.TRADE_EXECUTED);
+    values.forEach(out::instant);
+
+    var in = new WireFormat.Reader(out.toBytes());
+    for (Instant v : values) assertThat(in.instant()).isEqualTo(v);
+  }
+
+  @Test
+  void stringsAreUtf8() {
+    var in = new WireFormat.Reader(new WireFormat.Writer(WireFormat.TRADE_EXECUTED)
+        .string("").string("BRK.B").string("Zürich €").toBytes());
+
+    assertThat(in.string()).isEmpty();
+    assertThat(in.string()).isEqualTo("BRK.B");
+    assertThat(in.string()).isEqualTo("Zürich €");
+  }
+
+  @Test
+  void readerStopsAtTheFieldsItKnowsAndMissingOnesReadAsNull() {
+    UUID id = UUID.randomUUID();
+    byte[] newer = new WireFormat.Writer(WireFormat.TRADE_EXECUTED)
+        .uuid(id).decimal(BigDecimal.TEN).uuid(UUID.randomUUID()).string("appended").toBytes();
+    byte[] older = new WireFormat.Writer(WireFormat.TRADE_EXECUTED).uuid(id).toBytes();
+
+    var oldReader = new WireFormat.Reader(newer);
+    assertThat(oldReader.uuid()).isEqualTo(id);
+    assertThat(oldReader.decimal()).isEqualTo(BigDecimal.TEN);
+
+    var newReader = new WireFormat.Reader(older);
+    assertThat(newReader.uuid()).isEqualTo(id);
+    assertThat(newReader.decimal()).isNull();
+    assertThat(newReader.uuid()).isNull();
+  }
+
+  @Test
+  void foreignOrTruncatedRecordsAreRejected() {
+    assertThatThrownBy(() -> new WireFormat.Reader("{}".getBytes(StandardCharsets.UTF_8)))
+        .isInstanceOf(SerializationException.class);
+    assertThatThrownBy(() -> new WireFormat.Reader(new byte[] { 0x54, 2, 3, 0, 0, 0, 0 }))
+        .isInstanceOf(SerializationException.class);
+    assertThatThrownBy(() -> new WireFormat.Reader(new byte[] { 0x54, 1 }))
+        .isInstanceOf(SerializationException.class);
+  }
+
+  @Test
+  void contentTypeHeaderSelectsBinary() {
+    assertThat(WireFormat.isBinary(binaryHeaders())).isTrue();
+    assertThat(WireFormat.isBinary(new RecordHeaders())).isFalse();
+    assertThat(WireFormat.isBinary(null)).isFalse();
+  }
+
+  // ---- what this service reads: transaction.recorded as transaction-processor writes it ----
+
+  @Test
+  void transactionRecordedDecodes() {
+    UUID eventId = UUID.randomUUID(), tradeId = UUID.randomUUID();
+    UUID orderId = UUID.randomUUID(), userId = UUID.randomUUID();
+    Instant at = Instant.parse("2025-08-18T10:43:20.000000001Z");
+    byte[] data = new WireFormat.Writer(WireFormat.TRANSACTION_RECORDED)
+        .uuid(eventId).uuid(tradeId).uuid(orderId).uuid(userId).string("SELL").string("AAPL")
+        .decimal(new BigDecimal("-0.000000000001")).decimal(new BigDecimal("187.123456"))
+        .instant(at).int32(7)
+        .toBytes();
+
+    var evt = (TransactionRecordedEvent) decode(data);
+
+    assertThat(evt.getEventId()).isEqualTo(eventId);
+    assertThat(evt.getTradeId()).isEqualTo(tradeId);
+    assertThat(evt.getOrderId()).isEqualTo(orderId);
+    assertThat(evt.getUserId()).isEqualTo(userId);
+    assertThat(evt.getSide()).isEqualTo("SELL");
+    assertThat(evt.getTicker()).isEqualTo("AAPL");
+    assertThat(evt.getQuantity()).isEqualTo(new BigDecimal("-0.000000000001"));
+    assertThat(evt.getPrice()).isEqualTo(new BigDecimal("187.123456"));
+    assertThat(evt.getExecutedAt()).isEqualTo(new BigDecimal("1755513800.000000001")); // the JSON shape
+    assertThat(evt.executedAtInstant()).isEqualTo(at);
+    assertThat(evt.getVersion()).isEqualTo(7);
+  }
+
+  @Test
+  void preEpochExecutedAtSurvivesTheSecondsConversion() {
+    for (Instant at : List.of(Instant.parse("1969-12-31T23:59:59.999999999Z"),
+        Instant.parse("1969-12-31T23:59:59.25Z"), Instant.parse("1969-07-20T20:17:40Z"))) {
+      byte[] data = new WireFormat.Writer(WireFormat.TRANSACTION_RECORDED)
+          .uuid(UUID.randomUUID()).uuid(null).uuid(null).uuid(null).string(null).string(null)
+          .decimal(null).decimal(null).instant(at).int32(1)
+          .toBytes();
+
+      assertThat(((TransactionRecordedEvent) decode(data)).executedAtInstant()).isEqualTo(at);
+    }
+    var json = TransactionRecordedEvent.builder().executedAt(new BigDecimal("-0.25")).build();
+    assertThat(json.executedAtInstant()).isEqualTo(Instant.ofEpochSecond(-1, 750_000_000));
+  }
+
+  @Test
+  void nullsAndFieldsFromANewerWriterAreTolerated() {
+    UUID eventId = UUID.randomUUID();
+    byte[] sparse = new WireFormat.Writer(WireFormat.TRANSACTION_RECORDED)
+        .uuid(eventId).uuid(null).uuid(null).uuid(null).string(null).string(null)
+        .decimal(null).decimal(null).instant(null).int32(null)
+        .string("appended").decimal(BigDecimal.ONE)
+        .toBytes();
+    byte[] older = new WireFormat.Writer(WireFormat.TRANSACTION_RECORDED).uuid(eventId).toBytes();
+
+    var evt = (TransactionRecordedEvent) decode(sparse);
+    assertThat(evt.getEventId()).isEqualTo(eventId);
+    assertThat(evt.getSide()).isNull();
+    assertThat(evt.getQuantity()).isNull();
+    assertThat(evt.getExecutedAt()).isNull();
+    assertThat(evt.executedAtInstant()).isNull();
+    assertThat(evt.getVersion()).isNull();
+
+    assertThat(((TransactionRecordedEvent) decode(older)).getVersion()).isNull();
+  }
+
+  @Test
+  void unexpectedTypeOrTruncatedBodyIsRejected() {
+    byte[] txn = new WireFormat.Writer(WireFormat.TRANSACTION_RECORDED).uuid(UUID.randomUUID()).toBytes();
+
+    assertThatThrownBy(() -> decode(new WireFormat.Writer(WireFormat.TRADE_EXECUTED).toBytes()))
+        .isInstanceOf(SerializationException.class);
+    assertThatThrownBy(() -> decode(Arrays.copyOf(txn, txn.length - 4)))
+        .isInstanceOf(SerializationException.class);
+  }
+}
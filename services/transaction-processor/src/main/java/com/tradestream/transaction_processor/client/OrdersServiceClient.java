@@ -1,5 +1,7 @@
 package com.tradestream.transaction_processor.client;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -8,24 +10,40 @@ import org.springframework.web.client.RestTemplate;
 
 import lombok.Data;
 
+/**
+ * Fallback for trade events that don't carry user ids. An order's owner never changes, so answers are kept in
+ * a bounded LRU with no expiry; a partially filled order's later trades don't go back over HTTP.
+ */
 @Component
 public class OrdersServiceClient {
 
     private final RestTemplate restTemplate;
     private final String baseUrl;
+    private final Map<UUID, UUID> userByOrder;
 
     public OrdersServiceClient(RestTemplate restTemplate,
-                               @Value("${orders.baseUrl}") String baseUrl) {
+                               @Value("${orders.baseUrl}") String baseUrl,
+                               @Value("${orders.userCacheSize:100000}") int userCacheSize) {
         this.restTemplate = restTemplate;
         this.baseUrl = baseUrl;
+        this.userByOrder = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<UUID, UUID> eldest) { return size() > userCacheSize; }
+        };
     }
 
     public UUID getUserIdForOrder(UUID orderId) {
+        synchronized (userByOrder) {
+            UUID cached = userByOrder.get(orderId);
+            if (cached != null) return cached;
+        }
         // Assuming Orders Service has an endpoint like /orders/{id}
         OrderDto dto = restTemplate.getForObject(baseUrl + "/orders/" + orderId, OrderDto.class);
         if (dto == null || dto.getUserId() == null) {
             throw new IllegalStateException("Could not resolve user for order " + orderId);
         }
+        synchronized (userByOrder) {
+            userByOrder.put(orderId, dto.getUserId());
+        }
         return dto.getUserId();
     }
 
@@ -0,0 +1,20 @@
+package com.tradestream.transaction_processor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** In-memory bloom/LRU front for processed_messages; the DB is only asked when the filter says "maybe". */
+@Configuration
+@ConfigurationProperties(prefix = "tradestream.dedup")
+@Getter @Setter
+public class DedupProps {
+    private boolean enabled = true;
+    private long expectedInsertions = 1_000_000;   // per bloom generation (two are kept)
+    private double falsePositiveRate = 0.01;
+    private int lruSize = 100_000;
+    private long warmHours = 24;
+    private String timestampColumn = "processed_at"; // processed_messages column the warm-up orders by
+}
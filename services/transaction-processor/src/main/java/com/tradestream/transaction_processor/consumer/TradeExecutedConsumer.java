@@ -17,6 +17,6 @@ public class TradeExecutedConsumer {
     @KafkaListener(topics = "${tradestream.topics.tradeExecuted}")
     public void consume(ConsumerRecord<String, TradeExecutedEvent> record) {
         TradeExecutedEvent event = record.value();
-        transactionService.processTrade(record.topic(), record.key(), event);
+        transactionService.processTrade(record.topic(), record.key(), record.timestamp(), event);
     }
 }
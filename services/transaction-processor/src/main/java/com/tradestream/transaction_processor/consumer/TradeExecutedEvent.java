@@ -15,4 +15,6 @@ public class TradeExecutedEvent {
     private BigDecimal price;     // keep BigDecimal
     private BigDecimal quantity;  // <— was int
     private Instant timestamp;    // ISO-8601 instant (producer side decides format)
+    private UUID buyUserId;       // null from engines that predate these fields
+    private UUID sellUserId;
 }
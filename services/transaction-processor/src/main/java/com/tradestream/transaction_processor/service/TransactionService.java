@@ -11,6 +11,7 @@ import com.tradestream.transaction_processor.domain.ProcessedMessage;
 import com.tradestream.transaction_processor.domain.Transaction;
 import com.tradestream.transaction_processor.producer.TransactionRecordedEvent;
 import com.tradestream.transaction_processor.producer.TransactionRecordedProducer;
+import com.tradestream.transaction_processor.repo.DedupFilter;
 import com.tradestream.transaction_processor.repo.ProcessedMessageRepository;
 import com.tradestream.transaction_processor.repo.TransactionRepository;
 
@@ -25,16 +26,21 @@ public class TransactionService {
     private final ProcessedMessageRepository processedMessageRepository;
     private final OrdersServiceClient ordersServiceClient;
     private final TransactionRecordedProducer recordedProducer;
+    private final DedupFilter dedup;
 
+    /** {@code timestamp} is the record's (epoch millis); it tells the dedup filter whether a miss is proof. */
     @Transactional
-    public void processTrade(String topic, String messageKey, TradeExecutedEvent event) {
+    public void processTrade(String topic, String messageKey, long timestamp, TradeExecutedEvent event) {
         var key = new ProcessedMessage.Key(topic, event.getTradeId().toString());
-        if (processedMessageRepository.existsById(key)) {
+        if (dedup.isDuplicate(topic, event.getTradeId(), timestamp, () -> processedMessageRepository.existsById(key))) {
             return;
         }
 
-        var buyerUserId  = ordersServiceClient.getUserIdForOrder(event.getBuyOrderId());
-        var sellerUserId = ordersServiceClient.getUserIdForOrder(event.getSellOrderId());
+        // carried on the event; the Orders Service lookup only covers trades from older engines
+        var buyerUserId  = event.getBuyUserId() != null ? event.getBuyUserId()
+                : ordersServiceClient.getUserIdForOrder(event.getBuyOrderId());
+        var sellerUserId = event.getSellUserId() != null ? event.getSellUserId()
+                : ordersServiceClient.getUserIdForOrder(event.getSellOrderId());
 
         var buyerTx = transactionRepository.save(Transaction.builder()
                 .tradeId(event.getTradeId())
@@ -59,6 +65,7 @@ public class TransactionService {
                 .build());
 
         processedMessageRepository.save(new ProcessedMessage(key, Instant.now()));
+        dedup.recordAfterCommit(topic, event.getTradeId());
 
         recordedProducer.publish(toEvent(buyerTx));
         recordedProducer.publish(toEvent(sellerTx));
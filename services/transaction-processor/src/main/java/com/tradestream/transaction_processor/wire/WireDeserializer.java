@@ -0,0 +1,64 @@
+package com.tradestream.transaction_processor.wire;
+
+import java.util.Map;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import com.tradestream.transaction_processor.consumer.TradeExecutedEvent;
+
+/**
+ * Value deserializer that reads both formats: {@link WireFormat} binary when the content-type header says so,
+ * otherwise the usual JsonDeserializer (configured by the same spring.json.* properties as before).
+ */
+public class WireDeserializer implements Deserializer<Object> {
+    private final JsonDeserializer<Object> json = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return json.deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) return null;
+        if (!WireFormat.isBinary(headers)) return json.deserialize(topic, headers, data);
+        try {
+            return decode(new WireFormat.Reader(data));
+        } catch (SerializationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new SerializationException("Malformed binary record on " + topic, e);
+        }
+    }
+
+    private static Object decode(WireFormat.Reader in) {
+        switch (in.type()) {
+            case WireFormat.TRADE_EXECUTED: {
+                var t = new TradeExecutedEvent();
+                t.setTradeId(in.uuid());
+                t.setBuyOrderId(in.uuid());
+                t.setSellOrderId(in.uuid());
+                t.setTicker(in.string());
+                t.setPrice(in.decimal());
+                t.setQuantity(in.decimal());
+                t.setTimestamp(in.instant());
+                t.setBuyUserId(in.uuid());
+                t.setSellUserId(in.uuid());
+                return t;
+            }
+            default:
+                throw new SerializationException("Unexpected binary record type " + in.type());
+        }
+    }
+
+    @Override
+    public void close() { json.close(); }
+}
@@ -0,0 +1,2 @@
+-- Dedup filter warm-up reads the most recent ledger rows
+CREATE INDEX IF NOT EXISTS idx_processed_processed_at ON processed_messages (processed_at);
@@ -0,0 +1,70 @@
+package com.tradestream.transaction_processor.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Lookup and caching against a mock Orders Service; each expected request may be made once, so a second
+ * HTTP call for the same order fails the test.
+ */
+class OrdersServiceClientTest {
+    private static final String BASE = "http://orders";
+
+    private final RestTemplate rest = new RestTemplate();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(rest).ignoreExpectOrder(true).build();
+
+    private void expectOrder(UUID orderId, UUID userId) {
+        server.expect(once(), requestTo(BASE + "/orders/" + orderId))
+                .andRespond(withSuccess("{\"id\":\"" + orderId + "\",\"userId\":\"" + userId + "\"}",
+                        MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void ownerIsFetchedOnceAndThenServedFromTheCache() {
+        var client = new OrdersServiceClient(rest, BASE, 10);
+        UUID order = UUID.randomUUID(), user = UUID.randomUUID();
+        expectOrder(order, user);
+
+        assertThat(client.getUserIdForOrder(order)).isEqualTo(user);
+        assertThat(client.getUserIdForOrder(order)).isEqualTo(user);
+
+        server.verify();
+    }
+
+    @Test
+    void leastRecentlyUsedOwnerIsEvictedPastTheCacheSize() {
+        var client = new OrdersServiceClient(rest, BASE, 1);
+        UUID first = UUID.randomUUID(), second = UUID.randomUUID(), user = UUID.randomUUID();
+        expectOrder(first, user);
+        expectOrder(second, user);
+        expectOrder(first, user); // evicted by second, so asked again
+
+        client.getUserIdForOrder(first);
+        client.getUserIdForOrder(second);
+        client.getUserIdForOrder(second);
+        client.getUserIdForOrder(first);
+
+        server.verify();
+    }
+
+    @Test
+    void unresolvedOwnerIsAnErrorAndNotCached() {
+        var client = new OrdersServiceClient(rest, BASE, 10);
+        UUID order = UUID.randomUUID();
+        server.expect(once(), requestTo(BASE + "/orders/" + order))
+                .andRespond(withSuccess("{\"id\":\"" + order + "\"}", MediaType.APPLICATION_JSON));
+
+        assertThatThrownBy(() -> client.getUserIdForOrder(order)).isInstanceOf(IllegalStateException.class);
+        server.verify();
+    }
+}
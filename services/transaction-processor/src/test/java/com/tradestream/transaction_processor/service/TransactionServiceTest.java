@@ -0,0 +1,118 @@
+package com.tradestream.transaction_processor.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.tradestream.transaction_processor.client.OrdersServiceClient;
+import com.tradestream.transaction_processor.consumer.TradeExecutedEvent;
+import com.tradestream.transaction_processor.domain.Transaction;
+import com.tradestream.transaction_processor.producer.TransactionRecordedEvent;
+import com.tradestream.transaction_processor.producer.TransactionRecordedProducer;
+import com.tradestream.transaction_processor.repo.DedupFilter;
+import com.tradestream.transaction_processor.repo.ProcessedMessageRepository;
+import com.tradestream.transaction_processor.repo.TransactionRepository;
+
+/**
+ * Where each leg's user id comes from. Repositories hand back what they are given; the dedup filter lets
+ * every trade through.
+ */
+class TransactionServiceTest {
+    private static final String TOPIC = "trade.executed.v1";
+
+    private final TransactionRepository transactions = mock(TransactionRepository.class);
+    private final OrdersServiceClient orders = mock(OrdersServiceClient.class);
+    private final TransactionRecordedProducer producer = mock(TransactionRecordedProducer.class);
+    private final DedupFilter dedup = mock(DedupFilter.class);
+    private final TransactionService service = new TransactionService(transactions,
+            mock(ProcessedMessageRepository.class), orders, producer, dedup);
+
+    @BeforeEach
+    void setUp() {
+        when(transactions.save(any())).thenAnswer(returnsFirstArg());
+        when(dedup.isDuplicate(anyString(), any(), anyLong(), any())).thenReturn(false);
+    }
+
+    private static TradeExecutedEvent trade(UUID buyUser, UUID sellUser) {
+        var t = new TradeExecutedEvent();
+        t.setTradeId(UUID.randomUUID());
+        t.setBuyOrderId(UUID.randomUUID());
+        t.setSellOrderId(UUID.randomUUID());
+        t.setTicker("AAPL");
+        t.setPrice(new BigDecimal("100"));
+        t.setQuantity(BigDecimal.ONE);
+        t.setTimestamp(Instant.parse("2025-08-18T10:43:20Z"));
+        t.setBuyUserId(buyUser);
+        t.setSellUserId(sellUser);
+        return t;
+    }
+
+    private void assertLegs(TradeExecutedEvent t, UUID buyUser, UUID sellUser) {
+        var saved = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactions, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues())
+                .extracting(Transaction::getSide, Transaction::getOrderId, Transaction::getUserId)
+                .containsExactly(
+                        tuple(Transaction.Side.BUY, t.getBuyOrderId(), buyUser),
+                        tuple(Transaction.Side.SELL, t.getSellOrderId(), sellUser));
+
+        var published = ArgumentCaptor.forClass(TransactionRecordedEvent.class);
+        verify(producer, times(2)).publish(published.capture());
+        assertThat(published.getAllValues()).extracting(TransactionRecordedEvent::getUserId)
+                .containsExactly(buyUser, sellUser);
+    }
+
+    @Test
+    void userIdsOnTheTradeAreUsedWithoutAskingOrdersService() {
+        UUID buyUser = UUID.randomUUID(), sellUser = UUID.randomUUID();
+        var t = trade(buyUser, sellUser);
+
+        service.processTrade(TOPIC, t.getTradeId().toString(), 0L, t);
+
+        verifyNoInteractions(orders);
+        assertLegs(t, buyUser, sellUser);
+    }
+
+    @Test
+    void tradeFromAnOlderEngineLooksBothOwnersUp() {
+        UUID buyUser = UUID.randomUUID(), sellUser = UUID.randomUUID();
+        var t = trade(null, null);
+        when(orders.getUserIdForOrder(t.getBuyOrderId())).thenReturn(buyUser);
+        when(orders.getUserIdForOrder(t.getSellOrderId())).thenReturn(sellUser);
+
+        service.processTrade(TOPIC, t.getTradeId().toString(), 0L, t);
+
+        verify(orders).getUserIdForOrder(t.getBuyOrderId());
+        verify(orders).getUserIdForOrder(t.getSellOrderId());
+        assertLegs(t, buyUser, sellUser);
+    }
+
+    @Test
+    void onlyTheMissingSideIsLookedUp() {
+        UUID buyUser = UUID.randomUUID(), sellUser = UUID.randomUUID();
+        var t = trade(buyUser, null);
+        when(orders.getUserIdForOrder(t.getSellOrderId())).thenReturn(sellUser);
+
+        service.processTrade(TOPIC, t.getTradeId().toString(), 0L, t);
+
+        verify(orders).getUserIdForOrder(t.getSellOrderId());
+        verify(orders, times(1)).getUserIdForOrder(any());
+        assertLegs(t, buyUser, sellUser);
+    }
+}